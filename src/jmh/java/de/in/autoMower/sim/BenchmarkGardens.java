@@ -0,0 +1,108 @@
+package de.in.autoMower.sim;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Gardens used by the benchmarks: the tbs10.json test project and synthetic
+ * gardens with a configurable number of border vertices and obstacles.
+ * <p>
+ * Names are either {@code tbs10} or {@code synthetic-<vertices>-<obstacles>}.
+ */
+final class BenchmarkGardens {
+
+    static final String TBS10 = "tbs10";
+
+    private static final double RADIUS = 100;
+
+    private BenchmarkGardens() {
+    }
+
+    static GroundModel load(String name) throws IOException {
+        if (TBS10.equals(name))
+            return loadProject(new File(System.getProperty("tbs10.file", "src/test/resources/tbs10.json")));
+        if (name.startsWith("synthetic-")) {
+            String[] parts = name.split("-");
+            return synthetic(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+        }
+        throw new IllegalArgumentException("Unknown garden: " + name);
+    }
+
+    static GroundModel loadProject(File file) throws IOException {
+        ProjectData data = new ObjectMapper().readValue(file, ProjectData.class);
+        GroundModel gm = new GroundModel();
+        gm.setCalibration(data.calibration);
+        gm.setBorder(data.border.toMultiLine());
+        gm.obstacles = data.obstacles.stream().map(ProjectData.MultiLineDTO::toMultiLine)
+                .collect(Collectors.toList());
+        if (data.chargingStation != null) {
+            gm.setChargingStation(data.chargingStation.toPoint());
+            gm.ensureChargingStationInside();
+        }
+        return gm;
+    }
+
+    /**
+     * A star shaped border around (RADIUS, RADIUS) with a wavy outline, and small
+     * square obstacles on a ring halfway out. The dock sits in the free centre.
+     */
+    static GroundModel synthetic(int vertices, int obstacles) {
+        GroundModel gm = new GroundModel();
+        MultiLine2D border = new MultiLine2D(GroundModel.BORDER_COLOR);
+        for (int i = 0; i < vertices; i++) {
+            double a = 2 * Math.PI * i / vertices;
+            double r = RADIUS * (0.85 + 0.15 * Math.sin(7 * a));
+            border.addPoint(new Point2D.Double(RADIUS + r * Math.cos(a), RADIUS + r * Math.sin(a)));
+        }
+        border.closePath();
+        gm.setBorder(border);
+        gm.setCalibration(2.0);
+
+        gm.obstacles = new ArrayList<>();
+        double size = Math.min(8, Math.PI * RADIUS / Math.max(1, obstacles) / 2);
+        for (int i = 0; i < obstacles; i++) {
+            double a = 2 * Math.PI * i / obstacles;
+            double cx = RADIUS + RADIUS * 0.45 * Math.cos(a);
+            double cy = RADIUS + RADIUS * 0.45 * Math.sin(a);
+            MultiLine2D obstacle = new MultiLine2D(GroundModel.OBSTACLE_COLOR);
+            obstacle.addPoint(new Point2D.Double(cx - size / 2, cy - size / 2));
+            obstacle.addPoint(new Point2D.Double(cx + size / 2, cy - size / 2));
+            obstacle.addPoint(new Point2D.Double(cx + size / 2, cy + size / 2));
+            obstacle.addPoint(new Point2D.Double(cx - size / 2, cy + size / 2));
+            obstacle.closePath();
+            gm.obstacles.add(obstacle);
+        }
+        gm.setChargingStation(new Point2D.Double(RADIUS, RADIUS));
+        return gm;
+    }
+
+    /**
+     * Reproducible query points spread over the bounding box of the border.
+     */
+    static Point2D[] randomPoints(GroundModel gm, int count, long seed) {
+        java.awt.Rectangle bounds = gm.getBorder().getBounds();
+        Random random = new Random(seed);
+        Point2D[] points = new Point2D[count];
+        for (int i = 0; i < count; i++) {
+            points[i] = new Point2D.Double(bounds.getMinX() + random.nextDouble() * bounds.getWidth(),
+                    bounds.getMinY() + random.nextDouble() * bounds.getHeight());
+        }
+        return points;
+    }
+
+    static AbstractAutoMowerModel prepareMower(GroundModel gm) {
+        AutoMowerModel mower = new AutoMowerModel();
+        mower.setHeadless(true);
+        mower.setSeed(42);
+        if (!mower.prepare(new MultiLine2D(Color.RED), gm))
+            throw new IllegalStateException("Mower could not be placed on the ground");
+        return mower;
+    }
+}
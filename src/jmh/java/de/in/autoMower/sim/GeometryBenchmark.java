@@ -0,0 +1,86 @@
+package de.in.autoMower.sim;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Geometry queries of {@link GroundModel} that the mower issues for every
+ * navigation decision and every coverage pixel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({ BenchmarkGardens.TBS10, "synthetic-64-4", "synthetic-256-16", "synthetic-1024-64" })
+    public String garden;
+
+    private GroundModel groundModel;
+    private Point2D[] points;
+    private Point2D[] targets;
+    private Line2D[] lines;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        groundModel = BenchmarkGardens.load(garden);
+        points = BenchmarkGardens.randomPoints(groundModel, QUERIES, 1);
+        targets = BenchmarkGardens.randomPoints(groundModel, QUERIES, 2);
+        lines = new Line2D[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            lines[i] = new Line2D.Double(points[i], targets[i]);
+        }
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (QUERIES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public boolean isInside() {
+        return groundModel.isInside(points[nextIndex()]);
+    }
+
+    @Benchmark
+    public List<Line2D> getCollisionLines() {
+        int i = nextIndex();
+        return groundModel.getCollisionLines(points[i], targets[i]);
+    }
+
+    @Benchmark
+    public Point2D getCollisionPoint() {
+        int i = nextIndex();
+        return groundModel.getCollisionPoint(points[i], targets[i]);
+    }
+
+    @Benchmark
+    public Line2D getCollidingLine() {
+        return groundModel.getCollidingLine(lines[nextIndex()]);
+    }
+
+    @Benchmark
+    public double getDistOnPerimeter() {
+        return groundModel.getDistOnPerimeter(points[nextIndex()]);
+    }
+}
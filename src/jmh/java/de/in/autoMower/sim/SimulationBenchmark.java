@@ -0,0 +1,117 @@
+package de.in.autoMower.sim;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per decision and per tick costs of {@link AbstractAutoMowerModel}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulationBenchmark {
+
+    private static final int POSITIONS = 1024;
+
+    @Param({ BenchmarkGardens.TBS10, "synthetic-64-4", "synthetic-256-16", "synthetic-1024-64" })
+    public String garden;
+
+    private GroundModel groundModel;
+    private AbstractAutoMowerModel mower;
+    private Point2D[] positions;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        groundModel = BenchmarkGardens.load(garden);
+        mower = BenchmarkGardens.prepareMower(groundModel);
+        // Only positions the mower could actually be at
+        positions = new Point2D[POSITIONS];
+        Point2D[] candidates = BenchmarkGardens.randomPoints(groundModel, POSITIONS * 16, 3);
+        int found = 0;
+        for (int i = 0; i < candidates.length && found < POSITIONS; i++) {
+            if (groundModel.isInside(candidates[i], 0))
+                positions[found++] = candidates[i];
+        }
+        for (int i = found; i < POSITIONS; i++) {
+            positions[i] = groundModel.getChargingStation();
+        }
+    }
+
+    private Point2D nextPosition() {
+        next = (next + 1) & (POSITIONS - 1);
+        return positions[next];
+    }
+
+    /**
+     * One random bounce: pick a heading and raycast it against all edges.
+     */
+    @Benchmark
+    public Line2D calculateNextSegment() {
+        mower.currentState = AbstractAutoMowerModel.State.MOWING;
+        mower.currentPosition.setLocation(nextPosition());
+        // Without a current line the mower picks a fresh random heading
+        mower.currentLine = null;
+        mower.calculateNextSegment();
+        return mower.currentLine;
+    }
+
+    @Benchmark
+    public double updateCoverage() {
+        mower.updateCoverage(nextPosition());
+        return mower.getCoveragePercentage();
+    }
+
+    /**
+     * Sweeps the mowing width over a whole segment between two random positions,
+     * about the length of one bounce.
+     */
+    @Benchmark
+    public double updateCoverageSegment() {
+        Point2D from = positions[next];
+        mower.updateCoverage(from, nextPosition());
+        return mower.getCoveragePercentage();
+    }
+
+    /**
+     * Starts coverage tracking: copies the cached mowable pixel mask.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public double initCoverage() {
+        mower.initCoverage();
+        return mower.getCoveragePercentage();
+    }
+
+    /**
+     * Builds the mowable pixel mask from scratch, as after every geometry change.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public long buildCoverageMask() {
+        return CoverageMask.build(groundModel.border, groundModel.obstacles, 0).getMowableCount();
+    }
+}
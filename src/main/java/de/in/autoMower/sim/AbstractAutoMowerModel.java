@@ -5,10 +5,16 @@ import java.awt.EventQueue;
 import java.awt.Graphics;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.TreeMap;
 
 import javax.swing.JOptionPane;
 
@@ -20,6 +26,13 @@ public abstract class AbstractAutoMowerModel implements Serializable {
     private static final long serialVersionUID = 1L;
 
     // --- Simulation Constants & Config ---
+    /**
+     * Simulated seconds per step in headless mode ({@link #runUntil(double)}).
+     */
+    public static final double DEFAULT_STEP_SECONDS = 0.1;
+    static final double CHARGING_SECONDS = 3.0;
+    private static final int MAX_ZERO_TIME_EVENTS = 1000;
+
     double speedInCmPerSec = 1000 / 36d;
     double mowingWidthInCm = 14;
     double timeScale = 1.0;
@@ -43,7 +56,18 @@ public abstract class AbstractAutoMowerModel implements Serializable {
         }
     }
 
-    State currentState = State.STOPPED;
+    volatile State currentState = State.STOPPED;
+    /** The state to continue with after {@link #stop()}, null if not stopped by it. */
+    private State pausedState = null;
+    private transient SimulationScheduler.Run run;
+    /** What the view shows, replaced by the simulation, see {@link #getSnapshot()}. */
+    private transient volatile MowerSnapshot snapshot;
+    /** Receives the run as events, or null. */
+    private transient TraceLog.Writer traceLog;
+    /** Where the run is checkpointed, or null, see {@link #setCheckpoints}. */
+    private transient File checkpointFile;
+    private transient double checkpointSeconds;
+    private transient double nextCheckpointSeconds;
 
     public double simulatedRuntimeSeconds = 0;
 
@@ -55,16 +79,21 @@ public abstract class AbstractAutoMowerModel implements Serializable {
     // References
     MultiLine2D border;
     protected GroundModel groundModel;
-    protected MultiLine2D line = new MultiLine2D(Color.RED); // Trace
+    protected MultiLine2D line = new MultiLine2D(Color.RED); // Trace, optional
+    /** Own charging station, null to use the one of the ground model. */
+    protected Point2D dock = null;
+    protected volatile TraceBuffer trace = new TraceBuffer();
 
     // Helper
-    Random random = new Random();
+    /** Started over from its seed by every run. */
+    SeededRandom random = new SeededRandom(SeededRandom.newSeed());
     List<Line2D> collisionLines = new ArrayList<>();
     private long lastUIUpdate = 0;
     protected int currentBorderIndex = 0;
     protected double transitionDistanceCm = 0;
     private int edgeCuttingPointsLeft = -1;
     private int edgeCuttingDirection = 1;
+    private boolean headless = false;
 
     // --- Model Info ---
     public abstract String getModelName();
@@ -73,6 +102,38 @@ public abstract class AbstractAutoMowerModel implements Serializable {
 
     public abstract AbstractAutoMowerModel createNewInstance();
 
+    /**
+     * A new mower of the same model with the same speed, mowing width, battery
+     * and time scale, ready for a run of its own.
+     */
+    public AbstractAutoMowerModel createConfiguredCopy() {
+        AbstractAutoMowerModel copy = createNewInstance();
+        copy.setSpeedInCmPerSec(getSpeedInCmPerSec());
+        copy.setMowingWidthInCm(getMowingWidthInCm());
+        copy.batteryCapacityWh = batteryCapacityWh;
+        copy.energyConsumptionWhPerCm = energyConsumptionWhPerCm;
+        copy.chargeRateWhPerSec = chargeRateWhPerSec;
+        copy.timeScale = timeScale;
+        copy.headless = headless;
+        return copy;
+    }
+
+    /**
+     * Seed of the random numbers of the runs, a new one for every mower unless
+     * set.
+     */
+    public long getSeed() {
+        return random.getSeed();
+    }
+
+    /**
+     * The runs from now on take their random numbers from {@code seed}. The same
+     * seed on the same ground gives the same run in headless mode.
+     */
+    public void setSeed(long seed) {
+        random = new SeededRandom(seed);
+    }
+
     @Override
     public String toString() {
         return getModelName();
@@ -87,6 +148,18 @@ public abstract class AbstractAutoMowerModel implements Serializable {
         this.timeScale = t;
     }
 
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    /**
+     * In headless mode no repaints are requested and no dialogs or info messages
+     * are shown. Used for batch runs where many mowers are simulated off-screen.
+     */
+    public void setHeadless(boolean headless) {
+        this.headless = headless;
+    }
+
     public double getSpeedInCmPerSec() {
         return speedInCmPerSec;
     }
@@ -107,6 +180,131 @@ public abstract class AbstractAutoMowerModel implements Serializable {
         return transitionTargetPoint;
     }
 
+    /**
+     * The state of the mower as of the end of the last tick, for the view. The
+     * simulation changes its fields in place, so the view must not read them
+     * while a run is going on.
+     */
+    public MowerSnapshot getSnapshot() {
+        MowerSnapshot current = snapshot;
+        return current != null ? current : takeSnapshot();
+    }
+
+    /**
+     * Replaces the snapshot with the current state. Only called by the thread
+     * advancing the run, or while it is paused.
+     */
+    void publishSnapshot() {
+        snapshot = takeSnapshot();
+    }
+
+    private MowerSnapshot takeSnapshot() {
+        CoverageGrid grid = coverage;
+        double[] zoneCoverage = new double[grid == null ? 0 : grid.getZoneCount()];
+        for (int zone = 0; zone < zoneCoverage.length; zone++)
+            zoneCoverage[zone] = getZoneCoveragePercentage(zone);
+        return new MowerSnapshot(copy(currentPosition), copy(segmentStart), copy(transitionTargetPoint), copy(dock),
+                currentState, getBatteryWh() / batteryCapacityWh, simulatedRuntimeSeconds, getCoveragePercentage(),
+                getOwnCoveragePercentage(), zoneCoverage, Collections.unmodifiableMap(new TreeMap<>(getZoneStats())),
+                getCollisionCount(), getNavigationErrorCount(), getTransitionDistanceMeters(), getSeed());
+    }
+
+    /**
+     * Charge of the battery, including what the part of the segment driven so
+     * far used. That part is only taken from {@link #currentBatteryWh} at the
+     * next event.
+     */
+    private double getBatteryWh() {
+        if (currentState == State.CHARGING)
+            return currentBatteryWh;
+        return Math.max(0, currentBatteryWh - speedInCmPerSec * segmentSeconds * energyConsumptionWhPerCm);
+    }
+
+    private static Point2D copy(Point2D p) {
+        return p == null ? null : new Point2D.Double(p.getX(), p.getY());
+    }
+
+    /**
+     * Logs the run to come, see {@link TraceLog}. Set before the run is prepared
+     * or started; {@link #cancel()} closes the log. If writing fails the rest of
+     * the run is not recorded and the user is told.
+     */
+    void setTraceLog(TraceLog.Writer traceLog) {
+        this.traceLog = traceLog;
+        if (traceLog != null)
+            traceLog.setFailureHandler(e -> showErrorMessage("Trace log " + traceLog.getFile()
+                    + " failed, the rest of the run is not recorded: " + e.getMessage()));
+    }
+
+    TraceLog.Writer getTraceLog() {
+        return traceLog;
+    }
+
+    /**
+     * Writes a {@link Checkpoint} of the run to {@code file} every
+     * {@code intervalSeconds} of simulated time, each replacing the last. The
+     * drivers write it after the step that reaches the time, so it does not
+     * change the run. If writing fails no more checkpoints are written and the
+     * user is told.
+     *
+     * @param file the checkpoint, or null to not write any
+     */
+    void setCheckpoints(File file, double intervalSeconds) {
+        if (file != null && !(intervalSeconds > 0))
+            throw new IllegalArgumentException("Checkpoint interval must be positive: " + intervalSeconds);
+        this.checkpointFile = file;
+        this.checkpointSeconds = intervalSeconds;
+        if (file != null)
+            nextCheckpointSeconds = (Math.floor(simulatedRuntimeSeconds / intervalSeconds) + 1) * intervalSeconds;
+    }
+
+    private void checkpointIfDue() {
+        File file = checkpointFile;
+        if (file == null || simulatedRuntimeSeconds < nextCheckpointSeconds)
+            return;
+        nextCheckpointSeconds = (Math.floor(simulatedRuntimeSeconds / checkpointSeconds) + 1) * checkpointSeconds;
+        try {
+            Checkpoint.of(this).write(file);
+        } catch (IOException e) {
+            checkpointFile = null;
+            showErrorMessage("Can not write checkpoint " + file + ", no more are written: " + e.getMessage());
+        }
+    }
+
+    private void logState() {
+        if (traceLog != null)
+            traceLog.state(simulatedRuntimeSeconds, currentState, getBatteryWh() / batteryCapacityWh,
+                    currentPosition);
+    }
+
+    /**
+     * What the model counts per zone for the statistics, by zone index.
+     */
+    protected Map<Integer, ? extends Number> getZoneStats() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * The trace of the current run, readable while the simulation appends to it.
+     */
+    TraceBuffer getTrace() {
+        return trace;
+    }
+
+    /**
+     * The charging station of this mower: its own one if set, otherwise the one of
+     * the ground model.
+     */
+    public Point2D getDock() {
+        if (dock != null)
+            return dock;
+        return groundModel == null ? null : groundModel.getChargingStation();
+    }
+
+    public void setDock(Point2D dock) {
+        this.dock = dock == null ? null : new Point2D.Double(dock.getX(), dock.getY());
+    }
+
     public Line2D getCurrentLine() {
         return currentLine;
     }
@@ -136,12 +334,50 @@ public abstract class AbstractAutoMowerModel implements Serializable {
         startInternal(visualTrace, gm, State.EDGE_CUTTING);
     }
 
+    /**
+     * Prepares a mowing run without spawning a thread. The run can then be advanced
+     * with {@link #step(double)} or {@link #runUntil(double)}.
+     *
+     * @return false if the mower could not be placed on the ground
+     */
+    public boolean prepare(MultiLine2D visualTrace, GroundModel gm) {
+        return prepareInternal(visualTrace, gm, State.MOWING);
+    }
+
+    /**
+     * Prepares an edge cutting run without spawning a thread.
+     *
+     * @return false if the mower could not be placed on the ground
+     */
+    public boolean prepareEdgeCutting(MultiLine2D visualTrace, GroundModel gm) {
+        return prepareInternal(visualTrace, gm, State.EDGE_CUTTING);
+    }
+
     private void startInternal(MultiLine2D visualTrace, GroundModel gm, State startState) {
+        if (prepareInternal(visualTrace, gm, startState))
+            startPaced();
+    }
+
+    /**
+     * Hands the prepared run to the paced driver of the
+     * {@link SimulationScheduler}. A run of this mower still ticking is
+     * cancelled.
+     */
+    synchronized void startPaced() {
+        if (run != null)
+            run.cancel();
+        pausedState = null;
+        run = SimulationScheduler.getDefault().start(this);
+    }
+
+    private boolean prepareInternal(MultiLine2D visualTrace, GroundModel gm, State startState) {
         this.line = visualTrace;
+        this.trace = new TraceBuffer();
+        this.random = new SeededRandom(random.getSeed());
         this.groundModel = gm;
         this.border = gm.getBorder();
 
-        Point2D station = gm.getChargingStation();
+        Point2D station = getDock();
         if (station != null) {
             this.currentPosition = new Point2D.Double(station.getX(), station.getY());
         } else {
@@ -151,18 +387,20 @@ public abstract class AbstractAutoMowerModel implements Serializable {
             }
         }
 
-        this.line.addPoint(new Point2D.Double(currentPosition.getX(), currentPosition.getY()));
+        addTracePoint();
 
         if (!gm.isInside(this.currentPosition)) {
-            boolean atDock = gm.getChargingStation() != null && currentPosition.distance(gm.getChargingStation()) < 2.0;
+            boolean atDock = getDock() != null && currentPosition.distance(getDock()) < 2.0;
             if (!atDock) {
                 showErrorMessage("Safety Error: Robot spawned outside!");
-                return;
+                return false;
             }
         }
 
         this.currentBatteryWh = this.batteryCapacityWh;
         this.currentState = startState;
+        this.currentLine = null;
+        this.segmentSeconds = 0;
 
         initCoverage();
 
@@ -173,7 +411,7 @@ public abstract class AbstractAutoMowerModel implements Serializable {
             this.edgeCuttingPointsLeft = border.getNumberOfPoints();
 
             // Determine "left" direction from dock's perspective
-            Point2D dock = groundModel.getChargingStation();
+            Point2D dock = getDock();
             if (dock != null) {
                 Point2D v = border.getPoint(currentBorderIndex);
                 int nextIdx = (currentBorderIndex + 1) % border.getNumberOfPoints();
@@ -195,11 +433,21 @@ public abstract class AbstractAutoMowerModel implements Serializable {
         }
 
         calculateNextSegment();
-        new Thread(this::runMower).start();
+        logState();
+        publishSnapshot();
+        return true;
     }
 
     private double chargingStateTime = 0;
-
+    /** Simulated seconds driven on the current segment, not settled yet. */
+    private double segmentSeconds = 0;
+
+    /**
+     * Paced driver for the interactive view on the calling thread: advances the
+     * simulation by the elapsed wall clock time multiplied with
+     * {@link #getTimeScale()} until the mower stops. The application ticks its
+     * mowers with the {@link SimulationScheduler} instead.
+     */
     public void runMower() {
         long lastTime = System.currentTimeMillis();
 
@@ -208,87 +456,292 @@ public abstract class AbstractAutoMowerModel implements Serializable {
                 long now = System.currentTimeMillis();
                 double dtReal = (now - lastTime) / 1000d;
                 lastTime = now;
-                double dtSim = dtReal * timeScale;
-                simulatedRuntimeSeconds += dtSim;
-
-                Point2D prevPos = new Point2D.Double(currentPosition.getX(), currentPosition.getY());
-
-                if (currentState == State.CHARGING) {
-                    // Fast Charging: Wait 3 seconds simulation time
-                    chargingStateTime += dtSim;
-                    if (chargingStateTime >= 3.0) {
-                        currentBatteryWh = batteryCapacityWh;
-                        currentState = State.MOWING;
-                        chargingStateTime = 0;
-                        calculateNextSegment();
-                    }
-                } else {
-                    double moveDist = speedInCmPerSec * dtSim;
-                    double pixelDist = moveDist / groundModel.getCalibration();
-                    currentBatteryWh -= moveDist * energyConsumptionWhPerCm;
+                tick(dtReal);
 
-                    if (currentState == State.TRANSITIONING_TO_ZONE) {
-                        transitionDistanceCm += moveDist;
-                    }
-
-                    if (currentState == State.MOWING && currentBatteryWh < batteryCapacityWh * 0.10) {
-                        currentState = State.SEEKING_BORDER;
-                        calculateNextSegment();
-                    }
-
-                    if (currentBatteryWh <= 0) {
-                        currentBatteryWh = 0;
-                        // Teleport to dock
-                        Point2D dock = groundModel.getChargingStation();
-                        if (dock != null) {
-                            currentPosition.setLocation(dock);
-                            currentState = State.CHARGING;
-                            chargingStateTime = 0; // Reset timer
-                            showInfoMessage("Battery Empty! Teleported to dock.");
-                            // Prevent further movement in this loop iteration (which would overwrite
-                            // teleport)
-                            continue;
-                        }
-                        currentState = State.STOPPED;
-                        showInfoMessage("Battery Empty! No Dock found.");
-                        break;
-                    }
-
-                    if (currentLine == null) {
-                        calculateNextSegment();
-                    }
-
-                    double distToTarget = currentPosition.distance(currentLine.getP2());
-
-                    if (pixelDist >= distToTarget) {
-                        currentPosition.setLocation(currentLine.getP2());
-                        // Segment completed - update trace
-                        line.addPoint(new Point2D.Double(currentPosition.getX(), currentPosition.getY()));
-                        if (currentState == State.EDGE_CUTTING) {
-                            edgeCuttingPointsLeft--;
-                        }
-                        calculateNextSegment();
-                    } else if (pixelDist > 0) {
-                        Point2D newPos = GeomUtil.getColinearPointWithLength(currentPosition, currentLine.getP2(),
-                                pixelDist);
-                        currentPosition.setLocation(newPos);
-                        currentLine.setLine(currentPosition, currentLine.getP2());
-                        updateCoverage(currentPosition);
-                    }
-                    onMove(moveDist, prevPos, currentPosition);
-                }
-
-                if (now - lastUIUpdate > 50) {
+                if (now - lastUIUpdate > SimulationScheduler.UI_UPDATE_MILLIS) {
                     updateUI();
                     lastUIUpdate = now;
                 }
-                Thread.sleep(10);
+                Thread.sleep(SimulationScheduler.TICK_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * One tick of the paced driver: advances the simulation by {@code dtReal}
+     * wall clock seconds multiplied with {@link #getTimeScale()} and publishes a
+     * new snapshot. A crash stops the mower.
+     *
+     * @return true if the mower is still running
+     */
+    boolean tick(double dtReal) {
+        try {
+            Point2D lineStart = currentLine == null ? null : currentLine.getP1();
+            Point2D before = copy(currentPosition);
+            step(dtReal * timeScale);
+            // Coverage is settled at the end of a segment, until then the view
+            // shows the part driven so far
+            if (segmentSeconds > 0 && currentLine != null) {
+                Point2D start = currentLine.getP1();
+                updateCoverage(start.equals(lineStart) ? before : start, currentPosition);
             }
-        } catch (Exception e) {
+        } catch (RuntimeException e) {
             e.printStackTrace();
             showErrorMessage("Crash: " + e.getMessage());
             currentState = State.STOPPED;
         }
+        logState();
+        checkpointIfDue();
+        publishSnapshot();
+        return !isStopped();
+    }
+
+    /**
+     * Headless driver: advances the simulation with fixed steps of
+     * {@link #DEFAULT_STEP_SECONDS} until the simulated runtime reaches
+     * {@code simSeconds} or the mower stops. No sleeps, no wall clock.
+     *
+     * @return true if the mower is still running
+     */
+    public boolean runUntil(double simSeconds) {
+        return runUntil(simSeconds, DEFAULT_STEP_SECONDS);
+    }
+
+    public boolean runUntil(double simSeconds, double stepSeconds) {
+        while (!isStopped() && simulatedRuntimeSeconds < simSeconds) {
+            step(Math.min(stepSeconds, simSeconds - simulatedRuntimeSeconds));
+            logState();
+            checkpointIfDue();
+        }
+        publishSnapshot();
+        return !isStopped();
+    }
+
+    /**
+     * Event-driven driver: instead of fixed ticks, every iteration jumps straight
+     * to the next event (segment end, low battery threshold, empty battery,
+     * charging finished). A straight run across the lawn costs one iteration.
+     *
+     * @return true if the mower is still running
+     */
+    public boolean runEventsUntil(double simSeconds) {
+        int stalled = 0;
+        while (!isStopped() && simulatedRuntimeSeconds < simSeconds) {
+            if (advanceToNextEvent(simSeconds - simulatedRuntimeSeconds) > 0) {
+                stalled = 0;
+            } else if (++stalled > MAX_ZERO_TIME_EVENTS) {
+                // Degenerate geometry keeps producing zero length segments
+                simulatedRuntimeSeconds += Math.min(DEFAULT_STEP_SECONDS, simSeconds - simulatedRuntimeSeconds);
+                stalled = 0;
+            }
+            logState();
+            checkpointIfDue();
+        }
+        publishSnapshot();
+        return !isStopped();
+    }
+
+    /**
+     * Advances the simulation to the next event, but at most by {@code maxDt}
+     * seconds.
+     * <p>
+     * The events on a segment are taken from the state at its start: its end,
+     * low battery and empty battery. So the move up to the event is known from
+     * the start, and {@link #onMove} is fed its tick sized pieces as the mower
+     * drives them. Battery and coverage are settled for the whole move at the
+     * event. It makes no difference in how many calls a segment is driven, the
+     * fixed ticks of {@link #step(double)} end it at the same point as one call
+     * of the event driven loop.
+     *
+     * @return the simulated time advanced
+     */
+    public double advanceToNextEvent(double maxDt) {
+        if (currentState == State.CHARGING) {
+            double remaining = Math.max(0, CHARGING_SECONDS - chargingStateTime);
+            if (remaining <= maxDt) {
+                simulatedRuntimeSeconds += remaining;
+                finishCharging();
+                return remaining;
+            }
+            simulatedRuntimeSeconds += maxDt;
+            chargingStateTime += maxDt;
+            return maxDt;
+        }
+
+        double lowBatteryWh = batteryCapacityWh * 0.10;
+        if (currentState == State.MOWING && currentBatteryWh < lowBatteryWh && segmentSeconds == 0) {
+            // Mowing again after running into an obstacle on the way to the border
+            currentState = State.SEEKING_BORDER;
+            startSegment();
+        }
+        if (currentLine == null) {
+            startSegment();
+        }
+
+        double calibration = groundModel.getCalibration();
+        double whPerSec = speedInCmPerSec * energyConsumptionWhPerCm;
+        if (speedInCmPerSec <= 0 || currentLine == null) {
+            simulatedRuntimeSeconds += maxDt;
+            return maxDt;
+        }
+
+        Point2D from = currentLine.getP1();
+        Point2D to = currentLine.getP2();
+        double segmentCm = from.distance(to) * calibration;
+        double tSegment = segmentCm / speedInCmPerSec;
+        double tEmpty = whPerSec > 0 ? currentBatteryWh / whPerSec : Double.MAX_VALUE;
+        double tLow = Double.MAX_VALUE;
+        if (currentState == State.MOWING && whPerSec > 0 && currentBatteryWh >= lowBatteryWh)
+            tLow = (currentBatteryWh - lowBatteryWh) / whPerSec;
+        double tEvent = Math.min(tSegment, Math.min(tLow, tEmpty));
+        double moveDist = tEvent == tSegment ? segmentCm : speedInCmPerSec * tEvent;
+        Point2D end = tEvent == tSegment && tEvent != tEmpty ? to
+                : GeomUtil.getColinearPointWithLength(from, to, moveDist / calibration);
+        int pieces = getMovePieces(moveDist);
+        int piecesDriven = getMovePiecesDriven(moveDist, pieces);
+
+        double left = tEvent - segmentSeconds;
+        if (left > maxDt) {
+            segmentSeconds += maxDt;
+            simulatedRuntimeSeconds += maxDt;
+            currentPosition.setLocation(
+                    GeomUtil.getColinearPointWithLength(from, to, speedInCmPerSec * segmentSeconds / calibration));
+            feedMove(moveDist, from, end, pieces, piecesDriven, getMovePiecesDriven(moveDist, pieces));
+            return maxDt;
+        }
+        left = Math.max(0, left);
+        simulatedRuntimeSeconds += left;
+
+        currentBatteryWh -= moveDist * energyConsumptionWhPerCm;
+        if (currentState == State.TRANSITIONING_TO_ZONE) {
+            transitionDistanceCm += moveDist;
+        }
+
+        currentPosition.setLocation(end);
+        updateCoverage(from, end);
+        feedMove(moveDist, from, end, pieces, piecesDriven, pieces);
+        if (tEvent == tEmpty) {
+            currentBatteryWh = 0;
+            handleEmptyBattery();
+            // Goes on to the same point after charging
+            currentLine.setLine(currentPosition, to);
+            segmentSeconds = 0;
+        } else if (tEvent == tSegment) {
+            completeSegment();
+        } else {
+            currentLine.setLine(currentPosition, to);
+            // Make sure later checks see the battery as low despite rounding
+            currentBatteryWh = Math.min(currentBatteryWh, Math.nextDown(lowBatteryWh));
+            currentState = State.SEEKING_BORDER;
+            startSegment();
+        }
+        return left;
+    }
+
+    /**
+     * Number of tick sized pieces {@link #onMove} is fed a move in.
+     */
+    private int getMovePieces(double distCm) {
+        double tickCm = speedInCmPerSec * DEFAULT_STEP_SECONDS;
+        return tickCm > 0 ? Math.max(1, (int) Math.ceil(distCm / tickCm)) : 1;
+    }
+
+    /**
+     * Pieces of the move on the current segment that are driven completely, the
+     * last one is fed at the event.
+     */
+    private int getMovePiecesDriven(double distCm, int pieces) {
+        if (distCm <= 0)
+            return 0;
+        return (int) Math.min(pieces - 1, Math.floor(speedInCmPerSec * segmentSeconds * pieces / distCm));
+    }
+
+    /**
+     * Feeds {@link #onMove} the pieces {@code done + 1} to {@code upTo} of a
+     * move from {@code from} to {@code to}.
+     */
+    private void feedMove(double distCm, Point2D from, Point2D to, int pieces, int done, int upTo) {
+        if (pieces == 1) {
+            if (upTo == 1)
+                onMove(distCm, from, to);
+            return;
+        }
+        Point2D prev = done == 0 ? from : GeomUtil.getColinearPointWithRatio(from, to, done / (double) pieces);
+        for (int i = done + 1; i <= upTo; i++) {
+            Point2D next = i == pieces ? to : GeomUtil.getColinearPointWithRatio(from, to, i / (double) pieces);
+            onMove(distCm / pieces, prev, next);
+            prev = next;
+        }
+    }
+
+    /**
+     * Advances the state machine by {@code dtSim} seconds of simulated time. An
+     * event within the step does not end it, the rest of the step goes on with
+     * the next segment.
+     */
+    public void step(double dtSim) {
+        double left = dtSim;
+        int stalled = 0;
+        while (left > 0 && !isStopped()) {
+            double dt = advanceToNextEvent(left);
+            if (dt > 0) {
+                left -= dt;
+                stalled = 0;
+            } else if (++stalled > MAX_ZERO_TIME_EVENTS) {
+                // Degenerate geometry keeps producing zero length segments
+                simulatedRuntimeSeconds += left;
+                return;
+            }
+        }
+    }
+
+    private void finishCharging() {
+        currentBatteryWh = batteryCapacityWh;
+        currentState = State.MOWING;
+        chargingStateTime = 0;
+        startSegment();
+    }
+
+    private void handleEmptyBattery() {
+        // Teleport to dock
+        Point2D dock = getDock();
+        if (dock != null) {
+            currentPosition.setLocation(dock);
+            currentState = State.CHARGING;
+            chargingStateTime = 0; // Reset timer
+            showInfoMessage("Battery Empty! Teleported to dock.");
+            return;
+        }
+        currentState = State.STOPPED;
+        showInfoMessage("Battery Empty! No Dock found.");
+    }
+
+    private void addTracePoint() {
+        trace.add(currentPosition);
+        if (traceLog != null)
+            traceLog.point(simulatedRuntimeSeconds, currentPosition);
+        if (line != null)
+            line.addPoint(new Point2D.Double(currentPosition.getX(), currentPosition.getY()));
+    }
+
+    private void completeSegment() {
+        // Segment completed - update trace
+        addTracePoint();
+        if (currentState == State.EDGE_CUTTING) {
+            edgeCuttingPointsLeft--;
+        }
+        startSegment();
+    }
+
+    /**
+     * Picks the next segment from the current position, which the mower then
+     * drives from its start.
+     */
+    private void startSegment() {
+        segmentSeconds = 0;
+        calculateNextSegment();
     }
 
     public void calculateNextSegment() {
@@ -309,7 +762,7 @@ public abstract class AbstractAutoMowerModel implements Serializable {
             Line2D path = new Line2D.Double(currentPosition, target);
             Line2D colPath = getFirstCollision(path);
             if (colPath != null) {
-                handleCollision(colPath);
+                handleCollision(colPath, path);
                 return;
             }
             currentLine = path;
@@ -339,7 +792,7 @@ public abstract class AbstractAutoMowerModel implements Serializable {
         }
 
         if (currentState == State.FOLLOWING_BORDER) {
-            Point2D dock = groundModel.getChargingStation();
+            Point2D dock = getDock();
             if (dock != null && currentPosition.distance(dock) < 12.0) {
                 currentState = State.CHARGING;
                 currentLine = new Line2D.Double(currentPosition, currentPosition);
@@ -518,7 +971,7 @@ public abstract class AbstractAutoMowerModel implements Serializable {
             navigationErrorCount++;
             System.err.println("Navigation Error: Stuck at " + currentPosition);
 
-            Point2D dock = groundModel.getChargingStation();
+            Point2D dock = getDock();
             if (dock != null) {
                 currentPosition.setLocation(dock);
                 currentState = State.CHARGING;
@@ -589,8 +1042,12 @@ public abstract class AbstractAutoMowerModel implements Serializable {
         return groundModel == null ? null : groundModel.getCollidingLine(trajectory);
     }
 
-    private void handleCollision(Line2D wall) {
-        Point2D hit = GeomUtil.getIntersectPoint(wall, currentLine);
+    /**
+     * Drives to where the path to the border runs into an obstacle and mows on
+     * from there.
+     */
+    private void handleCollision(Line2D wall, Line2D path) {
+        Point2D hit = GeomUtil.getIntersectPoint(wall, path);
         if (hit == null)
             hit = wall.getP1();
         State oldState = currentState;
@@ -602,6 +1059,8 @@ public abstract class AbstractAutoMowerModel implements Serializable {
     }
 
     protected void updateUI() {
+        if (headless)
+            return;
         EventQueue.invokeLater(() -> {
             if (App.getApp() != null && App.getApp().getPanel() != null)
                 App.getApp().getPanel().repaint();
@@ -609,6 +1068,10 @@ public abstract class AbstractAutoMowerModel implements Serializable {
     }
 
     protected void showErrorMessage(String message) {
+        if (headless) {
+            System.err.println("Error: " + message);
+            return;
+        }
         EventQueue.invokeLater(() -> {
             if (App.getApp() != null)
                 JOptionPane.showMessageDialog(App.getApp(), message, "Error", JOptionPane.ERROR_MESSAGE);
@@ -616,11 +1079,25 @@ public abstract class AbstractAutoMowerModel implements Serializable {
     }
 
     protected void showInfoMessage(String message) {
+        if (headless)
+            return;
         System.out.println("Info: " + message);
     }
 
-    public void stop() {
+    /**
+     * Pauses the mower, {@link #resume()} continues in the state it had.
+     */
+    public synchronized void stop() {
+        // Once paused no tick is in progress, so the state can not change under us
+        if (run != null)
+            run.pause();
+        if (currentState != State.STOPPED)
+            pausedState = currentState;
         currentState = State.STOPPED;
+        logState();
+        if (traceLog != null)
+            traceLog.flush();
+        publishSnapshot();
     }
 
     public boolean isStopped() {
@@ -631,17 +1108,44 @@ public abstract class AbstractAutoMowerModel implements Serializable {
         return currentState == State.CHARGING;
     }
 
-    public void cancel() {
+    public synchronized void cancel() {
+        if (run != null)
+            run.cancel();
+        run = null;
+        pausedState = null;
         currentState = State.STOPPED;
+        logState();
+        if (traceLog != null) {
+            try {
+                traceLog.close();
+            } catch (IOException e) {
+                showErrorMessage("Can not finish trace log " + traceLog.getFile() + ": " + e.getMessage());
+            }
+            traceLog = null;
+        }
+        publishSnapshot();
     }
 
     public boolean isReturningToDock() {
         return currentState == State.SEEKING_BORDER || currentState == State.FOLLOWING_BORDER;
     }
 
-    public void resume() {
-        currentState = State.MOWING;
-        new Thread(this::runMower).start();
+    /**
+     * Continues a stopped mower in the state it had when it was stopped, or mowing
+     * if it stopped on its own.
+     */
+    public synchronized void resume() {
+        if (run != null)
+            run.pause();
+        if (currentState == State.STOPPED)
+            currentState = pausedState != null ? pausedState : State.MOWING;
+        pausedState = null;
+        logState();
+        publishSnapshot();
+        if (run == null)
+            run = SimulationScheduler.getDefault().start(this);
+        else
+            run.resume();
     }
 
     public Point2D calculateBounceDirection(Line2D wall, Point2D hitPoint, Point2D prevPoint) {
@@ -686,6 +1190,8 @@ public abstract class AbstractAutoMowerModel implements Serializable {
 
     protected void incrementCollisionCount(Point2D pos) {
         collisionCount++;
+        if (traceLog != null)
+            traceLog.collision(simulatedRuntimeSeconds, pos);
         onCollision(pos);
     }
 
@@ -699,13 +1205,16 @@ public abstract class AbstractAutoMowerModel implements Serializable {
     protected void onMove(double distCm, Point2D p1, Point2D p2) {
     }
 
-    public void drawStats(Graphics g, Point2D pos) {
+    /**
+     * Draws the statistics of a snapshot of this mower, see {@link #getSnapshot()}.
+     */
+    public void drawStats(Graphics g, Point2D pos, MowerSnapshot snapshot) {
         int x = (int) pos.getX();
         int y = (int) pos.getY();
         int width = 100;
         int height = 15;
 
-        double batteryPercent = currentBatteryWh / batteryCapacityWh;
+        double batteryPercent = snapshot.batteryPercent();
 
         g.setColor(java.awt.Color.GRAY);
         g.drawRect(x, y, width, height);
@@ -721,96 +1230,326 @@ public abstract class AbstractAutoMowerModel implements Serializable {
         g.fillRect(x + 1, y + 1, (int) ((width - 1) * batteryPercent), height - 1);
 
         g.setColor(java.awt.Color.WHITE);
-        g.drawString(String.format("%s (%.0f%%)", currentState.description, batteryPercent * 100), x, y + height + 15);
+        g.drawString(String.format("%s (%.0f%%)", snapshot.state().description, batteryPercent * 100), x,
+                y + height + 15);
 
-        int hours = (int) (simulatedRuntimeSeconds / 3600);
-        int minutes = (int) ((simulatedRuntimeSeconds % 3600) / 60);
-        int seconds = (int) (simulatedRuntimeSeconds % 60);
+        double runtime = snapshot.runtimeSeconds();
+        int hours = (int) (runtime / 3600);
+        int minutes = (int) ((runtime % 3600) / 60);
+        int seconds = (int) (runtime % 60);
         String runtimeStr = String.format("Runtime: %02d:%02d:%02d", hours, minutes, seconds);
         g.drawString(runtimeStr, x, y + height + 30);
 
-        String coverageStr = String.format("Coverage: %.1f%%", getCoveragePercentage() * 100.0);
+        String coverageStr = String.format("Coverage: %.1f%%", snapshot.coverage() * 100.0);
         g.drawString(coverageStr, x, y + height + 45);
 
-        g.drawString("Collisions: " + getCollisionCount(), x, y + height + 60);
+        g.drawString("Collisions: " + snapshot.collisions(), x, y + height + 60);
 
-        int errs = getNavigationErrorCount();
+        int errs = snapshot.navigationErrors();
         if (errs > 0) {
             g.setColor(java.awt.Color.RED);
         }
         g.drawString("Nav Errors: " + errs, x, y + height + 75);
+
+        g.setColor(java.awt.Color.WHITE);
+        g.drawString("Seed: " + snapshot.seed(), x, y + height + 90);
+    }
+
+    // --- Checkpoints ---
+
+    /**
+     * Writes everything the run needs to continue, see {@link Checkpoint}. The
+     * mower must not be ticking meanwhile.
+     */
+    void writeState(DataOutput out) throws IOException {
+        List<Point2D> vertices = border == null ? List.of() : border.getPoints();
+        out.writeInt(vertices.size());
+        for (Point2D p : vertices) {
+            out.writeDouble(p.getX());
+            out.writeDouble(p.getY());
+        }
+
+        out.writeDouble(speedInCmPerSec);
+        out.writeDouble(mowingWidthInCm);
+        out.writeDouble(timeScale);
+        out.writeDouble(batteryCapacityWh);
+        out.writeDouble(currentBatteryWh);
+        out.writeDouble(energyConsumptionWhPerCm);
+        out.writeDouble(chargeRateWhPerSec);
+        out.writeBoolean(headless);
+
+        out.writeByte(currentState.ordinal());
+        out.writeByte(pausedState == null ? -1 : pausedState.ordinal());
+        out.writeDouble(simulatedRuntimeSeconds);
+        out.writeDouble(chargingStateTime);
+        out.writeDouble(segmentSeconds);
+        writePoint(out, currentPosition);
+        writePoint(out, segmentStart);
+        writePoint(out, transitionTargetPoint);
+        writePoint(out, dock);
+        out.writeBoolean(currentLine != null);
+        if (currentLine != null) {
+            out.writeDouble(currentLine.getX1());
+            out.writeDouble(currentLine.getY1());
+            out.writeDouble(currentLine.getX2());
+            out.writeDouble(currentLine.getY2());
+        }
+        out.writeInt(currentBorderIndex);
+        out.writeDouble(transitionDistanceCm);
+        out.writeInt(edgeCuttingPointsLeft);
+        out.writeInt(edgeCuttingDirection);
+        out.writeInt(navigationErrorCount);
+        out.writeInt(collisionCount);
+
+        out.writeLong(random.getSeed());
+        out.writeLong(random.getDraws());
+
+        trace.writeTo(out);
+        CoverageGrid grid = coverage;
+        out.writeBoolean(grid != null);
+        if (grid != null) {
+            grid.writeMowed(out);
+            out.writeLong(mowedPixels);
+        }
+        writeModelState(out);
+    }
+
+    /**
+     * Continues a run written by {@link #writeState} on the given ground. The
+     * coverage is counted against the zones of this ground, which may differ
+     * from the ones of the run.
+     *
+     * @throws IOException if the state is broken or the border of the ground is
+     *                     not the one of the run
+     */
+    void readState(DataInput in, GroundModel gm) throws IOException {
+        // Checked before anything is overwritten, a rejected mower stays as it was
+        List<Point2D> vertices = gm.getBorder().getPoints();
+        boolean sameBorder = in.readInt() == vertices.size();
+        for (int i = 0; sameBorder && i < vertices.size(); i++)
+            sameBorder = in.readDouble() == vertices.get(i).getX() && in.readDouble() == vertices.get(i).getY();
+        if (!sameBorder)
+            throw new IOException("The checkpoint is of another border");
+
+        speedInCmPerSec = in.readDouble();
+        mowingWidthInCm = in.readDouble();
+        timeScale = in.readDouble();
+        batteryCapacityWh = in.readDouble();
+        currentBatteryWh = in.readDouble();
+        energyConsumptionWhPerCm = in.readDouble();
+        chargeRateWhPerSec = in.readDouble();
+        headless = in.readBoolean();
+
+        State[] states = State.values();
+        currentState = states[in.readByte()];
+        int paused = in.readByte();
+        pausedState = paused < 0 ? null : states[paused];
+        simulatedRuntimeSeconds = in.readDouble();
+        chargingStateTime = in.readDouble();
+        segmentSeconds = in.readDouble();
+        currentPosition = readPoint(in);
+        segmentStart = readPoint(in);
+        transitionTargetPoint = readPoint(in);
+        dock = readPoint(in);
+        currentLine = in.readBoolean()
+                ? new Line2D.Double(in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble())
+                : null;
+        currentBorderIndex = in.readInt();
+        transitionDistanceCm = in.readDouble();
+        edgeCuttingPointsLeft = in.readInt();
+        edgeCuttingDirection = in.readInt();
+        navigationErrorCount = in.readInt();
+        collisionCount = in.readInt();
+
+        long seed = in.readLong();
+        random = SeededRandom.resume(seed, in.readLong());
+
+        line = null;
+        groundModel = gm;
+        border = gm.getBorder();
+        trace = TraceBuffer.readFrom(in);
+        if (in.readBoolean()) {
+            CoverageGrid grid = new CoverageGrid(gm.getCoverageMask(), gm.getZoneMap());
+            grid.readMowed(in);
+            coverage = grid;
+            mowedPixels = in.readLong();
+        } else {
+            coverage = null;
+            mowedPixels = 0;
+        }
+        readModelState(in);
+        publishSnapshot();
     }
 
-    private byte[][] coverageGrid;
-    private int gridMinX, gridMinY;
-    private int gridWidth, gridHeight;
-    private long totalMowablePixels = 0;
+    /**
+     * Writes the state a model keeps on top of the common one, e.g. its zone
+     * statistics.
+     */
+    protected void writeModelState(DataOutput out) throws IOException {
+    }
+
+    protected void readModelState(DataInput in) throws IOException {
+    }
+
+    private static void writePoint(DataOutput out, Point2D p) throws IOException {
+        out.writeBoolean(p != null);
+        if (p != null) {
+            out.writeDouble(p.getX());
+            out.writeDouble(p.getY());
+        }
+    }
+
+    private static Point2D readPoint(DataInput in) throws IOException {
+        return in.readBoolean() ? new Point2D.Double(in.readDouble(), in.readDouble()) : null;
+    }
+
+    /** Coverage of the current run, shared by all mowers of a fleet. */
+    private volatile CoverageGrid coverage;
+    /** Cells this mower mowed before any other. */
     private long mowedPixels = 0;
-    private boolean coverageInitialized = false;
 
     public void initCoverage() {
         if (groundModel == null || groundModel.getBorder() == null)
             return;
+        useCoverage(new CoverageGrid(groundModel.getCoverageMask(), groundModel.getZoneMap()));
+    }
 
-        java.awt.Rectangle bounds = groundModel.getBorder().getBounds();
-        gridMinX = bounds.x;
-        gridMinY = bounds.y;
-        gridWidth = bounds.width + 1;
-        gridHeight = bounds.height + 1;
-
-        coverageGrid = new byte[gridWidth][gridHeight];
-        totalMowablePixels = 0;
+    /**
+     * Mows into the given grid from now on, e.g. one shared with other mowers on
+     * the same ground.
+     */
+    void useCoverage(CoverageGrid grid) {
+        coverage = grid;
         mowedPixels = 0;
+    }
 
-        for (int x = 0; x < gridWidth; x++) {
-            for (int y = 0; y < gridHeight; y++) {
-                Point2D p = new Point2D.Double(gridMinX + x, gridMinY + y);
-                if (groundModel.isInside(p)) {
-                    coverageGrid[x][y] = 1;
-                    totalMowablePixels++;
-                } else {
-                    coverageGrid[x][y] = 0;
-                }
-            }
-        }
-        coverageInitialized = true;
+    /**
+     * The coverage grid of the current run, or null before coverage tracking
+     * started.
+     */
+    CoverageGrid getCoverage() {
+        return coverage;
     }
 
     protected void updateCoverage(Point2D pos) {
-        if (!coverageInitialized || coverageGrid == null)
-            return;
-
-        double pixelRadius = (mowingWidthInCm / 2) / groundModel.getCalibration();
-        int r = (int) Math.ceil(pixelRadius);
+        updateCoverage(pos, pos);
+    }
 
-        int cx = (int) pos.getX() - gridMinX;
-        int cy = (int) pos.getY() - gridMinY;
+    /**
+     * Marks all pixels within half the mowing width of the segment as mowed. The
+     * swept area is a capsule, which is convex, so every pixel row cuts it in one
+     * span: the hull of the spans of both end discs and of the band between them.
+     */
+    protected void updateCoverage(Point2D from, Point2D to) {
+        CoverageGrid grid = coverage;
+        if (grid == null)
+            return;
+        int gridMinX = grid.getMinX(), gridMinY = grid.getMinY();
+        int gridWidth = grid.getWidth(), gridHeight = grid.getHeight();
+
+        double r = (mowingWidthInCm / 2) / groundModel.getCalibration();
+        double x0 = from.getX() - gridMinX, y0 = from.getY() - gridMinY;
+        double x1 = to.getX() - gridMinX, y1 = to.getY() - gridMinY;
+        double dx = x1 - x0, dy = y1 - y0;
+        double length = Math.hypot(dx, dy);
+
+        int rowMin = Math.max(0, (int) Math.ceil(Math.min(y0, y1) - r));
+        int rowMax = Math.min(gridHeight - 1, (int) Math.floor(Math.max(y0, y1) + r));
+        double[] span = new double[2];
+        for (int y = rowMin; y <= rowMax; y++) {
+            span[0] = Double.MAX_VALUE;
+            span[1] = -Double.MAX_VALUE;
+            addDiscSpan(x0, y0, r, y, span);
+            addDiscSpan(x1, y1, r, y, span);
+            if (length > 0)
+                addBandSpan(x0, y0, dx, dy, length, r, y, span);
+            if (span[0] > span[1])
+                continue;
+
+            int first = Math.max(0, (int) Math.ceil(span[0]));
+            int last = Math.min(gridWidth - 1, (int) Math.floor(span[1]));
+            if (first <= last)
+                mowedPixels += grid.mowSpan(y, first, last);
+        }
+    }
 
-        int minX = Math.max(0, cx - r);
-        int maxX = Math.min(gridWidth - 1, cx + r);
-        int minY = Math.max(0, cy - r);
-        int maxY = Math.min(gridHeight - 1, cy + r);
+    private static void addDiscSpan(double cx, double cy, double r, int y, double[] span) {
+        double h = r * r - (y - cy) * (y - cy);
+        if (h < 0)
+            return;
+        double w = Math.sqrt(h);
+        span[0] = Math.min(span[0], cx - w);
+        span[1] = Math.max(span[1], cx + w);
+    }
 
-        double rSq = pixelRadius * pixelRadius;
+    /**
+     * Span of the rectangle of points that project onto the segment and are at
+     * most r away from it. Both conditions are linear in x for a fixed row.
+     */
+    private static void addBandSpan(double x0, double y0, double dx, double dy, double length, double r, int y,
+            double[] span) {
+        double ry = y - y0;
+        double lo = -Double.MAX_VALUE, hi = Double.MAX_VALUE;
+        // 0 <= (rx * dx + ry * dy) / length^2 <= 1
+        double[] a = clampLinear(dx, ry * dy, 0, length * length, lo, hi);
+        if (a == null)
+            return;
+        // -r <= (rx * dy - ry * dx) / length <= r
+        a = clampLinear(dy, -ry * dx, -r * length, r * length, a[0], a[1]);
+        if (a == null)
+            return;
+        span[0] = Math.min(span[0], x0 + a[0]);
+        span[1] = Math.max(span[1], x0 + a[1]);
+    }
 
-        for (int x = minX; x <= maxX; x++) {
-            for (int y = minY; y <= maxY; y++) {
-                if (coverageGrid[x][y] == 1) {
-                    double dx = x - cx;
-                    double dy = y - cy;
-                    if (dx * dx + dy * dy <= rSq) {
-                        coverageGrid[x][y] = 2;
-                        mowedPixels++;
-                    }
-                }
-            }
+    /**
+     * Restricts [lo, hi] to the rx with min <= k * rx + c <= max, or returns null
+     * if nothing is left.
+     */
+    private static double[] clampLinear(double k, double c, double min, double max, double lo, double hi) {
+        if (k == 0) {
+            return c >= min && c <= max ? new double[] { lo, hi } : null;
         }
+        double a = (min - c) / k;
+        double b = (max - c) / k;
+        lo = Math.max(lo, Math.min(a, b));
+        hi = Math.min(hi, Math.max(a, b));
+        return lo <= hi ? new double[] { lo, hi } : null;
     }
 
+    /**
+     * Mowed share of the mowable area, by this mower and all others sharing its
+     * coverage grid.
+     */
     public double getCoveragePercentage() {
-        if (totalMowablePixels == 0)
+        CoverageGrid grid = coverage;
+        if (grid == null || grid.getMowableCount() == 0)
+            return 0;
+        return (double) grid.getMowedCount() / grid.getMowableCount();
+    }
+
+    /**
+     * Share of the mowable area this mower mowed before any other mower sharing
+     * its coverage grid. The same as {@link #getCoveragePercentage()} when it
+     * mows alone.
+     */
+    public double getOwnCoveragePercentage() {
+        CoverageGrid grid = coverage;
+        if (grid == null || grid.getMowableCount() == 0)
+            return 0;
+        return (double) mowedPixels / grid.getMowableCount();
+    }
+
+    /**
+     * Mowed share of the area of one zone, in the order of
+     * {@link GroundModel#getZonePoints()}. 0 for unknown zones or before coverage
+     * tracking started.
+     */
+    public double getZoneCoveragePercentage(int zone) {
+        CoverageGrid grid = coverage;
+        if (grid == null || zone < 0 || zone >= grid.getZoneCount() || grid.getZoneMowableCount(zone) == 0)
             return 0;
-        return (double) mowedPixels / totalMowablePixels;
+        return (double) grid.getZoneMowedCount(zone) / grid.getZoneMowableCount(zone);
     }
 
 }
@@ -6,21 +6,20 @@ package de.in.autoMower.sim;
 import java.awt.Dimension;
 import java.awt.EventQueue;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.util.Base64;
+import java.util.List;
 import java.util.stream.Collectors;
 
-import javax.imageio.ImageIO;
 import javax.swing.JFrame;
 import javax.swing.JMenuBar;
+import javax.swing.JOptionPane;
 import javax.swing.JSlider;
 import javax.swing.WindowConstants;
 
-import com.fasterxml.jackson.core.exc.StreamReadException;
-import com.fasterxml.jackson.databind.DatabindException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.formdev.flatlaf.FlatDarculaLaf;
 
 /**
@@ -34,6 +33,16 @@ public class App extends JFrame {
 	private AbstractAutoMowerModel mower;
 	private Simulation simulation;
 	private JSlider speedSlider;
+	private boolean showCoverage = false;
+	/** Where the next simulation records its trace log, or null. */
+	private File traceLogFile;
+	/** Seed of the next simulations, or null for a new one each run. */
+	private Long seed;
+	/** Where the next simulations write checkpoints, or null. */
+	private File checkpointFile;
+	private double checkpointSeconds;
+	/** Counts opened projects, so a late image does not land in a newer one. */
+	private int loadCount = 0;
 	// private LogPanel logPanel; private javax.swing.JSplitPane splitPane;
 
 	/**
@@ -108,11 +117,93 @@ public class App extends JFrame {
 		return simulation;
 	}
 
-	public Simulation createSimulation(MultiLine2D line) {
-		simulation = new Simulation(model, mower, line);
+	public Simulation createSimulation() {
+		mower.setSeed(seed != null ? seed : SeededRandom.newSeed());
+		simulation = new Simulation(model, mower, null);
+		simulation.setTraceLog(traceLogFile);
+		simulation.setCheckpoints(checkpointFile, checkpointSeconds);
 		return simulation;
 	}
 
+	/**
+	 * A simulation continuing the run of the checkpoint on the ground, in place
+	 * of the current one. A fork continues with the seed of the next runs, see
+	 * {@link #setSeed(Long)}, so the same past leads to another run.
+	 *
+	 * @throws IOException if the border of the ground is not the one of the run
+	 */
+	Simulation restoreCheckpoint(Checkpoint checkpoint, boolean fork) throws IOException {
+		AbstractAutoMowerModel restored = checkpoint.restore(model);
+		if (fork)
+			restored.setSeed(seed != null ? seed : SeededRandom.newSeed());
+		if (simulation != null)
+			simulation.cancel();
+		mower = restored;
+		simulation = Simulation.restored(model, restored);
+		simulation.setCheckpoints(checkpointFile, checkpointSeconds);
+		return simulation;
+	}
+
+	public File getTraceLogFile() {
+		return traceLogFile;
+	}
+
+	/**
+	 * Records the runs of simulations created from now on, see
+	 * {@link TraceLog}.
+	 *
+	 * @param file the log, or null to not record
+	 */
+	public void setTraceLogFile(File file) {
+		this.traceLogFile = file;
+	}
+
+	public File getCheckpointFile() {
+		return checkpointFile;
+	}
+
+	/**
+	 * Checkpoints the simulations created from now on every
+	 * {@code intervalSeconds} of simulated time, see {@link Checkpoint}.
+	 *
+	 * @param file the checkpoint, or null to not write any
+	 */
+	public void setCheckpoints(File file, double intervalSeconds) {
+		this.checkpointFile = file;
+		this.checkpointSeconds = intervalSeconds;
+	}
+
+	public Long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Repeats the runs of simulations created from now on with the given seed.
+	 *
+	 * @param seed the seed, or null for a new one each run
+	 */
+	public void setSeed(Long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * A simulation of the mower and {@code count - 1} copies of it with docks of
+	 * their own.
+	 */
+	public Simulation createFleetSimulation(int count) {
+		mower.setSeed(seed != null ? seed : SeededRandom.newSeed());
+		simulation = new Simulation(model, MowerFleet.create(model, mower, count));
+		return simulation;
+	}
+
+	/**
+	 * The mowers of the current simulation, or just the mower.
+	 */
+	public List<AbstractAutoMowerModel> getMowers() {
+		Simulation current = simulation;
+		return current != null ? current.getMowers() : List.of(mower);
+	}
+
 	public void resetSimulation() {
 		simulation = null;
 	}
@@ -127,15 +218,96 @@ public class App extends JFrame {
 		repaint();
 	}
 
+	public boolean isShowCoverage() {
+		return showCoverage;
+	}
+
+	public void setShowCoverage(boolean showCoverage) {
+		this.showCoverage = showCoverage;
+		if (panel != null)
+			panel.repaint();
+	}
+
 	public JSlider getSpeedSlider() {
 		return speedSlider;
 	}
 
-	public void loadProject(File selectedFile) throws StreamReadException, DatabindException, IOException {
-		ObjectMapper mapper = new ObjectMapper();
+	/**
+	 * Opens a binary project, see {@link ProjectFile}, or a JSON one. The ground
+	 * is usable when this returns; the image of a JSON project is decoded on a
+	 * worker and is pending on the ground model until it is ready.
+	 */
+	public void loadProject(File selectedFile) throws IOException {
+		int load = ++loadCount;
+		if (ProjectFile.isProjectFile(selectedFile)) {
+			ProjectFile project = ProjectFile.read(selectedFile);
+			applyProject(project.getData(), project.getImage());
+			return;
+		}
 
-		ProjectData data = mapper.readValue(selectedFile, ProjectData.class);
+		ProjectReader project = ProjectReader.read(selectedFile, true);
+		if (!project.hasImage()) {
+			applyProject(project.getData(), null);
+			return;
+		}
+		model.setPendingImage(project, project.getImageSize());
+		applyProject(project.getData(), null);
+		SimulationScheduler.getDefault().execute(() -> {
+			try {
+				BufferedImage image = project.decodeImage();
+				EventQueue.invokeLater(() -> {
+					// Unless another project was opened meanwhile
+					if (load == loadCount)
+						model.setImage(image);
+				});
+			} catch (IOException e) {
+				EventQueue.invokeLater(() -> {
+					if (load != loadCount)
+						return;
+					model.setImage(null);
+					JOptionPane.showMessageDialog(this, "Can not read the image of " + selectedFile.getName() + ": "
+							+ e.getMessage(), "Open", JOptionPane.ERROR_MESSAGE);
+				});
+			}
+		});
+	}
 
+	/**
+	 * Saves the project as a binary one, see {@link ProjectFile}, or a JSON one.
+	 * An image that is still pending is saved as it was opened.
+	 */
+	static void saveProject(File file, boolean binary, GroundModel groundModel, AbstractAutoMowerModel mower)
+			throws IOException {
+		ProjectData data = new ProjectData();
+		data.calibration = groundModel.getCalibration();
+		data.border = new ProjectData.MultiLineDTO(groundModel.getBorder());
+		data.obstacles = groundModel.obstacles.stream().map(ProjectData.MultiLineDTO::new)
+				.collect(Collectors.toList());
+		data.mower = new ProjectData.MowerDTO(mower);
+		if (groundModel.getChargingStation() != null) {
+			data.chargingStation = new ProjectData.PointDTO(groundModel.getChargingStation());
+		}
+
+		if (groundModel.getZonePoints() != null) {
+			data.zonePoints = groundModel.getZonePoints().stream().map(ProjectData.ZonePointDTO::new)
+					.collect(Collectors.toList());
+		}
+
+		if (binary) {
+			new ProjectFile(data, groundModel.awaitImage()).write(file);
+			return;
+		}
+
+		byte[] png = groundModel.getImagePng();
+		if (png != null)
+			data.backgroundImageBase64 = Base64.getEncoder().encodeToString(png);
+
+		ObjectMapper mapper = new ObjectMapper();
+		mapper.enable(SerializationFeature.INDENT_OUTPUT);
+		mapper.writeValue(file, data);
+	}
+
+	private void applyProject(ProjectData data, BufferedImage image) {
 		model.calibration = data.calibration;
 		model.border = data.border.toMultiLine();
 		model.obstacles = data.obstacles.stream().map(ProjectData.MultiLineDTO::toMultiLine)
@@ -152,11 +324,8 @@ public class App extends JFrame {
 			}
 		}
 
-		if (data.backgroundImageBase64 != null) {
-			byte[] imageBytes = Base64.getDecoder().decode(data.backgroundImageBase64);
-			BufferedImage image = ImageIO.read(new ByteArrayInputStream(imageBytes));
+		if (image != null)
 			model.setImage(image);
-		}
 
 		AbstractAutoMowerModel mower;
 		if (data.mower != null) {
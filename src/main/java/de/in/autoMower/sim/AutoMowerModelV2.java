@@ -2,6 +2,9 @@ package de.in.autoMower.sim;
 
 import java.awt.Graphics;
 import java.awt.geom.Point2D;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -31,38 +34,8 @@ public class AutoMowerModelV2 extends AbstractAutoMowerModel {
 		if (zones.isEmpty())
 			return;
 
-		double d = groundModel.getDistOnPerimeter(pos);
-
-		// Zones are intervals: [0, Z0] -> Zone 0 (Z0, Z1] -> Zone 1 ... (Zn-1,
-		// Perimeter] -> Zone 0
-
 		int n = zones.size();
-		int zoneIdx = 0; // Default to Zone A (index 0)
-
-		// Check if it falls in (Zi-1, Zi]
-		boolean found = false;
-		for (int i = 0; i < n; i++) {
-			double ziDist = groundModel.getDistOnPerimeter(zones.get(i).getPoint());
-			if (i == 0) {
-				if (d <= ziDist) {
-					zoneIdx = 0;
-					found = true;
-					break;
-				}
-			} else {
-				double prevZiDist = groundModel.getDistOnPerimeter(zones.get(i - 1).getPoint());
-				if (d > prevZiDist && d <= ziDist) {
-					zoneIdx = i;
-					found = true;
-					break;
-				}
-			}
-		}
-
-		if (!found) {
-			// Must be in (Zn-1, Perimeter]
-			zoneIdx = 0;
-		}
+		int zoneIdx = groundModel.getZoneAt(pos);
 
 		zoneCollisionStats.merge(zoneIdx, 1, Integer::sum);
 
@@ -115,31 +88,56 @@ public class AutoMowerModelV2 extends AbstractAutoMowerModel {
 	}
 
 	@Override
-	public void drawStats(Graphics g, Point2D pos) {
-		super.drawStats(g, pos);
+	protected void writeModelState(DataOutput out) throws IOException {
+		out.writeInt(zoneCollisionStats.size());
+		for (Map.Entry<Integer, Integer> entry : zoneCollisionStats.entrySet()) {
+			out.writeInt(entry.getKey());
+			out.writeInt(entry.getValue());
+		}
+	}
+
+	@Override
+	protected void readModelState(DataInput in) throws IOException {
+		zoneCollisionStats.clear();
+		int count = in.readInt();
+		for (int i = 0; i < count; i++)
+			zoneCollisionStats.put(in.readInt(), in.readInt());
+	}
+
+	@Override
+	protected Map<Integer, ? extends Number> getZoneStats() {
+		return zoneCollisionStats;
+	}
+
+	@Override
+	public void drawStats(Graphics g, Point2D pos, MowerSnapshot snapshot) {
+		super.drawStats(g, pos, snapshot);
 
 		int row = 0;
 		int startX = (int) pos.getX();
-		int startY = (int) pos.getY() + 110;
+		int startY = (int) pos.getY() + 125;
 
 		if (groundModel == null)
 			return;
 
-		int totalCollisions = zoneCollisionStats.values().stream().mapToInt(Integer::intValue).sum();
+		Map<Integer, ? extends Number> stats = snapshot.zoneStats();
+		int totalCollisions = stats.values().stream().mapToInt(Number::intValue).sum();
 
 		List<ZonePoint> zones = groundModel.getZonePoints();
 		g.setColor(java.awt.Color.WHITE);
-		for (Map.Entry<Integer, Integer> entry : zoneCollisionStats.entrySet()) {
+		for (Map.Entry<Integer, ? extends Number> entry : stats.entrySet()) {
 			int idx = entry.getKey();
+			int count = entry.getValue().intValue();
 			String label = groundModel.getZoneLabel(idx);
-			double pct = totalCollisions > 0 ? (entry.getValue() * 100.0 / totalCollisions) : 0.0;
+			double pct = totalCollisions > 0 ? (count * 100.0 / totalCollisions) : 0.0;
 			int targetPct = (idx >= 0 && idx < zones.size()) ? zones.get(idx).getPercentage() : 0;
-			g.drawString(String.format("Zone %s: %d (%.1f%% / Target: %d%%)", label, entry.getValue(), pct, targetPct),
+			g.drawString(String.format("Zone %s: %d (%.1f%% / Target: %d%%), mowed %.1f%%", label, count, pct,
+					targetPct, snapshot.getZoneCoverage(idx) * 100.0),
 					startX,
 					startY + (row * 15));
 			row++;
 		}
-		g.drawString(String.format("Transition distance: %.1f m", getTransitionDistanceMeters()), startX,
+		g.drawString(String.format("Transition distance: %.1f m", snapshot.transitionDistanceMeters()), startX,
 				startY + (row * 15));
 	}
 
@@ -2,6 +2,9 @@ package de.in.autoMower.sim;
 
 import java.awt.Graphics;
 import java.awt.geom.Point2D;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -51,26 +54,7 @@ public class AutoMowerModelV4 extends AbstractAutoMowerModel {
     private int getZoneAt(Point2D p) {
         if (groundModel == null)
             return 0;
-
-        // Find nearest point on border to determine zone
-        double dPerim = groundModel.getDistOnPerimeter(p);
-        List<ZonePoint> zones = groundModel.getZonePoints();
-        if (zones.isEmpty())
-            return 0;
-
-        int n = zones.size();
-        for (int i = 0; i < n; i++) {
-            double ziDist = groundModel.getDistOnPerimeter(zones.get(i).getPoint());
-            if (i == 0) {
-                if (dPerim <= ziDist)
-                    return 0;
-            } else {
-                double prevZiDist = groundModel.getDistOnPerimeter(zones.get(i - 1).getPoint());
-                if (dPerim > prevZiDist && dPerim <= ziDist)
-                    return i;
-            }
-        }
-        return 0;
+        return groundModel.getZoneAt(p);
     }
 
     @Override
@@ -158,31 +142,57 @@ public class AutoMowerModelV4 extends AbstractAutoMowerModel {
     }
 
     @Override
-    public void drawStats(Graphics g, Point2D pos) {
-        super.drawStats(g, pos);
+    protected void writeModelState(DataOutput out) throws IOException {
+        out.writeInt(zoneDistanceStats.size());
+        for (Map.Entry<Integer, Double> entry : zoneDistanceStats.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeDouble(entry.getValue());
+        }
+        out.writeDouble(lastTransitionTotalDistanceM);
+    }
+
+    @Override
+    protected void readModelState(DataInput in) throws IOException {
+        zoneDistanceStats.clear();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++)
+            zoneDistanceStats.put(in.readInt(), in.readDouble());
+        lastTransitionTotalDistanceM = in.readDouble();
+    }
+
+    @Override
+    protected Map<Integer, ? extends Number> getZoneStats() {
+        return zoneDistanceStats;
+    }
+
+    @Override
+    public void drawStats(Graphics g, Point2D pos, MowerSnapshot snapshot) {
+        super.drawStats(g, pos, snapshot);
 
         int row = 0;
         int startX = (int) pos.getX();
-        int startY = (int) pos.getY() + 110;
+        int startY = (int) pos.getY() + 125;
 
         if (groundModel == null)
             return;
 
-        double totalDistCm = zoneDistanceStats.values().stream().mapToDouble(Double::doubleValue).sum();
+        Map<Integer, ? extends Number> stats = snapshot.zoneStats();
+        double totalDistCm = stats.values().stream().mapToDouble(Number::doubleValue).sum();
         List<ZonePoint> zones = groundModel.getZonePoints();
         g.setColor(java.awt.Color.WHITE);
 
         for (int i = 0; i < zones.size(); i++) {
-            double actualCm = zoneDistanceStats.getOrDefault(i, 0.0);
+            Number distance = stats.get(i);
+            double actualCm = distance == null ? 0.0 : distance.doubleValue();
             double pct = totalDistCm > 0 ? (actualCm * 100.0 / totalDistCm) : 0.0;
             int targetPct = zones.get(i).getPercentage();
             String label = groundModel.getZoneLabel(i);
-            g.drawString(String.format("Zone %s: %.1f m (%.1f%% / Target: %d%%)",
-                    label, actualCm / 100.0, pct, targetPct),
+            g.drawString(String.format("Zone %s: %.1f m (%.1f%% / Target: %d%%), mowed %.1f%%",
+                    label, actualCm / 100.0, pct, targetPct, snapshot.getZoneCoverage(i) * 100.0),
                     startX, startY + (row * 15));
             row++;
         }
-        g.drawString(String.format("Transition distance: %.1f m", getTransitionDistanceMeters()), startX,
+        g.drawString(String.format("Transition distance: %.1f m", snapshot.transitionDistanceMeters()), startX,
                 startY + (row * 15));
     }
 
@@ -0,0 +1,155 @@
+package de.in.autoMower.sim;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * The complete state of a mower run at one point in simulated time: settings,
+ * state machine, position, random numbers, trace, coverage and the zone
+ * statistics of the model. The ground is not part of it, only the vertices
+ * of its border, so a checkpoint is restored onto a ground model with the same
+ * border.
+ * <p>
+ * A checkpoint can be restored any number of times, each time into a new
+ * mower, so one run can fork into several continuations, e.g. with a different
+ * zone split, without simulating the time before again. Restoring onto the
+ * same ground continues exactly like the original run.
+ * <p>
+ * The coverage is stored as one bit per cell and the trace as raw points, so
+ * writing and restoring take milliseconds even for long runs.
+ */
+final class Checkpoint {
+
+	static final String EXTENSION = "ampc";
+
+	/** "AMPC" in the file. */
+	private static final int MAGIC = 0x414D5043;
+	/**
+	 * 2: the random numbers as seed and count of draws, 3: the part of the
+	 * segment driven so far, 4: the vertices of the border.
+	 */
+	private static final int VERSION = 4;
+
+	private final int modelVersion;
+	private final double runtimeSeconds;
+	private final long seed;
+	private final byte[] state;
+
+	private Checkpoint(int modelVersion, double runtimeSeconds, long seed, byte[] state) {
+		this.modelVersion = modelVersion;
+		this.runtimeSeconds = runtimeSeconds;
+		this.seed = seed;
+		this.state = state;
+	}
+
+	/**
+	 * Takes a checkpoint of a mower that is not ticking, e.g. a headless one
+	 * between two calls of {@link AbstractAutoMowerModel#runUntil(double)} or a
+	 * stopped one, or from its own driver between two steps.
+	 */
+	static Checkpoint of(AbstractAutoMowerModel mower) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			mower.writeState(out);
+		} catch (IOException e) {
+			// Not thrown by a byte array
+			throw new IllegalStateException(e);
+		}
+		return new Checkpoint(mower.getModelVersion(), mower.simulatedRuntimeSeconds, mower.getSeed(),
+				bytes.toByteArray());
+	}
+
+	/**
+	 * A new mower continuing the run on the given ground. Not started, it can be
+	 * advanced headless or started like a prepared one.
+	 *
+	 * @throws IOException if the border of the ground is not the one of the run
+	 */
+	AbstractAutoMowerModel restore(GroundModel groundModel) throws IOException {
+		AbstractAutoMowerModel mower = newMower(modelVersion);
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(state))) {
+			mower.readState(in, groundModel);
+		}
+		return mower;
+	}
+
+	int getModelVersion() {
+		return modelVersion;
+	}
+
+	double getRuntimeSeconds() {
+		return runtimeSeconds;
+	}
+
+	/**
+	 * Seed of the run, restored mowers continue its random numbers.
+	 */
+	long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Size of the state in bytes.
+	 */
+	int getSize() {
+		return state.length;
+	}
+
+	/**
+	 * Writes next to the file and then replaces it, so a run that dies while
+	 * writing leaves the previous checkpoint.
+	 */
+	void write(File file) throws IOException {
+		Path target = file.toPath().toAbsolutePath();
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(modelVersion);
+			out.writeDouble(runtimeSeconds);
+			out.writeLong(seed);
+			out.writeInt(state.length);
+			out.write(state);
+		}
+		Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	static Checkpoint read(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file.toPath())))) {
+			if (in.available() < 8 || in.readInt() != MAGIC)
+				throw new IOException("Not a checkpoint: " + file);
+			int version = in.readInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported checkpoint version " + version + ": " + file);
+			int modelVersion = in.readInt();
+			double runtimeSeconds = in.readDouble();
+			long seed = in.readLong();
+			byte[] state = new byte[in.readInt()];
+			in.readFully(state);
+			return new Checkpoint(modelVersion, runtimeSeconds, seed, state);
+		}
+	}
+
+	private static AbstractAutoMowerModel newMower(int modelVersion) throws IOException {
+		switch (modelVersion) {
+		case 1:
+			return new AutoMowerModel();
+		case 2:
+			return new AutoMowerModelV2();
+		case 3:
+			return new AutoMowerModelV3();
+		case 4:
+			return new AutoMowerModelV4();
+		default:
+			throw new IOException("Unknown mower model version " + modelVersion);
+		}
+	}
+}
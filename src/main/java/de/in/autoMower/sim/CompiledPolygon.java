@@ -0,0 +1,103 @@
+package de.in.autoMower.sim;
+
+/**
+ * Immutable point-in-polygon form of a closed {@link MultiLine2D}: packed
+ * vertex arrays, a bounding box and a table of edges per horizontal slab.
+ * <p>
+ * Gives exactly the same answers as {@link java.awt.geom.Path2D#contains} with
+ * the non-zero winding rule, which MultiLine2D used before. Edges are counted
+ * like {@code Curve.pointCrossingsForLine}: an edge crosses the ray to the
+ * right of the point if {@code min(y0, y1) <= py < max(y0, y1)}.
+ */
+final class CompiledPolygon {
+
+	private static final int MAX_SLABS = 1024;
+
+	private final int modCount;
+	private final double[] xs;
+	private final double[] ys;
+	private final double minX, minY, maxX, maxY;
+	private final double slabHeight;
+	private final int slabs;
+	private final int[] slabStart;
+	private final int[] slabEdges;
+
+	CompiledPolygon(MultiLine2D.Coordinates points, int modCount) {
+		this.modCount = modCount;
+		int n = points.size();
+		xs = new double[n + 1];
+		ys = new double[n + 1];
+		double x0 = Double.MAX_VALUE, y0 = Double.MAX_VALUE, x1 = -Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
+		for (int i = 0; i < n; i++) {
+			xs[i] = points.getX(i);
+			ys[i] = points.getY(i);
+			x0 = Math.min(x0, xs[i]);
+			y0 = Math.min(y0, ys[i]);
+			x1 = Math.max(x1, xs[i]);
+			y1 = Math.max(y1, ys[i]);
+		}
+		// Closing edge
+		xs[n] = xs[0];
+		ys[n] = ys[0];
+		minX = x0;
+		minY = y0;
+		maxX = x1;
+		maxY = y1;
+
+		slabs = Math.max(1, Math.min(MAX_SLABS, n / 2));
+		slabHeight = (maxY - minY) / slabs;
+		slabStart = new int[slabs + 1];
+		for (int i = 0; i < n; i++) {
+			for (int s = slab(Math.min(ys[i], ys[i + 1])); s <= slab(Math.max(ys[i], ys[i + 1])); s++)
+				slabStart[s + 1]++;
+		}
+		for (int s = 0; s < slabs; s++) {
+			slabStart[s + 1] += slabStart[s];
+		}
+		slabEdges = new int[slabStart[slabs]];
+		int[] fill = slabStart.clone();
+		for (int i = 0; i < n; i++) {
+			for (int s = slab(Math.min(ys[i], ys[i + 1])); s <= slab(Math.max(ys[i], ys[i + 1])); s++)
+				slabEdges[fill[s]++] = i;
+		}
+	}
+
+	/**
+	 * Monotonic in y, so an edge spanning py is always listed in the slab of py.
+	 */
+	private int slab(double y) {
+		if (!(slabHeight > 0))
+			return 0;
+		return Math.max(0, Math.min(slabs - 1, (int) ((y - minY) / slabHeight)));
+	}
+
+	int getModCount() {
+		return modCount;
+	}
+
+	boolean contains(double px, double py) {
+		// Also rejects NaN and infinite coordinates like Path2D
+		if (!(py >= minY && py < maxY && px >= minX && px < maxX))
+			return false;
+		int crossings = 0;
+		int s = slab(py);
+		for (int k = slabStart[s]; k < slabStart[s + 1]; k++) {
+			int i = slabEdges[k];
+			double ex0 = xs[i], ey0 = ys[i], ex1 = xs[i + 1], ey1 = ys[i + 1];
+			if (py < ey0 && py < ey1)
+				continue;
+			if (py >= ey0 && py >= ey1)
+				continue;
+			if (px >= ex0 && px >= ex1)
+				continue;
+			if (px < ex0 && px < ex1) {
+				crossings += ey0 < ey1 ? 1 : -1;
+				continue;
+			}
+			double xIntercept = ex0 + (py - ey0) * (ex1 - ex0) / (ey1 - ey0);
+			if (px < xIntercept)
+				crossings += ey0 < ey1 ? 1 : -1;
+		}
+		return crossings != 0;
+	}
+}
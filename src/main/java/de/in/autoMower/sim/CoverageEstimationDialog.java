@@ -0,0 +1,134 @@
+package de.in.autoMower.sim;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.JTextArea;
+import javax.swing.SwingWorker;
+
+/**
+ * Runs the Monte Carlo coverage simulation in the background and shows the
+ * measured times to 95% and 99% coverage.
+ */
+public class CoverageEstimationDialog {
+
+	private static final long BASE_SEED = 4711L;
+	private static final int SAMPLES = 200;
+
+	public CoverageEstimationDialog(GroundModel ground, AbstractAutoMowerModel mower) {
+		double areaCm2 = ground.getNetArea();
+		double tMinSeconds = areaCm2 / (mower.getSpeedInCmPerSec() * mower.getMowingWidthInCm());
+		// Charging breaks and overlap make the real run much longer than tMin
+		double durationSeconds = tMinSeconds * 8;
+		int runs = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+
+		JDialog dialog = new JDialog(App.getApp(), "Mowing Estimation");
+		dialog.setLayout(new BorderLayout(5, 5));
+
+		JTextArea text = new JTextArea(String.format("""
+				Net Mowing Area: %.2f m²
+				Theoretical Minimum (100%% efficiency): %s
+
+				Simulating %d runs of %s ...
+				""", areaCm2 / 10000.0, formatDuration(tMinSeconds), runs, mower.getModelName()));
+		text.setEditable(false);
+		text.setOpaque(false);
+		text.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+		JProgressBar progressBar = new JProgressBar(0, runs);
+		progressBar.setStringPainted(true);
+
+		MonteCarloCoverageRunner runner = new MonteCarloCoverageRunner(ground, mower);
+		SwingWorker<MonteCarloCoverageRunner.Result, Integer> worker = new SwingWorker<>() {
+
+			@Override
+			protected MonteCarloCoverageRunner.Result doInBackground() {
+				return runner.run(runs, durationSeconds, durationSeconds / SAMPLES, BASE_SEED, this::publish);
+			}
+
+			@Override
+			protected void process(List<Integer> chunks) {
+				progressBar.setValue(chunks.get(chunks.size() - 1));
+			}
+
+			@Override
+			protected void done() {
+				try {
+					MonteCarloCoverageRunner.Result result = get();
+					text.setText(String.format("""
+							Net Mowing Area: %.2f m²
+							Theoretical Minimum (100%% efficiency): %s
+
+							Simulated %d runs of %s:
+							95%% Coverage: %s (%d/%d runs)
+							99%% Coverage: %s (%d/%d runs)
+							Coverage after %s: %.1f%% (%.1f%% - %.1f%%)
+							""", areaCm2 / 10000.0, formatDuration(tMinSeconds), result.getRuns(),
+							mower.getModelName(), formatResult(result, 0.95), result.getRunsReaching(0.95),
+							result.getRuns(), formatResult(result, 0.99), result.getRunsReaching(0.99),
+							result.getRuns(), formatDuration(durationSeconds), lastOf(result.getMean()) * 100,
+							lastOf(result.getLowerBand()) * 100, lastOf(result.getUpperBand()) * 100));
+				} catch (CancellationException | InterruptedException ex) {
+					// dialog was closed
+				} catch (ExecutionException ex) {
+					text.setText("Simulation failed: " + ex.getCause().getMessage());
+				}
+				dialog.pack();
+			}
+		};
+
+		JButton jBClose = new JButton("Close");
+		jBClose.addActionListener(e -> dialog.dispose());
+		dialog.addWindowListener(new java.awt.event.WindowAdapter() {
+			@Override
+			public void windowClosed(java.awt.event.WindowEvent e) {
+				runner.cancel();
+				worker.cancel(false);
+			}
+		});
+
+		JPanel south = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+		south.add(jBClose);
+		JPanel center = new JPanel(new BorderLayout(5, 5));
+		center.add(text, BorderLayout.CENTER);
+		center.add(progressBar, BorderLayout.SOUTH);
+		center.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
+		dialog.add(center, BorderLayout.CENTER);
+		dialog.add(south, BorderLayout.SOUTH);
+
+		dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+		dialog.pack();
+		dialog.setLocationRelativeTo(App.getApp());
+		dialog.setModal(true);
+		worker.execute();
+		dialog.setVisible(true);
+	}
+
+	private static double lastOf(double[] values) {
+		return values[values.length - 1];
+	}
+
+	private static String formatResult(MonteCarloCoverageRunner.Result result, double coverage) {
+		double t = result.getMedianTimeToCoverage(coverage);
+		return Double.isNaN(t) ? "not reached" : formatDuration(t);
+	}
+
+	static String formatDuration(double totalSeconds) {
+		int hours = (int) (totalSeconds / 3600);
+		int minutes = (int) ((totalSeconds % 3600) / 60);
+		int seconds = (int) (totalSeconds % 60);
+		if (hours > 0) {
+			return String.format("%dh %dm %ds", hours, minutes, seconds);
+		} else {
+			return String.format("%dm %ds", minutes, seconds);
+		}
+	}
+}
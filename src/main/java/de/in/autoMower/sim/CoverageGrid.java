@@ -0,0 +1,204 @@
+package de.in.autoMower.sim;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+/**
+ * The coverage of one run: one byte per pixel of the border bounds, row by
+ * row, 0 not mowable, 1 mowable, 2 mowed.
+ * <p>
+ * Several mowers on the same ground can share a grid and mow concurrently. A
+ * cell is switched to mowed with a compare and set, so it is counted once, for
+ * the mower that got there first. Counters are atomic and updated once per row
+ * span, the zone counters once per run of cells of the same zone in it.
+ */
+final class CoverageGrid {
+
+	private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(byte[].class);
+
+	private final byte[] cells;
+	private final int minX, minY;
+	private final int width, height;
+	private final long mowableCount;
+	private final AtomicLong mowedCount = new AtomicLong();
+	/** Zone of each cell, shared with the ground model, or null without zones. */
+	private final short[] zones;
+	private final long[] zoneMowableCounts;
+	private final AtomicLongArray zoneMowedCounts;
+	/** One bit per row that changed since {@link #drainDirtyRows}. */
+	private final AtomicLongArray dirtyRows;
+
+	/**
+	 * @param zoneMap the zones of the mask, or null
+	 */
+	CoverageGrid(CoverageMask mask, ZoneMap zoneMap) {
+		minX = mask.getMinX();
+		minY = mask.getMinY();
+		width = mask.getWidth();
+		height = mask.getHeight();
+		cells = mask.copyCells();
+		mowableCount = mask.getMowableCount();
+
+		int zoneCount = zoneMap == null ? 0 : zoneMap.getZoneCount();
+		zones = zoneMap == null ? null : zoneMap.getZones();
+		zoneMowableCounts = new long[zoneCount];
+		for (int zone = 0; zone < zoneCount; zone++)
+			zoneMowableCounts[zone] = zoneMap.getMowableCount(zone);
+		zoneMowedCounts = new AtomicLongArray(zoneCount);
+		dirtyRows = new AtomicLongArray((height + 63) >>> 6);
+	}
+
+	/**
+	 * Marks the cells first to last of a row as mowed.
+	 *
+	 * @return the number of cells that were not mowed before
+	 */
+	int mowSpan(int y, int first, int last) {
+		int row = y * width;
+		int mowed = 0;
+		// Cells mowed in the zone of the current run, added when the zone changes
+		int zone = -1;
+		int zoneMowed = 0;
+		for (int i = row + first; i <= row + last; i++) {
+			if (cells[i] == 1 && CELLS.compareAndSet(cells, i, (byte) 1, (byte) 2)) {
+				mowed++;
+				if (zones != null) {
+					if (zones[i] != zone) {
+						if (zoneMowed > 0)
+							zoneMowedCounts.addAndGet(zone, zoneMowed);
+						zone = zones[i];
+						zoneMowed = 0;
+					}
+					zoneMowed++;
+				}
+			}
+		}
+		if (zoneMowed > 0)
+			zoneMowedCounts.addAndGet(zone, zoneMowed);
+		if (mowed > 0) {
+			mowedCount.addAndGet(mowed);
+			long bit = 1L << y;
+			if ((dirtyRows.get(y >>> 6) & bit) == 0)
+				dirtyRows.getAndAccumulate(y >>> 6, bit, (a, b) -> a | b);
+		}
+		return mowed;
+	}
+
+	/**
+	 * Passes every row that changed since the last call and forgets it. The cells
+	 * of a passed row are visible to the caller, so a renderer on another thread
+	 * can copy just these rows.
+	 */
+	void drainDirtyRows(IntConsumer action) {
+		for (int i = 0; i < dirtyRows.length(); i++) {
+			if (dirtyRows.get(i) == 0)
+				continue;
+			long bits = dirtyRows.getAndSet(i, 0);
+			while (bits != 0) {
+				action.accept((i << 6) + Long.numberOfTrailingZeros(bits));
+				bits &= bits - 1;
+			}
+		}
+	}
+
+	/**
+	 * Writes which cells are mowed, one bit per cell, for a {@link Checkpoint}.
+	 * No mower may mow into the grid meanwhile.
+	 */
+	void writeMowed(DataOutput out) throws IOException {
+		out.writeInt(width);
+		out.writeInt(height);
+		long word = 0;
+		for (int i = 0; i < cells.length; i++) {
+			if (cells[i] == 2)
+				word |= 1L << i;
+			if ((i & 63) == 63 || i == cells.length - 1) {
+				out.writeLong(word);
+				word = 0;
+			}
+		}
+	}
+
+	/**
+	 * Marks the cells written by {@link #writeMowed} as mowed, in a grid nothing
+	 * was mowed in yet. Cells that are not mowable in this grid, e.g. because the
+	 * ground changed, are left out, the zone counts follow the zones of this
+	 * grid.
+	 *
+	 * @throws IOException if the grid was written for another border
+	 */
+	void readMowed(DataInput in) throws IOException {
+		int w = in.readInt();
+		int h = in.readInt();
+		if (w != width || h != height)
+			throw new IOException("Coverage of " + w + "x" + h + " does not fit a grid of " + width + "x" + height);
+		long mowed = 0;
+		long[] zoneMowed = new long[zoneMowableCounts.length];
+		for (int start = 0; start < cells.length; start += 64) {
+			long word = in.readLong();
+			while (word != 0) {
+				int i = start + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+				if (i < cells.length && cells[i] == 1) {
+					cells[i] = 2;
+					mowed++;
+					if (zones != null)
+						zoneMowed[zones[i]]++;
+					dirtyRows.getAndAccumulate((i / width) >>> 6, 1L << (i / width), (a, b) -> a | b);
+				}
+			}
+		}
+		mowedCount.addAndGet(mowed);
+		for (int zone = 0; zone < zoneMowed.length; zone++)
+			zoneMowedCounts.addAndGet(zone, zoneMowed[zone]);
+	}
+
+	/**
+	 * The cells, must not be modified.
+	 */
+	byte[] getCells() {
+		return cells;
+	}
+
+	int getMinX() {
+		return minX;
+	}
+
+	int getMinY() {
+		return minY;
+	}
+
+	int getWidth() {
+		return width;
+	}
+
+	int getHeight() {
+		return height;
+	}
+
+	long getMowableCount() {
+		return mowableCount;
+	}
+
+	long getMowedCount() {
+		return mowedCount.get();
+	}
+
+	int getZoneCount() {
+		return zoneMowableCounts.length;
+	}
+
+	long getZoneMowableCount(int zone) {
+		return zoneMowableCounts[zone];
+	}
+
+	long getZoneMowedCount(int zone) {
+		return zoneMowedCounts.get(zone);
+	}
+}
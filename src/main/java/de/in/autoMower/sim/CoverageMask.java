@@ -0,0 +1,262 @@
+package de.in.autoMower.sim;
+
+import java.awt.Rectangle;
+import java.awt.geom.Line2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * The pixels of the border bounding box for which
+ * {@link GroundModel#isInside(java.awt.geom.Point2D)} is true, built by filling
+ * the polygons row by row instead of testing every pixel.
+ * <p>
+ * Polygons are filled with the non-zero winding rule and the same crossing
+ * arithmetic as {@link CompiledPolygon}, so the result is identical to
+ * isInside, including the tolerance band of {@link #EPS} pixels around all
+ * edges. Rows are filled in parallel bands. A mask is immutable.
+ */
+final class CoverageMask {
+
+	/** The tolerance of {@link GroundModel#isInside(java.awt.geom.Point2D)}. */
+	static final double EPS = 1.0;
+
+	private static final int ROWS_PER_BAND = 32;
+
+	private final long geometryVersion;
+	private final int minX, minY;
+	private final int width, height;
+	private final byte[] cells;
+	private final long mowableCount;
+
+	private CoverageMask(long geometryVersion, int minX, int minY, int width, int height, byte[] cells) {
+		this.geometryVersion = geometryVersion;
+		this.minX = minX;
+		this.minY = minY;
+		this.width = width;
+		this.height = height;
+		this.cells = cells;
+		long count = 0;
+		for (byte c : cells)
+			count += c;
+		this.mowableCount = count;
+	}
+
+	static CoverageMask build(MultiLine2D border, List<MultiLine2D> obstacles, long geometryVersion) {
+		Rectangle bounds = border.getBounds();
+		int width = bounds.width + 1;
+		int height = bounds.height + 1;
+		byte[] cells = new byte[width * height];
+
+		Shape borderShape = new Shape(border);
+		List<Shape> obstacleShapes = new ArrayList<>();
+		for (MultiLine2D obstacle : obstacles) {
+			Shape shape = new Shape(obstacle);
+			if (shape.closed)
+				obstacleShapes.add(shape);
+		}
+
+		int bands = (height + ROWS_PER_BAND - 1) / ROWS_PER_BAND;
+		IntStream.range(0, bands).parallel().forEach(band -> {
+			int y0 = band * ROWS_PER_BAND;
+			int y1 = Math.min(height, y0 + ROWS_PER_BAND);
+			byte[] fill = new byte[width];
+			byte[] near = new byte[width];
+			for (int y = y0; y < y1; y++) {
+				double py = bounds.y + y;
+				int row = y * width;
+				// Inside the border or close to it
+				borderShape.fillRow(py, bounds.x, fill);
+				borderShape.markNearRow(py, bounds.x, near);
+				for (int x = 0; x < width; x++)
+					cells[row + x] = (byte) (fill[x] | near[x]);
+				// Minus the inside of obstacles that is not close to their edges
+				for (Shape obstacle : obstacleShapes) {
+					if (py < obstacle.minY || py >= obstacle.maxY)
+						continue;
+					obstacle.fillRow(py, bounds.x, fill);
+					obstacle.markNearRow(py, bounds.x, near);
+					for (int x = 0; x < width; x++)
+						if (fill[x] == 1 && near[x] == 0)
+							cells[row + x] = 0;
+				}
+			}
+		});
+		return new CoverageMask(geometryVersion, bounds.x, bounds.y, width, height, cells);
+	}
+
+	long getGeometryVersion() {
+		return geometryVersion;
+	}
+
+	int getMinX() {
+		return minX;
+	}
+
+	int getMinY() {
+		return minY;
+	}
+
+	int getWidth() {
+		return width;
+	}
+
+	int getHeight() {
+		return height;
+	}
+
+	long getMowableCount() {
+		return mowableCount;
+	}
+
+	boolean isMowable(int x, int y) {
+		return cells[y * width + x] != 0;
+	}
+
+	/**
+	 * A fresh copy of the cells row by row, 1 for mowable pixels and 0 otherwise.
+	 */
+	byte[] copyCells() {
+		return cells.clone();
+	}
+
+	/**
+	 * Vertices and edges of one polygon, as MultiLine2D.contains and ptSegDist see
+	 * them.
+	 */
+	private static final class Shape {
+
+		final boolean closed;
+		final double[] xs, ys;
+		final double minY, maxY;
+		/** Edges for the distance test: the open chain, plus the closing edge if closed. */
+		final Line2D.Double[] edges;
+
+		Shape(MultiLine2D line) {
+			MultiLine2D.Coordinates c = line.getCoordinates();
+			int n = c.size();
+			closed = line.closed && n >= 3;
+			xs = new double[n + 1];
+			ys = new double[n + 1];
+			double y0 = Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
+			for (int i = 0; i < n; i++) {
+				xs[i] = c.getX(i);
+				ys[i] = c.getY(i);
+				y0 = Math.min(y0, ys[i]);
+				y1 = Math.max(y1, ys[i]);
+			}
+			if (n > 0) {
+				xs[n] = xs[0];
+				ys[n] = ys[0];
+			}
+			// Rows outside can neither be filled nor be close to an edge
+			minY = y0 - EPS;
+			maxY = y1 + EPS + 1;
+
+			List<Line2D.Double> list = new ArrayList<>();
+			for (int i = 1; i < n; i++)
+				list.add(new Line2D.Double(xs[i - 1], ys[i - 1], xs[i], ys[i]));
+			if (line.closed && n > 0)
+				list.add(new Line2D.Double(xs[n - 1], ys[n - 1], xs[0], ys[0]));
+			edges = list.toArray(new Line2D.Double[0]);
+		}
+
+		/**
+		 * Sets fill[x] to 1 where the pixel (originX + x, py) has a non-zero winding
+		 * number. A pixel counts an edge if it lies left of the crossing, with the
+		 * crossing clamped to the x range of the edge as in CompiledPolygon.
+		 */
+		void fillRow(double py, int originX, byte[] fill) {
+			Arrays.fill(fill, (byte) 0);
+			if (!closed)
+				return;
+			int n = xs.length - 1;
+			double[] crossings = new double[n];
+			int[] directions = new int[n];
+			int count = 0;
+			for (int i = 0; i < n; i++) {
+				double ex0 = xs[i], ey0 = ys[i], ex1 = xs[i + 1], ey1 = ys[i + 1];
+				if (py < ey0 && py < ey1)
+					continue;
+				if (py >= ey0 && py >= ey1)
+					continue;
+				double xIntercept = ex0 + (py - ey0) * (ex1 - ex0) / (ey1 - ey0);
+				double t = Math.max(Math.min(ex0, ex1), Math.min(Math.max(ex0, ex1), xIntercept));
+				crossings[count] = t;
+				directions[count] = ey0 < ey1 ? 1 : -1;
+				count++;
+			}
+			// Sort the crossings by x, there are only a few per row
+			for (int i = 1; i < count; i++) {
+				double t = crossings[i];
+				int d = directions[i];
+				int j = i - 1;
+				for (; j >= 0 && crossings[j] > t; j--) {
+					crossings[j + 1] = crossings[j];
+					directions[j + 1] = directions[j];
+				}
+				crossings[j + 1] = t;
+				directions[j + 1] = d;
+			}
+
+			// Crossings with t > px add to the winding number of px. All crossings of a
+			// closed polygon sum up to 0, so the pixel is inside if the crossings with
+			// t <= px do not.
+			int winding = 0;
+			for (int k = 0; k < count; k++) {
+				winding += directions[k];
+				if (winding == 0)
+					continue;
+				int first = firstPixelAtOrAfter(crossings[k], originX, fill.length);
+				int end = k + 1 < count ? firstPixelAtOrAfter(crossings[k + 1], originX, fill.length) : fill.length;
+				for (int x = first; x < end; x++)
+					fill[x] = 1;
+			}
+		}
+
+		/**
+		 * Sets near[x] to 1 where the pixel (originX + x, py) is at most EPS away
+		 * from an edge. Candidates come from a slightly wider span, the decision is
+		 * the same ptSegDist call MultiLine2D uses.
+		 */
+		void markNearRow(double py, int originX, byte[] near) {
+			Arrays.fill(near, (byte) 0);
+			double r = EPS + 1e-6;
+			for (Line2D.Double e : edges) {
+				if (py < Math.min(e.y1, e.y2) - r || py > Math.max(e.y1, e.y2) + r)
+					continue;
+				double lo = Math.min(e.x1, e.x2) - r;
+				double hi = Math.max(e.x1, e.x2) + r;
+				double dy = e.y2 - e.y1;
+				if (dy != 0) {
+					// Where the edge, widened by r / sin, crosses the row
+					double dx = e.x2 - e.x1;
+					double widen = r * Math.hypot(dx, dy) / Math.abs(dy);
+					double xa = e.x1 + (py - e.y1) * dx / dy;
+					lo = Math.max(lo, xa - widen);
+					hi = Math.min(hi, xa + widen);
+				}
+				int first = firstPixelAtOrAfter(lo, originX, near.length);
+				int end = firstPixelAtOrAfter(Math.floor(hi) + 1, originX, near.length);
+				for (int x = first; x < end; x++) {
+					if (near[x] == 0 && Line2D.ptSegDist(e.x1, e.y1, e.x2, e.y2, originX + x, py) <= EPS)
+						near[x] = 1;
+				}
+			}
+		}
+
+		/**
+		 * Index of the first pixel at or right of position x, clamped to [0,
+		 * length]. Rounds in absolute coordinates, which are exact.
+		 */
+		private static int firstPixelAtOrAfter(double x, int originX, int length) {
+			double pixel = Math.ceil(x) - originX;
+			if (!(pixel > 0))
+				return 0;
+			if (pixel >= length)
+				return length;
+			return (int) pixel;
+		}
+	}
+}
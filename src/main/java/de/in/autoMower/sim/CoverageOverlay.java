@@ -0,0 +1,81 @@
+package de.in.autoMower.sim;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * The coverage grid of a mower as an image with one pixel per cell: outside,
+ * not yet mowed and mowed cells in different translucent colors.
+ * <p>
+ * The pixels are written directly into the int array behind the image. After
+ * the first frame only the rows the mower changed since the previous frame are
+ * written again, so the cost per frame does not depend on the size of the grid.
+ */
+final class CoverageOverlay {
+
+	static final int OUTSIDE = 0x50000000;
+	static final int UNMOWED = 0x90FF3000;
+	static final int MOWED = 0x6000D000;
+
+	private CoverageGrid grid;
+	private byte[] cells;
+	private int width, height;
+	private BufferedImage image;
+	private int[] pixels;
+
+	/**
+	 * Brings the image up to date with the coverage grid of the mower.
+	 *
+	 * @return the image, or null if the mower tracks no coverage
+	 */
+	BufferedImage update(AbstractAutoMowerModel mower) {
+		CoverageGrid current = mower.getCoverage();
+		if (current == null || current.getWidth() <= 0 || current.getHeight() <= 0)
+			return null;
+
+		if (current != grid) {
+			grid = current;
+			cells = current.getCells();
+			width = current.getWidth();
+			height = current.getHeight();
+			image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+			// Forget what is dirty before reading, changes from now on are drained later
+			current.drainDirtyRows(y -> {
+			});
+			for (int y = 0; y < height; y++)
+				writeRow(y);
+		} else {
+			current.drainDirtyRows(this::writeRow);
+		}
+		return image;
+	}
+
+	private void writeRow(int y) {
+		int offset = y * width;
+		for (int i = offset; i < offset + width; i++) {
+			switch (cells[i]) {
+			case 0:
+				pixels[i] = OUTSIDE;
+				break;
+			case 1:
+				pixels[i] = UNMOWED;
+				break;
+			default:
+				pixels[i] = MOWED;
+			}
+		}
+	}
+
+	/**
+	 * Position of the first cell in ground coordinates, the image is drawn
+	 * centred on the cells.
+	 */
+	int getMinX() {
+		return grid.getMinX();
+	}
+
+	int getMinY() {
+		return grid.getMinY();
+	}
+}
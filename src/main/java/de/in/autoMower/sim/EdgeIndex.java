@@ -0,0 +1,283 @@
+package de.in.autoMower.sim;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Uniform grid over all border and obstacle edges of a {@link GroundModel}.
+ * Segment queries walk only the cells the segment crosses and stop as soon as
+ * no later cell can hold a closer hit.
+ * <p>
+ * The results are identical to intersecting every edge in the order obstacles
+ * first, then border: hits closer than {@link #TOLERANCE} to both lines count,
+ * ties are reported in that order. An index is immutable and describes the
+ * geometry at the time it was built, see {@link #matches}.
+ */
+final class EdgeIndex {
+
+	static final double TOLERANCE = 0.05;
+
+	/**
+	 * A hit lies within TOLERANCE of the edge and of the query segment, so the
+	 * nearest point on the segment is within 2 * TOLERANCE of the edge. The rest
+	 * is slack for hits on cell boundaries.
+	 */
+	private static final double PAD = 3 * TOLERANCE;
+	private static final int MAX_CELLS_PER_AXIS = 512;
+
+	private final MultiLine2D border;
+	private final MultiLine2D[] obstacles;
+	private final int[] modCounts;
+	private final long version;
+
+	private final Line2D.Double[] edges;
+	private final double minX, minY, maxX, maxY;
+	private final double cellWidth, cellHeight;
+	private final int cols, rows;
+	private final int[] cellStart;
+	private final int[] cellEdges;
+
+	EdgeIndex(MultiLine2D border, List<MultiLine2D> obstacles, long version) {
+		this.border = border;
+		this.obstacles = obstacles.toArray(new MultiLine2D[0]);
+		this.modCounts = new int[this.obstacles.length + 1];
+		this.version = version;
+
+		List<Line2D.Double> lines = new ArrayList<>();
+		for (int i = 0; i < this.obstacles.length; i++) {
+			modCounts[i] = this.obstacles[i].getModCount();
+			addEdges(this.obstacles[i], lines);
+		}
+		if (border != null) {
+			modCounts[this.obstacles.length] = border.getModCount();
+			addEdges(border, lines);
+		}
+		edges = lines.toArray(new Line2D.Double[0]);
+
+		double x0 = Double.MAX_VALUE, y0 = Double.MAX_VALUE, x1 = -Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
+		for (Line2D.Double e : edges) {
+			x0 = Math.min(x0, Math.min(e.x1, e.x2));
+			y0 = Math.min(y0, Math.min(e.y1, e.y2));
+			x1 = Math.max(x1, Math.max(e.x1, e.x2));
+			y1 = Math.max(y1, Math.max(e.y1, e.y2));
+		}
+		if (edges.length == 0) {
+			x0 = y0 = x1 = y1 = 0;
+		}
+		minX = x0 - PAD;
+		minY = y0 - PAD;
+		maxX = x1 + PAD;
+		maxY = y1 + PAD;
+
+		double width = maxX - minX;
+		double height = maxY - minY;
+		// Roughly one edge per cell
+		double cell = Math.sqrt(width * height / Math.max(1, edges.length));
+		cols = Math.max(1, Math.min(MAX_CELLS_PER_AXIS, (int) Math.ceil(width / cell)));
+		rows = Math.max(1, Math.min(MAX_CELLS_PER_AXIS, (int) Math.ceil(height / cell)));
+		cellWidth = width / cols;
+		cellHeight = height / rows;
+
+		cellStart = new int[cols * rows + 1];
+		for (Line2D.Double e : edges) {
+			forEachCell(e, c -> cellStart[c + 1]++);
+		}
+		for (int c = 0; c < cols * rows; c++) {
+			cellStart[c + 1] += cellStart[c];
+		}
+		cellEdges = new int[cellStart[cols * rows]];
+		int[] fill = cellStart.clone();
+		for (int i = 0; i < edges.length; i++) {
+			int id = i;
+			forEachCell(edges[i], c -> cellEdges[fill[c]++] = id);
+		}
+	}
+
+	private static void addEdges(MultiLine2D line, List<Line2D.Double> lines) {
+		MultiLine2D.Coordinates c = line.getCoordinates();
+		// Same edges as MultiLine2D.getLine(i), including the closing edge
+		for (int i = 0; i < c.size(); i++) {
+			int j = (i + 1) % c.size();
+			lines.add(new Line2D.Double(c.getX(i), c.getY(i), c.getX(j), c.getY(j)));
+		}
+	}
+
+	private void forEachCell(Line2D.Double e, java.util.function.IntConsumer action) {
+		int cx0 = col(Math.min(e.x1, e.x2) - PAD);
+		int cx1 = col(Math.max(e.x1, e.x2) + PAD);
+		int cy0 = row(Math.min(e.y1, e.y2) - PAD);
+		int cy1 = row(Math.max(e.y1, e.y2) + PAD);
+		for (int cy = cy0; cy <= cy1; cy++)
+			for (int cx = cx0; cx <= cx1; cx++)
+				action.accept(cy * cols + cx);
+	}
+
+	private int col(double x) {
+		return Math.max(0, Math.min(cols - 1, (int) Math.floor((x - minX) / cellWidth)));
+	}
+
+	private int row(double y) {
+		return Math.max(0, Math.min(rows - 1, (int) Math.floor((y - minY) / cellHeight)));
+	}
+
+	/**
+	 * @return true if the index still describes the given geometry
+	 */
+	boolean matches(MultiLine2D border, List<MultiLine2D> obstacles) {
+		if (border != this.border || obstacles.size() != this.obstacles.length)
+			return false;
+		if (border != null && border.getModCount() != modCounts[this.obstacles.length])
+			return false;
+		int i = 0;
+		for (MultiLine2D obstacle : obstacles) {
+			if (i >= this.obstacles.length || obstacle != this.obstacles[i]
+					|| obstacle.getModCount() != modCounts[i])
+				return false;
+			i++;
+		}
+		return true;
+	}
+
+	long getVersion() {
+		return version;
+	}
+
+	int getEdgeCount() {
+		return edges.length;
+	}
+
+	/**
+	 * All edges hit at the smallest distance from {@code p1} that is larger than
+	 * the tolerance.
+	 */
+	List<Line2D> getCollisionLines(Point2D p1, Point2D p2) {
+		Hits hits = collectHits(p1, p2, true);
+		List<Line2D> result = new LinkedList<>();
+		if (hits.best == Double.MAX_VALUE)
+			return result;
+		int last = -1;
+		for (int id : hits.sortedIdsAt(hits.best)) {
+			if (id != last) {
+				Line2D.Double e = edges[id];
+				result.add(new Line2D.Double(e.x1, e.y1, e.x2, e.y2));
+			}
+			last = id;
+		}
+		return result.size() == 1 ? List.of(result.get(0)) : result;
+	}
+
+	/**
+	 * The nearest hit from {@code p1}, or null.
+	 */
+	Point2D getCollisionPoint(Point2D p1, Point2D p2) {
+		Hits hits = collectHits(p1, p2, false);
+		if (hits.best == Double.MAX_VALUE)
+			return null;
+		return hits.points.get(hits.indexOfLowestIdAt(hits.best));
+	}
+
+	private Hits collectHits(Point2D p1, Point2D p2, boolean skipStart) {
+		Hits hits = new Hits();
+		if (edges.length == 0)
+			return hits;
+
+		Line2D given = new Line2D.Double(p1, p2);
+		double x1 = p1.getX(), y1 = p1.getY();
+		double dx = p2.getX() - x1, dy = p2.getY() - y1;
+
+		// Clip the segment against the grid (Liang-Barsky)
+		double[] t = { 0, 1 };
+		if (!clip(-dx, x1 - minX, t) || !clip(dx, maxX - x1, t) || !clip(-dy, y1 - minY, t)
+				|| !clip(dy, maxY - y1, t))
+			return hits;
+
+		double length = Math.hypot(dx, dy);
+		int cx = col(x1 + t[0] * dx);
+		int cy = row(y1 + t[0] * dy);
+		int stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+		int stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+		double tDeltaX = stepX != 0 ? cellWidth / Math.abs(dx) : Double.MAX_VALUE;
+		double tDeltaY = stepY != 0 ? cellHeight / Math.abs(dy) : Double.MAX_VALUE;
+		double tMaxX = stepX != 0 ? (minX + (cx + (stepX > 0 ? 1 : 0)) * cellWidth - x1) / dx : Double.MAX_VALUE;
+		double tMaxY = stepY != 0 ? (minY + (cy + (stepY > 0 ? 1 : 0)) * cellHeight - y1) / dy : Double.MAX_VALUE;
+
+		while (true) {
+			int cell = cy * cols + cx;
+			for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+				int id = cellEdges[k];
+				Line2D l = edges[id];
+				Point2D intersectPoint = GeomUtil.getIntersectPoint(l, given);
+				if (intersectPoint != null && l.ptSegDist(intersectPoint) < TOLERANCE
+						&& given.ptSegDist(intersectPoint) < TOLERANCE) {
+					double distance = p1.distance(intersectPoint);
+					if (!skipStart || distance > TOLERANCE)
+						hits.add(id, distance, intersectPoint);
+				}
+			}
+
+			double tNext = Math.min(tMaxX, tMaxY);
+			if (tNext > t[1])
+				break;
+			// Hits in later cells are at least this far away
+			if (hits.best != Double.MAX_VALUE && tNext * length > hits.best + 2 * TOLERANCE)
+				break;
+			if (tMaxX < tMaxY) {
+				cx += stepX;
+				tMaxX += tDeltaX;
+			} else {
+				cy += stepY;
+				tMaxY += tDeltaY;
+			}
+			if (cx < 0 || cx >= cols || cy < 0 || cy >= rows)
+				break;
+		}
+		return hits;
+	}
+
+	private static boolean clip(double p, double q, double[] t) {
+		if (p == 0)
+			return q >= 0;
+		double r = q / p;
+		if (p < 0) {
+			if (r > t[1])
+				return false;
+			t[0] = Math.max(t[0], r);
+		} else {
+			if (r < t[0])
+				return false;
+			t[1] = Math.min(t[1], r);
+		}
+		return true;
+	}
+
+	private static final class Hits {
+		final List<Integer> ids = new ArrayList<>();
+		final List<Double> distances = new ArrayList<>();
+		final List<Point2D> points = new ArrayList<>();
+		double best = Double.MAX_VALUE;
+
+		void add(int id, double distance, Point2D point) {
+			ids.add(id);
+			distances.add(distance);
+			points.add(point);
+			best = Math.min(best, distance);
+		}
+
+		int[] sortedIdsAt(double distance) {
+			return java.util.stream.IntStream.range(0, ids.size()).filter(i -> distances.get(i) == distance)
+					.map(ids::get).sorted().toArray();
+		}
+
+		int indexOfLowestIdAt(double distance) {
+			int result = -1;
+			for (int i = 0; i < ids.size(); i++) {
+				if (distances.get(i) == distance && (result < 0 || ids.get(i) < ids.get(result)))
+					result = i;
+			}
+			return result;
+		}
+	}
+}
@@ -1,18 +1,22 @@
 package de.in.autoMower.sim;
 
 import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
 
+import javax.imageio.ImageIO;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 
@@ -41,19 +45,81 @@ public class GroundModel implements Serializable {
 	Double calibration = 10d;
 
 	private transient BufferedImage image;
+	private transient ImagePyramid imagePyramid;
+	/** The image of an opened project while it is decoded, or null. */
+	private transient ProjectReader pendingImage;
+	private transient Dimension imageSize;
 	private Point2D chargingStation;
 	private final List<ZonePoint> zonePoints = new ArrayList<>();
+	private transient volatile EdgeIndex edgeIndex;
+	private transient volatile CoverageMask coverageMask;
+	private transient volatile ZoneMap zoneMap;
+	private transient volatile PerimeterTable perimeterTable;
 
 	public BufferedImage getImage() {
 		return image;
 	}
 
+	/**
+	 * The image for drawing, see {@link ImagePyramid}, or null without image.
+	 */
+	ImagePyramid getImagePyramid() {
+		return imagePyramid;
+	}
+
 	public void setImage(BufferedImage image) {
 		this.image = image;
+		this.imagePyramid = image == null ? null : new ImagePyramid(image);
+		this.pendingImage = null;
+		this.imageSize = image == null ? null : new Dimension(image.getWidth(), image.getHeight());
 		if (listener != null)
 			listener.stateChanged(new ChangeEvent(image));
 	}
 
+	/**
+	 * Takes the image of a project that is still being decoded. Until
+	 * {@link #setImage(BufferedImage)} replaces it, there is nothing to draw, but
+	 * the size lays out the ground and saving writes the image of the project.
+	 * 
+	 * @param size the size of the image, see {@link ProjectReader#getImageSize()}
+	 */
+	void setPendingImage(ProjectReader project, Dimension size) {
+		this.image = null;
+		this.imagePyramid = null;
+		this.pendingImage = project;
+		this.imageSize = size;
+		if (listener != null)
+			listener.stateChanged(new ChangeEvent(project));
+	}
+
+	/**
+	 * The size of the image, also while it is pending, or null without image.
+	 */
+	Dimension getImageSize() {
+		return imageSize;
+	}
+
+	/**
+	 * The image, decoded here if it is still pending, or null without image.
+	 */
+	BufferedImage awaitImage() throws IOException {
+		return pendingImage != null ? pendingImage.decodeImage() : image;
+	}
+
+	/**
+	 * The image as PNG, the bytes of the project if it is still pending, or null
+	 * without image.
+	 */
+	byte[] getImagePng() throws IOException {
+		if (pendingImage != null)
+			return pendingImage.getImageBytes();
+		if (image == null)
+			return null;
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", png);
+		return png.toByteArray();
+	}
+
 	public GroundModel() {
 		border.setShowIndices(true);
 	}
@@ -174,7 +240,8 @@ public class GroundModel implements Serializable {
 	}
 
 	protected boolean testForHighLightedChanged(Line2D bLine, Point2D bPoint) {
-		if ((highLightedPoint != null && highLightedPoint != bPoint)
+		// Vertices are copies, the same vertex is an equal point
+		if ((highLightedPoint != null && !highLightedPoint.equals(bPoint))
 				|| (highLightedLine != null && highLightedLine != bLine))
 			listener.stateChanged(new ChangeEvent(this));
 		return highLightedLine != null || highLightedPoint != null;
@@ -208,51 +275,82 @@ public class GroundModel implements Serializable {
 	}
 
 	public List<Line2D> getCollisionLines(Point2D p1, Point2D p2) {
-		Line2D given = new Line2D.Double(p1, p2);
-		List<Line2D> result = new LinkedList<>();
-		double distanceToP1 = Double.MAX_VALUE;
-		List<MultiLine2D> lines = new LinkedList<>(obstacles);
-		lines.add(border);
-		for (MultiLine2D line : lines)
-			for (int i = 0; i < line.getNumberOfPoints(); i++) {
-				Line2D l = line.getLine(i);
-				Point2D intersectPoint = GeomUtil.getIntersectPoint(l, given);
-				if (intersectPoint != null && l.ptSegDist(intersectPoint) < 0.05
-						&& given.ptSegDist(intersectPoint) < 0.05) {
-					double distance = p1.distance(intersectPoint);
-					if (distance > 0.05)
-						if (distance < distanceToP1) {
-							distanceToP1 = distance;
-							result = List.of(l);
-						} else if (distance == distanceToP1) {
-							result = new LinkedList<>(result);
-							result.add(l);
-						}
-				}
-			}
-		return result;
+		return getEdgeIndex().getCollisionLines(p1, p2);
 	}
 
 	public Point2D getCollisionPoint(Point2D p1, Point2D p2) {
-		Line2D given = new Line2D.Double(p1, p2);
-		Point2D found = null;
-		double distanceToP1 = Double.MAX_VALUE;
-		List<MultiLine2D> lines = new LinkedList<>(obstacles);
-		lines.add(border);
-		for (MultiLine2D line : lines)
-			for (int i = 0; i < line.getNumberOfPoints(); i++) {
-				Line2D l = line.getLine(i);
-				Point2D intersectPoint = GeomUtil.getIntersectPoint(l, given);
-				if (intersectPoint != null && l.ptSegDist(intersectPoint) < 0.05
-						&& given.ptSegDist(intersectPoint) < 0.05) {
-					double distance = p1.distance(intersectPoint);
-					if (distance < distanceToP1) {
-						distanceToP1 = distance;
-						found = intersectPoint;
-					}
-				}
-			}
-		return found;
+		return getEdgeIndex().getCollisionPoint(p1, p2);
+	}
+
+	/**
+	 * Returns the edge index for the current border and obstacles. It is rebuilt
+	 * lazily when a polygon was replaced or changed.
+	 */
+	EdgeIndex getEdgeIndex() {
+		EdgeIndex index = edgeIndex;
+		if (index == null || !index.matches(border, obstacles)) {
+			index = new EdgeIndex(border, obstacles, index == null ? 1 : index.getVersion() + 1);
+			edgeIndex = index;
+		}
+		return index;
+	}
+
+	/**
+	 * Changes whenever the border or an obstacle was replaced or modified.
+	 */
+	public long getGeometryVersion() {
+		return getEdgeIndex().getVersion();
+	}
+
+	/**
+	 * The pixels of the border bounding box that are inside, see
+	 * {@link #isInside(Point2D)}. Built once per geometry version and shared by
+	 * all simulations on this ground.
+	 */
+	CoverageMask getCoverageMask() {
+		long version = getGeometryVersion();
+		CoverageMask mask = coverageMask;
+		if (mask == null || mask.getGeometryVersion() != version) {
+			mask = CoverageMask.build(border, obstacles, version);
+			coverageMask = mask;
+		}
+		return mask;
+	}
+
+	/**
+	 * The zone of every pixel of the coverage mask, or null if there are no zones.
+	 * Dropped when the numbering or the zone points change and rebuilt when the
+	 * geometry changed.
+	 */
+	ZoneMap getZoneMap() {
+		ZoneMap map = zoneMap;
+		if (map != null && map.getGeometryVersion() == getGeometryVersion())
+			return map;
+		if (zonePoints.isEmpty() || border == null || border.getNumberOfPoints() == 0)
+			return null;
+		double[] zoneXY = new double[2 * zonePoints.size()];
+		for (int i = 0; i < zonePoints.size(); i++) {
+			zoneXY[2 * i] = zonePoints.get(i).getPoint().getX();
+			zoneXY[2 * i + 1] = zonePoints.get(i).getPoint().getY();
+		}
+		map = ZoneMap.build(getCoverageMask(), getPerimeterTable(), zoneXY);
+		zoneMap = map;
+		return map;
+	}
+
+	/**
+	 * Index of the zone p lies in, in the order of {@link #getZonePoints()}. Zone
+	 * i reaches along the perimeter from zone point i - 1 to zone point i, zone 0
+	 * also from the last zone point to the end. 0 if there are no zones.
+	 * <p>
+	 * Points on the mowable area are looked up in the {@link ZoneMap} at the
+	 * nearest pixel, so the zone borders are accurate to half a pixel. Zone
+	 * points moved in place must be handed back with
+	 * {@link #setZonePoints(List)}.
+	 */
+	public int getZoneAt(Point2D p) {
+		ZoneMap map = getZoneMap();
+		return map == null ? 0 : map.getZoneAt(p.getX(), p.getY());
 	}
 
 	public Double getCalibration() {
@@ -343,6 +441,7 @@ public class GroundModel implements Serializable {
 		border.setShowIndices(true);
 
 		sortZonePoints();
+		zoneMap = null;
 		listener.stateChanged(new ChangeEvent(this));
 	}
 
@@ -354,6 +453,7 @@ public class GroundModel implements Serializable {
 		this.zonePoints.clear();
 		this.zonePoints.addAll(zones);
 		sortZonePoints();
+		zoneMap = null;
 		listener.stateChanged(new ChangeEvent(this));
 	}
 
@@ -368,6 +468,7 @@ public class GroundModel implements Serializable {
 		if (found != null) {
 			zonePoints.remove(found);
 			sortZonePoints();
+			zoneMap = null;
 			listener.stateChanged(new ChangeEvent(this));
 		}
 	}
@@ -380,6 +481,7 @@ public class GroundModel implements Serializable {
 		if (projected != null) {
 			zonePoints.add(new ZonePoint(projected, percentage));
 			sortZonePoints();
+			zoneMap = null;
 			listener.stateChanged(new ChangeEvent(this));
 		}
 	}
@@ -419,101 +521,50 @@ public class GroundModel implements Serializable {
 		if (border == null || border.getNumberOfPoints() == 0 || zonePoints.isEmpty())
 			return;
 
-		int startIdx = border.numberingStartIndex;
-		int direction = border.numberingDirection;
-		List<Point2D> pts = border.getPoints();
+		PerimeterTable table = getPerimeterTable();
+		zonePoints.sort(Comparator
+				.comparingDouble(p -> table.getDistOnPerimeter(p.getPoint().getX(), p.getPoint().getY())));
+	}
 
-		zonePoints.sort(Comparator.comparingDouble(p -> getDistOnPerimeter(p.getPoint(), startIdx, direction, pts)));
+	/**
+	 * Arc lengths of the current border in numbering order, rebuilt when the
+	 * border or its numbering changed.
+	 */
+	PerimeterTable getPerimeterTable() {
+		PerimeterTable table = perimeterTable;
+		if (table == null || !table.matches(border)) {
+			table = new PerimeterTable(border);
+			perimeterTable = table;
+		}
+		return table;
 	}
 
+	/**
+	 * Distance along the border in numbering direction from the numbering start
+	 * to the start of the border segment nearest to p, plus the distance from
+	 * there to p.
+	 */
 	public double getDistOnPerimeter(Point2D p) {
 		if (border == null || border.getNumberOfPoints() == 0)
 			return 0;
-		return getDistOnPerimeter(p, border.numberingStartIndex, border.numberingDirection, border.getPoints());
-	}
-
-	private double getDistOnPerimeter(Point2D p, int startIdx, int direction, List<Point2D> pts) {
-		int n = pts.size();
-		// Find segment containing p
-		double minDist = Double.MAX_VALUE;
-		int segmentStart = -1;
-		for (int i = 0; i < n; i++) {
-			int next = (i + 1) % n;
-			Line2D seg = new Line2D.Double(pts.get(i), pts.get(next));
-			double d = seg.ptSegDist(p);
-			if (d < minDist) {
-				minDist = d;
-				segmentStart = i;
-			}
-		}
-
-		double totalDist = 0;
-		int curr = startIdx;
-		while (curr != segmentStart) {
-			int next = (curr + direction + n) % n;
-			totalDist += pts.get(curr).distance(pts.get(next));
-			curr = next;
-		}
-
-		// distance from curr to p
-		// Note: p is on segment (segmentStart, segmentStart+1)
-		// If direction is 1, we add distance from segmentStart to p
-		// If direction is -1, the segment relative to our path order is different.
-		// Wait, the while loop brings us to segmentStart in the specific direction.
-		// So we just need to add directed distance from segmentStart to p within the
-		// segment.
-
-		totalDist += pts.get(segmentStart).distance(p);
-		return totalDist;
+		return getPerimeterTable().getDistOnPerimeter(p.getX(), p.getY());
 	}
 
 	public double getPerimeterLength() {
 		if (border == null || border.getNumberOfPoints() < 2)
 			return 0;
-		double total = 0;
-		List<Point2D> pts = border.getPoints();
-		for (int i = 0; i < pts.size(); i++) {
-			total += pts.get(i).distance(pts.get((i + 1) % pts.size()));
-		}
-		return total;
+		return getPerimeterTable().getLength();
 	}
 
 	public Point2D getPointAtDistOnPerimeter(double dist) {
 		if (border == null || border.getNumberOfPoints() < 2)
 			return null;
-
-		List<Point2D> pts = border.getPoints();
-		int n = pts.size();
-		int startIdx = border.numberingStartIndex;
-		int direction = border.numberingDirection;
-
-		double currentDist = 0;
-		int curr = startIdx;
-		double maxLen = getPerimeterLength();
-		dist = dist % maxLen;
-		if (dist < 0)
-			dist += maxLen;
-
-		while (true) {
-			int next = (curr + direction + n) % n;
-			double segLen = pts.get(curr).distance(pts.get(next));
-			if (currentDist + segLen >= dist) {
-				// Point is on this segment
-				double t = (dist - currentDist) / segLen;
-				return new Point2D.Double(
-						pts.get(curr).getX() + t * (pts.get(next).getX() - pts.get(curr).getX()),
-						pts.get(curr).getY() + t * (pts.get(next).getY() - pts.get(curr).getY()));
-			}
-			currentDist += segLen;
-			curr = next;
-			if (curr == startIdx)
-				break; // Wrapped around
-		}
-		return pts.get(startIdx);
+		return getPerimeterTable().getPointAtDistOnPerimeter(dist);
 	}
 
 	public void clearZonePoints() {
 		zonePoints.clear();
+		zoneMap = null;
 		listener.stateChanged(new ChangeEvent(this));
 	}
 }
@@ -0,0 +1,297 @@
+package de.in.autoMower.sim;
+
+import java.awt.EventQueue;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * The background image at halving resolutions, for drawing it at any zoom
+ * without touching more pixels than the screen shows.
+ * <p>
+ * Level 0 is the image itself, level k has 1 / 2^k of its width and height.
+ * The levels are split into square tiles that are built on demand: drawing
+ * picks the level that matches the zoom and draws the visible tiles of it; a
+ * tile that is not built yet is requested from a worker, and the same area of
+ * the next coarser level that is built is drawn instead. A tile is the 2x2 box
+ * average of four tiles of the level below. The coarsest level is scaled from
+ * the image right away, so there is always something to draw.
+ */
+final class ImagePyramid {
+
+	static final int TILE_SIZE = 256;
+
+	private static final byte MISSING = 0;
+	private static final byte REQUESTED = 1;
+	private static final byte BUILT = 2;
+
+	private final BufferedImage source;
+	private final int imageType;
+	private final int levelCount;
+	/** Level images, allocated with the first tile, index 0 is the source. */
+	private final BufferedImage[] levels;
+	/** State of every tile per level, row by row. Guarded by this. */
+	private final byte[][] tiles;
+	private final ArrayDeque<int[]> requests = new ArrayDeque<>();
+	private boolean workerRunning;
+	private boolean notifyPending;
+
+	/** Changes whenever tiles were built, only on the event thread. */
+	private int version;
+	private volatile Runnable onTilesBuilt;
+
+	ImagePyramid(BufferedImage source) {
+		this.source = source;
+		this.imageType = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB
+				: BufferedImage.TYPE_INT_RGB;
+		int count = 1;
+		while (Math.max(levelWidth(count - 1), levelHeight(count - 1)) > TILE_SIZE)
+			count++;
+		levelCount = count;
+		levels = new BufferedImage[count];
+		levels[0] = source;
+		tiles = new byte[count][];
+		for (int level = 0; level < count; level++) {
+			tiles[level] = new byte[tilesX(level) * tilesY(level)];
+			if (level == 0)
+				Arrays.fill(tiles[0], BUILT);
+		}
+		if (count > 1)
+			buildCoarsest();
+	}
+
+	int getLevelCount() {
+		return levelCount;
+	}
+
+	int levelWidth(int level) {
+		return (int) Math.ceil(source.getWidth() / (double) (1 << level));
+	}
+
+	int levelHeight(int level) {
+		return (int) Math.ceil(source.getHeight() / (double) (1 << level));
+	}
+
+	private int tilesX(int level) {
+		return (levelWidth(level) + TILE_SIZE - 1) / TILE_SIZE;
+	}
+
+	private int tilesY(int level) {
+		return (levelHeight(level) + TILE_SIZE - 1) / TILE_SIZE;
+	}
+
+	/**
+	 * The coarsest level whose pixels are at most one screen pixel big at this
+	 * scale, so drawing it never magnifies; level 0 when zoomed in.
+	 */
+	int levelFor(double scale) {
+		if (scale >= 1)
+			return 0;
+		int level = (int) Math.floor(-Math.log(scale) / Math.log(2));
+		return Math.min(levelCount - 1, level);
+	}
+
+	int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Called on the event thread after tiles requested by drawing were built.
+	 */
+	void setOnTilesBuilt(Runnable onTilesBuilt) {
+		this.onTilesBuilt = onTilesBuilt;
+	}
+
+	synchronized boolean isBuilt(int level, int tx, int ty) {
+		return tiles[level][ty * tilesX(level) + tx] == BUILT;
+	}
+
+	/**
+	 * Draws the part of the image visible in a screen of the given size.
+	 *
+	 * @param transform image to screen, a scale and a translation
+	 */
+	void draw(Graphics2D g, AffineTransform transform, int width, int height) {
+		Rectangle2D visible;
+		try {
+			visible = transform.createInverse().createTransformedShape(new Rectangle2D.Double(0, 0, width, height))
+					.getBounds2D();
+		} catch (NoninvertibleTransformException e) {
+			return;
+		}
+		int level = levelFor(transform.getScaleX());
+		int size = TILE_SIZE << level;
+		int firstX = Math.max(0, (int) Math.floor(visible.getMinX() / size));
+		int firstY = Math.max(0, (int) Math.floor(visible.getMinY() / size));
+		int lastX = Math.min(tilesX(level) - 1, (int) Math.ceil(visible.getMaxX() / size) - 1);
+		int lastY = Math.min(tilesY(level) - 1, (int) Math.ceil(visible.getMaxY() / size) - 1);
+
+		Graphics2D g2 = (Graphics2D) g.create();
+		try {
+			g2.transform(transform);
+			g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+			for (int ty = firstY; ty <= lastY; ty++)
+				for (int tx = firstX; tx <= lastX; tx++)
+					drawTile(g2, level, tx, ty);
+		} finally {
+			g2.dispose();
+		}
+	}
+
+	/**
+	 * Draws a tile in image coordinates, or the same area of a coarser level.
+	 */
+	private void drawTile(Graphics2D g, int level, int tx, int ty) {
+		int coarser = level;
+		synchronized (this) {
+			while (coarser < levelCount && tiles[coarser][(ty >> (coarser - level)) * tilesX(coarser)
+					+ (tx >> (coarser - level))] != BUILT) {
+				if (coarser == level)
+					request(level, tx, ty);
+				coarser++;
+			}
+		}
+		if (coarser == levelCount)
+			return;
+
+		// The area of the tile in level image and in source coordinates
+		int shift = coarser - level;
+		int x0 = (tx * TILE_SIZE) >> shift;
+		int y0 = (ty * TILE_SIZE) >> shift;
+		int x1 = Math.min(levelWidth(coarser), ((tx + 1) * TILE_SIZE + (1 << shift) - 1) >> shift);
+		int y1 = Math.min(levelHeight(coarser), ((ty + 1) * TILE_SIZE + (1 << shift) - 1) >> shift);
+		int scale = 1 << coarser;
+		g.drawImage(levels[coarser], x0 * scale, y0 * scale, x1 * scale, y1 * scale, x0, y0, x1, y1, null);
+	}
+
+	/** Must hold the lock. */
+	private void request(int level, int tx, int ty) {
+		int index = ty * tilesX(level) + tx;
+		if (tiles[level][index] != MISSING)
+			return;
+		tiles[level][index] = REQUESTED;
+		requests.add(new int[] { level, tx, ty });
+		if (!workerRunning) {
+			workerRunning = true;
+			SimulationScheduler.getDefault().execute(this::buildRequested);
+		}
+	}
+
+	private void buildRequested() {
+		while (true) {
+			int[] request;
+			synchronized (this) {
+				request = requests.pollLast();
+				if (request == null) {
+					workerRunning = false;
+					return;
+				}
+			}
+			// Most recent first, earlier requests may be off screen by now
+			build(request[0], request[1], request[2]);
+			notifyBuilt();
+		}
+	}
+
+	/**
+	 * Builds a tile and the tiles below it it needs. Runs on the worker only.
+	 */
+	void build(int level, int tx, int ty) {
+		if (level == 0 || isBuilt(level, tx, ty))
+			return;
+		for (int cy = 2 * ty; cy <= Math.min(2 * ty + 1, tilesY(level - 1) - 1); cy++)
+			for (int cx = 2 * tx; cx <= Math.min(2 * tx + 1, tilesX(level - 1) - 1); cx++)
+				build(level - 1, cx, cy);
+
+		BufferedImage target = level(level);
+		BufferedImage below = levels[level - 1];
+		int x0 = tx * TILE_SIZE;
+		int y0 = ty * TILE_SIZE;
+		int w = Math.min(TILE_SIZE, levelWidth(level) - x0);
+		int h = Math.min(TILE_SIZE, levelHeight(level) - y0);
+		int sw = Math.min(2 * w, levelWidth(level - 1) - 2 * x0);
+		int sh = Math.min(2 * h, levelHeight(level - 1) - 2 * y0);
+		int[] src = readPixels(below, 2 * x0, 2 * y0, sw, sh);
+		int[] dst = new int[w * h];
+		for (int y = 0; y < h; y++) {
+			int r0 = 2 * y * sw;
+			int r1 = 2 * y + 1 < sh ? r0 + sw : r0;
+			for (int x = 0; x < w; x++) {
+				int c0 = 2 * x;
+				int c1 = 2 * x + 1 < sw ? c0 + 1 : c0;
+				dst[y * w + x] = average(src[r0 + c0], src[r0 + c1], src[r1 + c0], src[r1 + c1]);
+			}
+		}
+		target.getRaster().setDataElements(x0, y0, w, h, dst);
+		synchronized (this) {
+			tiles[level][ty * tilesX(level) + tx] = BUILT;
+		}
+	}
+
+	private static int average(int a, int b, int c, int d) {
+		int result = 0;
+		for (int shift = 0; shift < 32; shift += 8) {
+			int sum = ((a >>> shift) & 0xFF) + ((b >>> shift) & 0xFF) + ((c >>> shift) & 0xFF) + ((d >>> shift) & 0xFF);
+			result |= ((sum + 2) >> 2) << shift;
+		}
+		return result;
+	}
+
+	private static int[] readPixels(BufferedImage image, int x, int y, int w, int h) {
+		int type = image.getType();
+		if (type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_RGB) {
+			int[] pixels = (int[]) image.getRaster().getDataElements(x, y, w, h, null);
+			if (type == BufferedImage.TYPE_INT_RGB)
+				for (int i = 0; i < pixels.length; i++)
+					pixels[i] |= 0xFF000000;
+			return pixels;
+		}
+		return image.getRGB(x, y, w, h, null, 0, w);
+	}
+
+	private synchronized BufferedImage level(int level) {
+		if (levels[level] == null)
+			levels[level] = new BufferedImage(levelWidth(level), levelHeight(level), imageType);
+		return levels[level];
+	}
+
+	/**
+	 * The coarsest level in one go, scaled down from the image.
+	 */
+	private void buildCoarsest() {
+		int top = levelCount - 1;
+		BufferedImage image = level(top);
+		Graphics2D g = image.createGraphics();
+		try {
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.drawImage(source, 0, 0, image.getWidth(), image.getHeight(), null);
+		} finally {
+			g.dispose();
+		}
+		synchronized (this) {
+			Arrays.fill(tiles[top], BUILT);
+		}
+	}
+
+	private void notifyBuilt() {
+		synchronized (this) {
+			if (notifyPending)
+				return;
+			notifyPending = true;
+		}
+		EventQueue.invokeLater(() -> {
+			synchronized (this) {
+				notifyPending = false;
+			}
+			version++;
+			Runnable listener = onTilesBuilt;
+			if (listener != null)
+				listener.run();
+		});
+	}
+}
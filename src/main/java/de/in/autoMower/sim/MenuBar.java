@@ -1,17 +1,14 @@
 package de.in.autoMower.sim;
 
-import java.awt.Color;
 import java.awt.event.ActionEvent;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.util.Base64;
-import java.util.stream.Collectors;
 
 import javax.imageio.ImageIO;
 import javax.swing.AbstractAction;
 import javax.swing.ImageIcon;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JFileChooser;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
@@ -20,9 +17,6 @@ import javax.swing.JSlider;
 import javax.swing.KeyStroke;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-
 public class MenuBar {
 	// The inner class for the actions
 	static abstract class MyAction extends AbstractAction {
@@ -41,7 +35,8 @@ public class MenuBar {
 		JFileChooser fc = new JFileChooser(new File("."));
 
 		{
-			fc.setFileFilter(new FileNameExtensionFilter("JSON Project", "json"));
+			fc.addChoosableFileFilter(new FileNameExtensionFilter("Binary Project", ProjectFile.EXTENSION));
+			fc.setFileFilter(new FileNameExtensionFilter("Project", "json", ProjectFile.EXTENSION));
 		}
 
 		public void actionPerformed(ActionEvent e) {
@@ -78,11 +73,13 @@ public class MenuBar {
 
 	};
 
-	static MyAction saveProjectAct = new MyAction("Save Project", null, "Saves the project in a json file", null,
-			"save") {
+	static MyAction saveProjectAct = new MyAction("Save Project", null,
+			"Saves the project in a json file or a binary one that opens faster", null, "save") {
 		JFileChooser fc = new JFileChooser(new File("."));
+		FileNameExtensionFilter binaryFilter = new FileNameExtensionFilter("Binary Project", ProjectFile.EXTENSION);
 
 		{
+			fc.addChoosableFileFilter(binaryFilter);
 			fc.setFileFilter(new FileNameExtensionFilter("JSON Project", "json"));
 		}
 
@@ -92,39 +89,16 @@ public class MenuBar {
 
 			if (fc.showSaveDialog(app) == JFileChooser.APPROVE_OPTION) {
 				File file = fc.getSelectedFile();
-				if (file != null && !file.getName().toLowerCase().endsWith(".json")) {
-					file = new File(file.getParentFile(), file.getName() + ".json");
+				String name = file.getName().toLowerCase();
+				boolean binary = name.endsWith("." + ProjectFile.EXTENSION)
+						|| (fc.getFileFilter() == binaryFilter && !name.endsWith(".json"));
+				String extension = binary ? ProjectFile.EXTENSION : "json";
+				if (!name.endsWith("." + extension)) {
+					file = new File(file.getParentFile(), file.getName() + "." + extension);
 				}
 
-				GroundModel groundModel = app.getGroundModel();
-				AbstractAutoMowerModel autoMowerModel = app.getMower();
-
 				try {
-					ProjectData data = new ProjectData();
-					data.calibration = groundModel.getCalibration();
-					data.border = new ProjectData.MultiLineDTO(groundModel.getBorder());
-					data.obstacles = groundModel.obstacles.stream().map(ProjectData.MultiLineDTO::new)
-							.collect(Collectors.toList());
-					data.mower = new ProjectData.MowerDTO(autoMowerModel);
-					if (groundModel.getChargingStation() != null) {
-						data.chargingStation = new ProjectData.PointDTO(groundModel.getChargingStation());
-					}
-
-					if (groundModel.getZonePoints() != null) {
-						data.zonePoints = groundModel.getZonePoints().stream()
-								.map(ProjectData.ZonePointDTO::new).collect(Collectors.toList());
-					}
-
-					if (groundModel.getImage() != null) {
-						ByteArrayOutputStream baos = new ByteArrayOutputStream();
-						ImageIO.write(groundModel.getImage(), "png", baos);
-						data.backgroundImageBase64 = Base64.getEncoder().encodeToString(baos.toByteArray());
-					}
-
-					ObjectMapper mapper = new ObjectMapper();
-					mapper.enable(SerializationFeature.INDENT_OUTPUT);
-					mapper.writeValue(file, data);
-
+					App.saveProject(file, binary, app.getGroundModel(), app.getMower());
 				} catch (Exception ex) {
 					ex.printStackTrace();
 				}
@@ -174,17 +148,15 @@ public class MenuBar {
 			public void actionPerformed(ActionEvent e) {
 				App app = App.getApp();
 
-				MultiLine2D line = new MultiLine2D(Color.RED);
 				SimulationPanel panel = new SimulationPanel(app.getGroundModel());
 
 				if (app.getGroundModel().border.getNumberOfPoints() > 0) {
 
-					panel.setLine(line);
 					app.setPanel(panel);
 					app.getSpeedSlider().setVisible(true);
 
 					if (app.getSimulation() == null)
-						new Thread(() -> app.createSimulation(line).run()).start();
+						SimulationScheduler.getDefault().execute(app.createSimulation());
 					else
 						app.getSimulation().resume();
 				}
@@ -233,9 +205,6 @@ public class MenuBar {
 				GroundModel ground = app.getGroundModel();
 				AbstractAutoMowerModel mower = app.getMower();
 
-				double areaCm2 = ground.getNetArea();
-				double areaM2 = areaCm2 / 10000.0;
-
 				double speed = mower.getSpeedInCmPerSec();
 				double width = mower.getMowingWidthInCm();
 
@@ -246,34 +215,10 @@ public class MenuBar {
 					return;
 				}
 
-				double tMinSeconds = areaCm2 / (speed * width);
-
-				// Probabilistic model for random coverage:
-				// T(coverage) = -ln(1 - coverage) * (Area / R)
-				// T_95% = -ln(0.05) * t_min ~= 3.0 * t_min
-				// T_99% = -ln(0.01) * t_min ~= 4.6 * t_min
-
-				double t95Seconds = tMinSeconds * 3.0;
-				double t99Seconds = tMinSeconds * 4.6;
-
-				String tMinStr = formatDuration(tMinSeconds);
-				String t95Str = formatDuration(t95Seconds);
-				String t99Str = formatDuration(t99Seconds);
-
-				String message = String.format("""
-						Net Mowing Area: %.2f m²
-
-						Theoretical Minimum (100%% efficiency): %s
-
-						Random Walk Estimation:
-						~ 95%% Coverage: %s
-						~ 99%% Coverage: %s
-						""", areaM2, tMinStr, t95Str, t99Str);
-
 				SimulationPanel oldPanel = app.getPanel();
 				app.setPanel(new AreaVisualizationPanel(ground));
 
-				JOptionPane.showMessageDialog(app, message, "Mowing Estimation", JOptionPane.INFORMATION_MESSAGE);
+				new CoverageEstimationDialog(ground, mower);
 
 				// Restore
 				if (oldPanel != null) {
@@ -282,17 +227,6 @@ public class MenuBar {
 					app.setPanel(new SetupGroundPanel(ground));
 				}
 			}
-
-			private String formatDuration(double totalSeconds) {
-				int hours = (int) (totalSeconds / 3600);
-				int minutes = (int) ((totalSeconds % 3600) / 60);
-				int seconds = (int) (totalSeconds % 60);
-				if (hours > 0) {
-					return String.format("%dh %dm %ds", hours, minutes, seconds);
-				} else {
-					return String.format("%dm %ds", minutes, seconds);
-				}
-			}
 		};
 
 		AbstractAction kantenschneidenAction = new AbstractAction("Kantenschneiden") {
@@ -301,18 +235,17 @@ public class MenuBar {
 			public void actionPerformed(ActionEvent e) {
 				App app = App.getApp();
 
-				MultiLine2D line = new MultiLine2D(Color.RED);
 				SimulationPanel panel = new SimulationPanel(app.getGroundModel());
 
 				if (app.getGroundModel().border.getNumberOfPoints() > 0) {
 
-					panel.setLine(line);
 					app.setPanel(panel);
 					app.getSpeedSlider().setVisible(true);
 
 					if (app.getSimulation() == null) {
-						app.createSimulation(line);
-						new Thread(() -> app.getMower().startEdgeCutting(line, app.getGroundModel())).start();
+						app.createSimulation();
+						SimulationScheduler.getDefault()
+								.execute(() -> app.getMower().startEdgeCutting(null, app.getGroundModel()));
 					} else {
 						app.getSimulation().resume();
 					}
@@ -320,19 +253,240 @@ public class MenuBar {
 			}
 		};
 
+		AbstractAction startFleetAction = new AbstractAction("Start Fleet...") {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				App app = App.getApp();
+				if (app.getGroundModel().border.getNumberOfPoints() == 0 || app.getSimulation() != null)
+					return;
+
+				Object count = JOptionPane.showInputDialog(app, "Number of mowers", "Start Fleet",
+						JOptionPane.QUESTION_MESSAGE, null, new Integer[] { 2, 3, 4 }, 2);
+				if (count == null)
+					return;
+
+				app.setPanel(new SimulationPanel(app.getGroundModel()));
+				app.getSpeedSlider().setVisible(true);
+				Simulation simulation = app.createFleetSimulation((Integer) count);
+				SimulationScheduler.getDefault().execute(simulation);
+			}
+		};
+
 		JMenu simulationMenu = new JMenu("Simulation");
 		simulationMenu.add(startAction);
+		simulationMenu.add(startFleetAction);
 		simulationMenu.add(kantenschneidenAction);
 		simulationMenu.add(stopSimulationAction);
 		simulationMenu.add(resumeSimulationAction);
 		simulationMenu.add(estimateTimeAct);
 		simulationMenu.add(simulationCancelAct);
+		simulationMenu.addSeparator();
+		JCheckBoxMenuItem coverageItem = new JCheckBoxMenuItem("Show Coverage");
+		coverageItem.addActionListener(e -> App.getApp().setShowCoverage(coverageItem.isSelected()));
+		simulationMenu.add(coverageItem);
+		simulationMenu.add(seedAct);
+		simulationMenu.addSeparator();
+		simulationMenu.add(createRecordTraceLogItem());
+		simulationMenu.add(replayTraceLogAct);
+		simulationMenu.addSeparator();
+		simulationMenu.add(createCheckpointItem());
+		simulationMenu.add(saveCheckpointAct);
+		simulationMenu.add(createRestoreCheckpointAct("Restore Checkpoint...",
+				"Continues a saved run on the current ground", false));
+		simulationMenu.add(createRestoreCheckpointAct("Fork Checkpoint...",
+				"Continues a saved run on the current ground with the seed of the next runs", true));
 		menu.add(simulationMenu);
 
 		return menu;
 
 	} // End of method menuBar()
 
+	/**
+	 * Records the runs started from now on in a trace log, see
+	 * {@link TraceLog}, until unchecked.
+	 */
+	private static JCheckBoxMenuItem createRecordTraceLogItem() {
+		JCheckBoxMenuItem recordItem = new JCheckBoxMenuItem("Record Trace Log...");
+		recordItem.setToolTipText("Records the next runs for a replay, the log is complete when the run is cancelled");
+		JFileChooser fc = new JFileChooser(new File("."));
+		fc.setFileFilter(new FileNameExtensionFilter("Trace Log", TraceLog.EXTENSION));
+		recordItem.addActionListener(e -> {
+			App app = App.getApp();
+			if (!recordItem.isSelected()) {
+				app.setTraceLogFile(null);
+				return;
+			}
+			if (fc.showSaveDialog(app) != JFileChooser.APPROVE_OPTION) {
+				recordItem.setSelected(false);
+				return;
+			}
+			File file = fc.getSelectedFile();
+			if (!file.getName().toLowerCase().endsWith("." + TraceLog.EXTENSION))
+				file = new File(file.getParentFile(), file.getName() + "." + TraceLog.EXTENSION);
+			app.setTraceLogFile(file);
+		});
+		return recordItem;
+	}
+
+	/**
+	 * Checkpoints the runs started from now on periodically, see
+	 * {@link Checkpoint}, until unchecked.
+	 */
+	private static JCheckBoxMenuItem createCheckpointItem() {
+		JCheckBoxMenuItem checkpointItem = new JCheckBoxMenuItem("Checkpoint Every...");
+		checkpointItem.setToolTipText("Saves the next runs in simulated intervals, each checkpoint replaces the last");
+		JFileChooser fc = new JFileChooser(new File("."));
+		fc.setFileFilter(new FileNameExtensionFilter("Checkpoint", Checkpoint.EXTENSION));
+		checkpointItem.addActionListener(e -> {
+			App app = App.getApp();
+			if (!checkpointItem.isSelected()) {
+				app.setCheckpoints(null, 0);
+				return;
+			}
+			checkpointItem.setSelected(false);
+			Object input = JOptionPane.showInputDialog(app, "Simulated minutes between checkpoints",
+					"Checkpoint Every", JOptionPane.QUESTION_MESSAGE, null, null, "60");
+			if (input == null)
+				return;
+			double minutes;
+			try {
+				minutes = Double.parseDouble(input.toString().trim());
+			} catch (NumberFormatException ex) {
+				minutes = 0;
+			}
+			if (!(minutes > 0)) {
+				JOptionPane.showMessageDialog(app, "Not an interval: " + input, "Checkpoint Every",
+						JOptionPane.ERROR_MESSAGE);
+				return;
+			}
+			if (fc.showSaveDialog(app) != JFileChooser.APPROVE_OPTION)
+				return;
+			File file = fc.getSelectedFile();
+			if (!file.getName().toLowerCase().endsWith("." + Checkpoint.EXTENSION))
+				file = new File(file.getParentFile(), file.getName() + "." + Checkpoint.EXTENSION);
+			app.setCheckpoints(file, minutes * 60);
+			checkpointItem.setSelected(true);
+		});
+		return checkpointItem;
+	}
+
+	static MyAction seedAct = new MyAction("Seed...", null, "Repeats runs with the same random numbers", null,
+			"seed") {
+
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			App app = App.getApp();
+			Long seed = app.getSeed();
+			Object input = JOptionPane.showInputDialog(app,
+					"Seed of the next runs, empty for a new one each run.\nLast run: " + app.getMower().getSeed(), "Seed",
+					JOptionPane.QUESTION_MESSAGE, null, null, seed == null ? "" : seed.toString());
+			if (input == null)
+				return;
+			String text = input.toString().trim();
+			try {
+				app.setSeed(text.isEmpty() ? null : Long.valueOf(text));
+			} catch (NumberFormatException ex) {
+				JOptionPane.showMessageDialog(app, "Not a seed: " + text, "Seed", JOptionPane.ERROR_MESSAGE);
+			}
+		}
+	};
+
+	static MyAction saveCheckpointAct = new MyAction("Save Checkpoint...", null,
+			"Saves the current run, to continue it later or to fork it", null, "saveCheckpoint") {
+		JFileChooser fc = new JFileChooser(new File("."));
+
+		{
+			fc.setFileFilter(new FileNameExtensionFilter("Checkpoint", Checkpoint.EXTENSION));
+		}
+
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			App app = App.getApp();
+			Simulation simulation = app.getSimulation();
+			if (simulation == null)
+				return;
+			if (simulation.getFleet() != null) {
+				JOptionPane.showMessageDialog(app, "A fleet can not be checkpointed", "Save Checkpoint",
+						JOptionPane.ERROR_MESSAGE);
+				return;
+			}
+			// Taken at once, the run goes on while the file is chosen
+			AbstractAutoMowerModel mower = simulation.getMowers().get(0);
+			boolean running = !mower.isStopped();
+			if (running)
+				simulation.stop();
+			Checkpoint checkpoint = Checkpoint.of(mower);
+			if (running)
+				simulation.resume();
+
+			if (fc.showSaveDialog(app) != JFileChooser.APPROVE_OPTION)
+				return;
+			File file = fc.getSelectedFile();
+			if (!file.getName().toLowerCase().endsWith("." + Checkpoint.EXTENSION))
+				file = new File(file.getParentFile(), file.getName() + "." + Checkpoint.EXTENSION);
+			try {
+				checkpoint.write(file);
+			} catch (IOException ex) {
+				JOptionPane.showMessageDialog(app, ex.getMessage(), "Save Checkpoint", JOptionPane.ERROR_MESSAGE);
+			}
+		}
+	};
+
+	/**
+	 * Replaces the current simulation with the run of a checkpoint on the current
+	 * ground, see {@link App#restoreCheckpoint(Checkpoint, boolean)}.
+	 */
+	private static MyAction createRestoreCheckpointAct(String name, String toolTip, boolean fork) {
+		return new MyAction(name, null, toolTip, null, fork ? "forkCheckpoint" : "restoreCheckpoint") {
+			JFileChooser fc = new JFileChooser(new File("."));
+
+			{
+				fc.setFileFilter(new FileNameExtensionFilter("Checkpoint", Checkpoint.EXTENSION));
+			}
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				App app = App.getApp();
+				if (app.getGroundModel().border.getNumberOfPoints() == 0
+						|| fc.showOpenDialog(app) != JFileChooser.APPROVE_OPTION)
+					return;
+				try {
+					Simulation simulation = app.restoreCheckpoint(Checkpoint.read(fc.getSelectedFile()), fork);
+					app.setPanel(new SimulationPanel(app.getGroundModel()));
+					app.getSpeedSlider().setVisible(true);
+					SimulationScheduler.getDefault().execute(simulation);
+				} catch (IOException ex) {
+					JOptionPane.showMessageDialog(app, ex.getMessage(), name, JOptionPane.ERROR_MESSAGE);
+				}
+			}
+		};
+	}
+
+	static MyAction replayTraceLogAct = new MyAction("Replay Trace Log...", null,
+			"Plays a recorded run back on the current ground", null, "replay") {
+		JFileChooser fc = new JFileChooser(new File("."));
+
+		{
+			fc.setFileFilter(new FileNameExtensionFilter("Trace Log", TraceLog.EXTENSION));
+		}
+
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			App app = App.getApp();
+			if (app.getSimulation() != null || fc.showOpenDialog(app) != JFileChooser.APPROVE_OPTION)
+				return;
+			try {
+				TraceReplay replay = new TraceReplay(TraceLog.Reader.open(fc.getSelectedFile()));
+				SimulationPanel panel = new SimulationPanel(app.getGroundModel());
+				panel.setReplay(replay);
+				app.setPanel(panel);
+			} catch (IOException ex) {
+				JOptionPane.showMessageDialog(app, ex.getMessage(), "Replay", JOptionPane.ERROR_MESSAGE);
+			}
+		}
+	};
+
 	// The method for Menu File
 	private static JMenu createFileMenu() {
 		JMenu fileMenu = new JMenu();
@@ -368,7 +522,8 @@ public class MenuBar {
 
 		sliderSpeed.addChangeListener(e -> {
 			App app = App.getApp();
-			app.getMower().setTimeScale(sliderSpeed.getValue());
+			for (AbstractAutoMowerModel mower : app.getMowers())
+				mower.setTimeScale(sliderSpeed.getValue());
 		});
 		return sliderSpeed;
 	}
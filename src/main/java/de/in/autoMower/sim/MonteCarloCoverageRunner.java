@@ -0,0 +1,204 @@
+package de.in.autoMower.sim;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs many independent, seeded headless copies of a mower model on the same
+ * ground in parallel and measures coverage over time. Replaces the closed form
+ * random walk estimate with empirical numbers for the selected model version.
+ * The runs are queued on the workers of the {@link SimulationScheduler}.
+ */
+public class MonteCarloCoverageRunner {
+
+    private final GroundModel groundModel;
+    private final AbstractAutoMowerModel template;
+    private volatile boolean cancelled = false;
+
+    public MonteCarloCoverageRunner(GroundModel groundModel, AbstractAutoMowerModel template) {
+        this.groundModel = groundModel;
+        this.template = template;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Simulates {@code runs} copies of the template mower for
+     * {@code durationSeconds} each and samples the coverage every
+     * {@code sampleSeconds}. The seeds of the runs are derived from
+     * {@code baseSeed}, see {@link SeededRandom#seeds(long, int)}, and recorded
+     * in the result.
+     *
+     * @param progress called with the number of finished runs, from worker
+     *                 threads
+     */
+    public Result run(int runs, double durationSeconds, double sampleSeconds, long baseSeed, IntConsumer progress) {
+        int samples = (int) Math.ceil(durationSeconds / sampleSeconds) + 1;
+        double[] times = new double[samples];
+        for (int s = 0; s < samples; s++) {
+            times[s] = Math.min(durationSeconds, s * sampleSeconds);
+        }
+
+        AtomicInteger finished = new AtomicInteger();
+        SimulationScheduler scheduler = SimulationScheduler.getDefault();
+        List<ForkJoinTask<double[]>> tasks = new ArrayList<>();
+        long[] seeds = SeededRandom.seeds(baseSeed, runs);
+        try {
+            for (int i = 0; i < runs; i++) {
+                long seed = seeds[i];
+                tasks.add(scheduler.submit(() -> {
+                    double[] curve = simulate(seed, times);
+                    int done = finished.incrementAndGet();
+                    if (progress != null)
+                        progress.accept(done);
+                    return curve;
+                }));
+            }
+            double[][] curves = new double[runs][];
+            for (int i = 0; i < runs; i++) {
+                curves[i] = tasks.get(i).join();
+            }
+            return new Result(times, curves, seeds);
+        } finally {
+            // The workers are shared, drop what is left after a failure
+            for (ForkJoinTask<double[]> task : tasks)
+                task.cancel(false);
+        }
+    }
+
+    private double[] simulate(long seed, double[] times) {
+        AbstractAutoMowerModel mower = template.createConfiguredCopy();
+        mower.setHeadless(true);
+        mower.setSeed(seed);
+
+        if (!mower.prepare(new MultiLine2D(Color.RED), groundModel))
+            throw new IllegalStateException("Mower could not be placed on the ground");
+
+        double[] curve = new double[times.length];
+        for (int s = 0; s < times.length; s++) {
+            if (cancelled)
+                throw new CancellationException();
+            mower.runEventsUntil(times[s]);
+            curve[s] = mower.getCoveragePercentage();
+        }
+        return curve;
+    }
+
+    /**
+     * Coverage curves of all runs, sampled at common points in time.
+     */
+    public static class Result {
+
+        private static final double Z_95 = 1.96;
+
+        private final double[] times;
+        private final double[][] curves;
+        private final long[] seeds;
+
+        Result(double[] times, double[][] curves, long[] seeds) {
+            this.times = times;
+            this.curves = curves;
+            this.seeds = seeds;
+        }
+
+        public int getRuns() {
+            return curves.length;
+        }
+
+        public double[] getTimes() {
+            return times;
+        }
+
+        public double[] getCurve(int run) {
+            return curves[run];
+        }
+
+        /**
+         * Seed of a run, to repeat it on its own with
+         * {@link AbstractAutoMowerModel#setSeed(long)}.
+         */
+        public long getSeed(int run) {
+            return seeds[run];
+        }
+
+        public double[] getMean() {
+            double[] mean = new double[times.length];
+            for (double[] curve : curves) {
+                for (int s = 0; s < times.length; s++) {
+                    mean[s] += curve[s] / curves.length;
+                }
+            }
+            return mean;
+        }
+
+        /**
+         * Lower bound of the 95% confidence band of the mean coverage.
+         */
+        public double[] getLowerBand() {
+            return band(-Z_95);
+        }
+
+        /**
+         * Upper bound of the 95% confidence band of the mean coverage.
+         */
+        public double[] getUpperBand() {
+            return band(Z_95);
+        }
+
+        private double[] band(double z) {
+            double[] mean = getMean();
+            double[] result = new double[times.length];
+            for (int s = 0; s < times.length; s++) {
+                double var = 0;
+                for (double[] curve : curves) {
+                    double d = curve[s] - mean[s];
+                    var += d * d;
+                }
+                double stdErr = curves.length > 1 ? Math.sqrt(var / (curves.length - 1) / curves.length) : 0;
+                result[s] = Math.max(0, Math.min(1, mean[s] + z * stdErr));
+            }
+            return result;
+        }
+
+        /**
+         * First sampled time at which each run reached the given coverage, or NaN
+         * if it did not within the simulated duration.
+         */
+        public double[] getTimesToCoverage(double coverage) {
+            double[] result = new double[curves.length];
+            for (int i = 0; i < curves.length; i++) {
+                result[i] = Double.NaN;
+                for (int s = 0; s < times.length; s++) {
+                    if (curves[i][s] >= coverage) {
+                        result[i] = times[s];
+                        break;
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Median time to reach the given coverage over all runs, or NaN if less than
+         * half of the runs got there.
+         */
+        public double getMedianTimeToCoverage(double coverage) {
+            double[] t = getTimesToCoverage(coverage);
+            // NaN sorts last
+            Arrays.sort(t);
+            return t[(t.length - 1) / 2];
+        }
+
+        public int getRunsReaching(double coverage) {
+            return (int) Arrays.stream(getTimesToCoverage(coverage)).filter(t -> !Double.isNaN(t)).count();
+        }
+    }
+}
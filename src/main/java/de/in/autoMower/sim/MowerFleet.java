@@ -0,0 +1,233 @@
+package de.in.autoMower.sim;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Several mowers on the same ground, each with its own dock, mowing into one
+ * shared coverage grid. The mowers are advanced independently by the
+ * {@link SimulationScheduler} and only meet in the grid, see
+ * {@link CoverageGrid}.
+ */
+public class MowerFleet {
+
+    /** Simulated seconds between the samples of a paced run. */
+    static final double PACED_SAMPLE_SECONDS = 60;
+
+    private final GroundModel groundModel;
+    private final List<AbstractAutoMowerModel> mowers;
+    private volatile boolean cancelled = false;
+    /** Time, combined and own coverage of every mower, per sample. */
+    private final List<double[]> history = new ArrayList<>();
+    private ScheduledFuture<?> sampler;
+
+    public MowerFleet(GroundModel groundModel, List<AbstractAutoMowerModel> mowers) {
+        if (mowers.isEmpty())
+            throw new IllegalArgumentException("A fleet needs at least one mower");
+        this.groundModel = groundModel;
+        this.mowers = Collections.unmodifiableList(new ArrayList<>(mowers));
+    }
+
+    /**
+     * A fleet of {@code count} mowers: the given one at the charging station of
+     * the ground and copies of it with docks spread evenly along the border.
+     * The seeds of the copies are derived from the one of the given mower, so
+     * its seed repeats the paths of all mowers and the combined coverage. Which
+     * mower is credited with a cell mowed by several depends on the order the
+     * threads get there, see {@link #run(double, double)}.
+     */
+    public static MowerFleet create(GroundModel groundModel, AbstractAutoMowerModel first, int count) {
+        List<Point2D> docks = spreadDocks(groundModel, count);
+        long[] seeds = SeededRandom.seeds(first.getSeed(), count);
+        List<AbstractAutoMowerModel> mowers = new ArrayList<>();
+        mowers.add(first);
+        for (int i = 1; i < count; i++) {
+            AbstractAutoMowerModel mower = first.createConfiguredCopy();
+            mower.setDock(docks.get(i));
+            mower.setSeed(seeds[i]);
+            mowers.add(mower);
+        }
+        return new MowerFleet(groundModel, mowers);
+    }
+
+    /**
+     * {@code count} points on the border at equal distances along it, starting
+     * at the point closest to the charging station.
+     */
+    static List<Point2D> spreadDocks(GroundModel groundModel, int count) {
+        Point2D station = groundModel.getChargingStation();
+        double start = station == null ? 0 : groundModel.getDistOnPerimeter(station);
+        double length = groundModel.getPerimeterLength();
+        List<Point2D> docks = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            docks.add(groundModel.getPointAtDistOnPerimeter(start + i * length / count));
+        return docks;
+    }
+
+    public List<AbstractAutoMowerModel> getMowers() {
+        return mowers;
+    }
+
+    public void cancel() {
+        cancelled = true;
+        for (AbstractAutoMowerModel mower : mowers)
+            mower.cancel();
+        synchronized (this) {
+            if (sampler != null)
+                sampler.cancel(false);
+        }
+    }
+
+    /**
+     * Places every mower at its dock and lets all of them mow into one grid.
+     *
+     * @return false if a mower could not be placed on the ground
+     */
+    public boolean prepare() {
+        for (AbstractAutoMowerModel mower : mowers)
+            if (!mower.prepare(null, groundModel))
+                return false;
+        CoverageGrid grid = mowers.get(0).getCoverage();
+        for (AbstractAutoMowerModel mower : mowers)
+            mower.useCoverage(grid);
+        synchronized (this) {
+            history.clear();
+        }
+        return true;
+    }
+
+    /**
+     * Prepares the fleet and starts the paced driver of every mower. The
+     * coverage is sampled every {@link #PACED_SAMPLE_SECONDS} of simulated time,
+     * see {@link #getHistory()}.
+     */
+    public void start() {
+        if (!prepare())
+            return;
+        for (AbstractAutoMowerModel mower : mowers)
+            mower.startPaced();
+        synchronized (this) {
+            if (sampler != null)
+                sampler.cancel(false);
+            sampler = SimulationScheduler.getDefault().every(SimulationScheduler.UI_UPDATE_MILLIS, this::samplePaced);
+        }
+    }
+
+    /**
+     * Records a sample once the slowest mower is {@link #PACED_SAMPLE_SECONDS}
+     * past the last one. The paced mowers are not held at the sample time, so
+     * the sample is taken at the time of the slowest one.
+     */
+    private void samplePaced() {
+        MowerSnapshot[] snapshots = new MowerSnapshot[mowers.size()];
+        double time = Double.MAX_VALUE;
+        for (int i = 0; i < snapshots.length; i++) {
+            snapshots[i] = mowers.get(i).getSnapshot();
+            time = Math.min(time, snapshots[i].runtimeSeconds());
+        }
+        synchronized (this) {
+            if (!history.isEmpty() && time < history.get(history.size() - 1)[0] + PACED_SAMPLE_SECONDS)
+                return;
+        }
+        double[] own = new double[snapshots.length];
+        for (int i = 0; i < own.length; i++)
+            own[i] = snapshots[i].ownCoverage();
+        record(time, snapshots[0].coverage(), own);
+    }
+
+    private synchronized void record(double time, double combined, double[] own) {
+        double[] sample = new double[2 + own.length];
+        sample[0] = time;
+        sample[1] = combined;
+        System.arraycopy(own, 0, sample, 2, own.length);
+        history.add(sample);
+    }
+
+    /**
+     * The coverage sampled so far in this run, by {@link #run(double, double)} or
+     * while the fleet is paced.
+     */
+    public synchronized Result getHistory() {
+        int samples = history.size();
+        double[] times = new double[samples];
+        double[] combined = new double[samples];
+        double[][] own = new double[mowers.size()][samples];
+        for (int s = 0; s < samples; s++) {
+            double[] sample = history.get(s);
+            times[s] = sample[0];
+            combined[s] = sample[1];
+            for (int i = 0; i < own.length; i++)
+                own[i][s] = sample[2 + i];
+        }
+        return new Result(times, combined, own);
+    }
+
+    /**
+     * Simulates the prepared, headless fleet for {@code durationSeconds} with the
+     * mowers in parallel on the workers of the {@link SimulationScheduler} and
+     * samples the coverage every {@code sampleSeconds}. All mowers reach a
+     * sample time before any goes on. Between samples they race for the cells
+     * they both mow, so the shares of the mowers can differ from one run to the
+     * next even with the same seeds.
+     */
+    public Result run(double durationSeconds, double sampleSeconds) {
+        int samples = (int) Math.ceil(durationSeconds / sampleSeconds) + 1;
+
+        SimulationScheduler scheduler = SimulationScheduler.getDefault();
+        for (int s = 0; s < samples; s++) {
+            if (cancelled)
+                throw new CancellationException();
+            double time = Math.min(durationSeconds, s * sampleSeconds);
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (AbstractAutoMowerModel mower : mowers)
+                tasks.add(scheduler.submit(() -> mower.runEventsUntil(time)));
+            for (ForkJoinTask<?> task : tasks)
+                task.join();
+
+            double[] own = new double[mowers.size()];
+            for (int i = 0; i < own.length; i++)
+                own[i] = mowers.get(i).getOwnCoveragePercentage();
+            record(time, mowers.get(0).getCoveragePercentage(), own);
+        }
+        return getHistory();
+    }
+
+    /**
+     * Coverage of the whole fleet and the share each mower mowed first, sampled
+     * at common points in time. The shares of all mowers add up to the combined
+     * coverage.
+     */
+    public static class Result {
+
+        private final double[] times;
+        private final double[] combined;
+        private final double[][] own;
+
+        Result(double[] times, double[] combined, double[][] own) {
+            this.times = times;
+            this.combined = combined;
+            this.own = own;
+        }
+
+        public double[] getTimes() {
+            return times;
+        }
+
+        public double[] getCombined() {
+            return combined;
+        }
+
+        public int getMowerCount() {
+            return own.length;
+        }
+
+        public double[] getOwn(int mower) {
+            return own[mower];
+        }
+    }
+}
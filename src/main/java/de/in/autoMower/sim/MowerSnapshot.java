@@ -0,0 +1,35 @@
+package de.in.autoMower.sim;
+
+import java.awt.geom.Point2D;
+import java.util.Map;
+
+/**
+ * What the view shows of a mower, taken by the simulation at the end of a tick,
+ * see {@link AbstractAutoMowerModel#getSnapshot()}. All values belong to the
+ * same moment of the run. The points and arrays are copies owned by the
+ * snapshot and must not be modified.
+ *
+ * @param position         current position, null before the first run
+ * @param segmentStart     start of the segment the mower is driving, or null
+ * @param transitionTarget target on the border while changing zones, or null
+ * @param dock             own charging station, null to use the one of the ground
+ * @param batteryPercent   charge of the battery from 0 to 1
+ * @param coverage         mowed share of the area, of all mowers sharing the grid
+ * @param ownCoverage      share of the area this mower mowed first
+ * @param zoneCoverage     mowed share of each zone
+ * @param zoneStats        what the model counts per zone, by zone index
+ * @param seed             seed of the random numbers of the run
+ */
+public record MowerSnapshot(Point2D position, Point2D segmentStart, Point2D transitionTarget, Point2D dock,
+		AbstractAutoMowerModel.State state, double batteryPercent, double runtimeSeconds, double coverage,
+		double ownCoverage, double[] zoneCoverage, Map<Integer, ? extends Number> zoneStats, int collisions,
+		int navigationErrors, double transitionDistanceMeters, long seed) {
+
+	public boolean isCharging() {
+		return state == AbstractAutoMowerModel.State.CHARGING;
+	}
+
+	public double getZoneCoverage(int zone) {
+		return zone >= 0 && zone < zoneCoverage.length ? zoneCoverage[zone] : 0;
+	}
+}
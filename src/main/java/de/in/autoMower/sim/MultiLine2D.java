@@ -8,12 +8,14 @@ import java.awt.Graphics2D;
 import java.awt.event.MouseEvent;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Line2D;
-import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.io.Serializable;
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * @author Till
@@ -24,7 +26,6 @@ public class MultiLine2D implements Serializable {
 
 	public static final int ED = 4;
 
-	protected List<Point2D> points = Collections.synchronizedList(new LinkedList<>());
 	protected Color color;
 	protected boolean closed = false;
 	protected Point2D highLightedPoint = null;
@@ -33,6 +34,16 @@ public class MultiLine2D implements Serializable {
 	protected boolean showIndices = false;
 	protected int numberingStartIndex = 0;
 	protected int numberingDirection = 1;
+	/**
+	 * Vertices as interleaved x/y pairs. Replaced on every change, so readers
+	 * take it once and work on a consistent state without locking.
+	 */
+	private volatile Coordinates coordinates = Coordinates.EMPTY;
+	/**
+	 * Incremented on every change of the geometry, lets caches detect stale data.
+	 */
+	protected transient volatile int modCount = 0;
+	private transient volatile CompiledPolygon compiledPolygon;
 
 	public MultiLine2D() {
 		this(Color.BLACK);
@@ -55,12 +66,68 @@ public class MultiLine2D implements Serializable {
 		this.numberingDirection = direction;
 	}
 
+	/**
+	 * Returns a live list view of the vertices. Elements are copies, changing a
+	 * returned point does not change the line; use the list methods instead.
+	 */
 	public List<Point2D> getPoints() {
-		return points;
+		return new PointsView();
 	}
 
 	public void addPoint(Point2D p) {
-		points.add(p);
+		insertPoint(-1, p.getX(), p.getY());
+	}
+
+	/**
+	 * Returns the vertices as they are right now. The result never changes.
+	 */
+	public Coordinates getCoordinates() {
+		return coordinates;
+	}
+
+	public int getModCount() {
+		return modCount;
+	}
+
+	private synchronized void insertPoint(int index, double x, double y) {
+		Coordinates c = coordinates;
+		int size = c.size;
+		if (index < 0 || index == size) {
+			// Appending only writes behind the end of older snapshots, so they can share
+			// the array
+			double[] xy = c.xy;
+			if (2 * size + 2 > xy.length)
+				xy = Arrays.copyOf(xy, Math.max(16, xy.length * 2));
+			xy[2 * size] = x;
+			xy[2 * size + 1] = y;
+			coordinates = new Coordinates(xy, size + 1);
+		} else {
+			double[] xy = new double[Math.max(16, 2 * size + 2)];
+			System.arraycopy(c.xy, 0, xy, 0, 2 * index);
+			xy[2 * index] = x;
+			xy[2 * index + 1] = y;
+			System.arraycopy(c.xy, 2 * index, xy, 2 * index + 2, 2 * (size - index));
+			coordinates = new Coordinates(xy, size + 1);
+		}
+		modCount++;
+	}
+
+	private synchronized void setPoint(int index, double x, double y) {
+		Coordinates c = coordinates;
+		double[] xy = Arrays.copyOf(c.xy, 2 * c.size);
+		xy[2 * index] = x;
+		xy[2 * index + 1] = y;
+		coordinates = new Coordinates(xy, c.size);
+		modCount++;
+	}
+
+	private synchronized void removePoint(int index) {
+		Coordinates c = coordinates;
+		double[] xy = new double[Math.max(16, 2 * c.size)];
+		System.arraycopy(c.xy, 0, xy, 0, 2 * index);
+		System.arraycopy(c.xy, 2 * index + 2, xy, 2 * index, 2 * (c.size - index - 1));
+		coordinates = new Coordinates(xy, c.size - 1);
+		modCount++;
 	}
 
 	public Point2D getPoint(MouseEvent me, AffineTransform at) {
@@ -70,32 +137,28 @@ public class MultiLine2D implements Serializable {
 
 	public void draw(Graphics2D g, AffineTransform at) {
 		g.setColor(color);
-		Point2D p1 = null;
-		Point2D first = null;
-
-		List<Point2D> safePoints;
-		synchronized (points) {
-			safePoints = new java.util.ArrayList<>(points);
-		}
+		Coordinates c = coordinates;
+		int size = c.size;
+		if (size == 0)
+			return;
 
 		if (showIndices) {
 			g.setFont(g.getFont().deriveFont(java.awt.Font.BOLD, 14f));
 		}
 
-		int index = 0;
-		for (Point2D p : safePoints) {
-			Point2D p2 = at.transform(p, new Point2D.Double());
-			if (first == null)
-				first = p2;
+		double[] screen = new double[2 * size];
+		at.transform(c.xy, 0, screen, 0, size);
+		for (int index = 0; index < size; index++) {
+			double x = screen[2 * index];
+			double y = screen[2 * index + 1];
 			if (drawPoints) {
-				g.drawOval((int) (p2.getX() - MultiLine2D.ED / 2), (int) (p2.getY() - MultiLine2D.ED / 2), ED, ED);
+				g.drawOval((int) (x - MultiLine2D.ED / 2), (int) (y - MultiLine2D.ED / 2), ED, ED);
 			}
 			if (showIndices) {
-				int size = safePoints.size();
 				int num = ((index - numberingStartIndex) * numberingDirection + size) % size + 1;
 				String s = String.valueOf(num);
-				int tx = (int) p2.getX() + 5;
-				int ty = (int) p2.getY() - 5;
+				int tx = (int) x + 5;
+				int ty = (int) y - 5;
 				// Draw shadow
 				g.setColor(Color.BLACK);
 				g.drawString(s, tx + 1, ty + 1);
@@ -104,43 +167,36 @@ public class MultiLine2D implements Serializable {
 				g.drawString(s, tx, ty);
 				g.setColor(color);
 			}
-			if (p1 != null)
-				g.drawLine((int) (p1.getX()), (int) (p1.getY()), (int) (p2.getX()), (int) (p2.getY()));
-			p1 = p2;
-			index++;
+			if (index > 0)
+				g.drawLine((int) screen[2 * index - 2], (int) screen[2 * index - 1], (int) x, (int) y);
 		}
 
-		if (closed && p1 != null)
-			g.drawLine((int) (p1.getX()), (int) (p1.getY()), (int) (first.getX()), (int) (first.getY()));
+		if (closed)
+			g.drawLine((int) screen[2 * size - 2], (int) screen[2 * size - 1], (int) screen[0], (int) screen[1]);
 	}
 
 	public int getNumberOfPoints() {
-		return points.size();
+		return coordinates.size;
 	}
 
 	public void closePath() {
 		closed = true;
+		modCount++;
 	}
 
 	public Line2D getLine2D(Point2D tp) {
-		Point2D p1 = null;
-		Point2D first = null;
-		synchronized (points) {
-			for (Point2D p2 : points) {
-				if (first == null)
-					first = p2;
-				if (Math.abs(p2.getX() - tp.getX()) < ED && Math.abs(p2.getY() - tp.getY()) < ED)
-					return null;
-				if (p1 != null) {
-					Line2D.Double line = new Line2D.Double(p1, p2);
-					if (line.ptSegDist(tp) < ED)
-						return line;
-				}
-				p1 = p2;
+		Coordinates c = coordinates;
+		for (int i = 0; i < c.size; i++) {
+			if (Math.abs(c.getX(i) - tp.getX()) < ED && Math.abs(c.getY(i) - tp.getY()) < ED)
+				return null;
+			if (i > 0) {
+				Line2D.Double line = new Line2D.Double(c.getX(i - 1), c.getY(i - 1), c.getX(i), c.getY(i));
+				if (line.ptSegDist(tp) < ED)
+					return line;
 			}
 		}
-		if (closed && p1 != null) {
-			Line2D.Double line = new Line2D.Double(p1, first);
+		if (closed && c.size > 0) {
+			Line2D.Double line = new Line2D.Double(c.getX(c.size - 1), c.getY(c.size - 1), c.getX(0), c.getY(0));
 			if (line.ptSegDist(tp) < ED)
 				return line;
 		}
@@ -148,38 +204,43 @@ public class MultiLine2D implements Serializable {
 	}
 
 	public Point2D getPoint(Point2D tp) {
-		for (Point2D p : points)
-			if (Math.abs(p.getX() - tp.getX()) < ED && Math.abs(p.getY() - tp.getY()) < ED)
-				return p;
+		Coordinates c = coordinates;
+		for (int i = 0; i < c.size; i++)
+			if (Math.abs(c.getX(i) - tp.getX()) < ED && Math.abs(c.getY(i) - tp.getY()) < ED)
+				return c.getPoint(i);
 		return null;
 	}
 
 	public Line2D getLine(int number) {
-		if (points.size() > number + 1)
-			return new Line2D.Double(points.get(number), points.get(number + 1));
-		if (points.size() == number + 1)
-			return new Line2D.Double(points.get(number), points.get(0));
+		Coordinates c = coordinates;
+		if (c.size > number + 1)
+			return new Line2D.Double(c.getX(number), c.getY(number), c.getX(number + 1), c.getY(number + 1));
+		if (c.size == number + 1)
+			return new Line2D.Double(c.getX(number), c.getY(number), c.getX(0), c.getY(0));
 		return null;
 	}
 
 	public Point2D getPoint(int number) {
-		if (points.size() > number)
-			return points.get(number);
+		Coordinates c = coordinates;
+		if (c.size > number)
+			return c.getPoint(number);
 		return null;
 	}
 
 	public boolean contains(Point2D p) {
-		if (!closed || points.size() < 3)
+		if (!closed || coordinates.size < 3)
 			return false;
-		Path2D path = new Path2D.Double();
-		synchronized (points) {
-			path.moveTo(points.get(0).getX(), points.get(0).getY());
-			for (int i = 1; i < points.size(); i++) {
-				path.lineTo(points.get(i).getX(), points.get(i).getY());
-			}
-			path.closePath();
+		return getCompiledPolygon().contains(p.getX(), p.getY());
+	}
+
+	private CompiledPolygon getCompiledPolygon() {
+		CompiledPolygon polygon = compiledPolygon;
+		int mod = modCount;
+		if (polygon == null || polygon.getModCount() != mod) {
+			polygon = new CompiledPolygon(coordinates, mod);
+			compiledPolygon = polygon;
 		}
-		return path.contains(p);
+		return polygon;
 	}
 
 	/**
@@ -188,85 +249,149 @@ public class MultiLine2D implements Serializable {
 	 * @return area in square pixels
 	 */
 	public double getArea() {
-		if (!closed || points.size() < 3)
+		Coordinates c = coordinates;
+		if (!closed || c.size < 3)
 			return 0;
 		double area = 0;
-		synchronized (points) {
-			int j = points.size() - 1;
-			for (int i = 0; i < points.size(); i++) {
-				area += (points.get(j).getX() + points.get(i).getX()) * (points.get(j).getY() - points.get(i).getY());
-				j = i;
-			}
+		int j = c.size - 1;
+		for (int i = 0; i < c.size; i++) {
+			area += (c.getX(j) + c.getX(i)) * (c.getY(j) - c.getY(i));
+			j = i;
 		}
 		return Math.abs(area / 2.0);
 	}
 
 	public double ptSegDist(Point2D p) {
+		Coordinates c = coordinates;
+		if (c.size == 0)
+			return Double.MAX_VALUE;
 		double minDist = Double.MAX_VALUE;
-		Point2D p1 = null;
-		Point2D first = null;
-		synchronized (points) {
-			if (points.isEmpty())
-				return Double.MAX_VALUE;
-			for (Point2D p2 : points) {
-				if (first == null)
-					first = p2;
-				if (p1 != null) {
-					minDist = Math.min(minDist, new Line2D.Double(p1, p2).ptSegDist(p));
-				}
-				p1 = p2;
-			}
-			if (closed && p1 != null && first != null) {
-				minDist = Math.min(minDist, new Line2D.Double(p1, first).ptSegDist(p));
-			}
+		double px = p.getX();
+		double py = p.getY();
+		for (int i = 1; i < c.size; i++) {
+			minDist = Math.min(minDist, Line2D.ptSegDist(c.getX(i - 1), c.getY(i - 1), c.getX(i), c.getY(i), px, py));
+		}
+		if (closed) {
+			minDist = Math.min(minDist,
+					Line2D.ptSegDist(c.getX(c.size - 1), c.getY(c.size - 1), c.getX(0), c.getY(0), px, py));
 		}
 		return minDist;
 	}
 
 	public Line2D getCollidingLine(Line2D checkLine) {
-		Point2D p1 = null;
-		Point2D first = null;
-		synchronized (points) {
-			for (Point2D p2 : points) {
-				if (first == null)
-					first = p2;
-				if (p1 != null) {
-					Line2D.Double l = new Line2D.Double(p1, p2);
-					if (l.intersectsLine(checkLine)) {
-						return l;
-					}
-				}
-				p1 = p2;
+		Coordinates c = coordinates;
+		for (int i = 1; i < c.size; i++) {
+			Line2D.Double l = new Line2D.Double(c.getX(i - 1), c.getY(i - 1), c.getX(i), c.getY(i));
+			if (l.intersectsLine(checkLine)) {
+				return l;
 			}
-			if (closed && p1 != null) {
-				Line2D.Double l = new Line2D.Double(p1, first);
-				if (l.intersectsLine(checkLine)) {
-					return l;
-				}
+		}
+		if (closed && c.size > 0) {
+			Line2D.Double l = new Line2D.Double(c.getX(c.size - 1), c.getY(c.size - 1), c.getX(0), c.getY(0));
+			if (l.intersectsLine(checkLine)) {
+				return l;
 			}
 		}
 		return null;
 	}
 
 	public java.awt.Rectangle getBounds() {
-		if (points.isEmpty())
+		Coordinates c = coordinates;
+		if (c.size == 0)
 			return new java.awt.Rectangle(0, 0, 0, 0);
 		double minX = Double.MAX_VALUE;
 		double minY = Double.MAX_VALUE;
 		double maxX = -Double.MAX_VALUE;
 		double maxY = -Double.MAX_VALUE;
-		synchronized (points) {
-			for (Point2D p : points) {
-				if (p.getX() < minX)
-					minX = p.getX();
-				if (p.getY() < minY)
-					minY = p.getY();
-				if (p.getX() > maxX)
-					maxX = p.getX();
-				if (p.getY() > maxY)
-					maxY = p.getY();
-			}
+		for (int i = 0; i < c.size; i++) {
+			minX = Math.min(minX, c.getX(i));
+			minY = Math.min(minY, c.getY(i));
+			maxX = Math.max(maxX, c.getX(i));
+			maxY = Math.max(maxY, c.getY(i));
 		}
 		return new java.awt.Rectangle((int) minX, (int) minY, (int) (maxX - minX), (int) (maxY - minY));
 	}
+
+	/**
+	 * An immutable state of the vertices of a line.
+	 */
+	public static final class Coordinates implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+		static final Coordinates EMPTY = new Coordinates(new double[0], 0);
+
+		private final double[] xy;
+		private final int size;
+
+		private Coordinates(double[] xy, int size) {
+			this.xy = xy;
+			this.size = size;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public double getX(int index) {
+			return xy[2 * index];
+		}
+
+		public double getY(int index) {
+			return xy[2 * index + 1];
+		}
+
+		public Point2D getPoint(int index) {
+			return new Point2D.Double(xy[2 * index], xy[2 * index + 1]);
+		}
+
+		public List<Point2D> toList() {
+			List<Point2D> result = new ArrayList<>(size);
+			for (int i = 0; i < size; i++)
+				result.add(getPoint(i));
+			return result;
+		}
+	}
+
+	/**
+	 * List view for code that works with points. Iterators work on a snapshot.
+	 */
+	private class PointsView extends AbstractList<Point2D> {
+
+		@Override
+		public Point2D get(int index) {
+			Coordinates c = coordinates;
+			Objects.checkIndex(index, c.size);
+			return c.getPoint(index);
+		}
+
+		@Override
+		public int size() {
+			return coordinates.size;
+		}
+
+		@Override
+		public Point2D set(int index, Point2D p) {
+			Point2D old = get(index);
+			setPoint(index, p.getX(), p.getY());
+			return old;
+		}
+
+		@Override
+		public void add(int index, Point2D p) {
+			Objects.checkIndex(index, size() + 1);
+			insertPoint(index, p.getX(), p.getY());
+		}
+
+		@Override
+		public Point2D remove(int index) {
+			Point2D old = get(index);
+			removePoint(index);
+			return old;
+		}
+
+		@Override
+		public Iterator<Point2D> iterator() {
+			return coordinates.toList().iterator();
+		}
+	}
 }
\ No newline at end of file
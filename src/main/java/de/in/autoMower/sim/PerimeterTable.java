@@ -0,0 +1,247 @@
+package de.in.autoMower.sim;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+
+/**
+ * Cumulative arc lengths along the border in numbering order, plus a grid over
+ * the border segments for nearest segment queries.
+ * <p>
+ * All lengths are summed in the same order as the walks GroundModel did
+ * before, so the results are bit for bit the same. A table is immutable and
+ * describes the border at the time it was built, see {@link #matches}.
+ */
+final class PerimeterTable {
+
+	private static final int MAX_CELLS_PER_AXIS = 256;
+
+	private final MultiLine2D border;
+	private final int modCount;
+	private final int startIndex;
+	private final int direction;
+
+	private final int n;
+	private final double[] xs, ys;
+	/** Walked distance from the start vertex to each vertex. */
+	private final double[] walked;
+	/** Walked distance at the end of the k-th segment in walking order. */
+	private final double[] segmentEnds;
+	/** Sum of all edges in index order, as getPerimeterLength computed it. */
+	private final double length;
+
+	private final double minX, minY, cellWidth, cellHeight;
+	private final int cols, rows;
+	private final int[] cellStart;
+	private final int[] cellSegments;
+
+	PerimeterTable(MultiLine2D border) {
+		this.border = border;
+		this.modCount = border.getModCount();
+		this.startIndex = border.numberingStartIndex;
+		this.direction = border.numberingDirection;
+
+		MultiLine2D.Coordinates c = border.getCoordinates();
+		n = c.size();
+		xs = new double[n];
+		ys = new double[n];
+		for (int i = 0; i < n; i++) {
+			xs[i] = c.getX(i);
+			ys[i] = c.getY(i);
+		}
+
+		walked = new double[n];
+		segmentEnds = new double[n];
+		int curr = startIndex;
+		for (int k = 0; k < n; k++) {
+			int next = (curr + direction + n) % n;
+			segmentEnds[k] = walked[curr] + distance(curr, next);
+			if (k < n - 1)
+				walked[next] = segmentEnds[k];
+			curr = next;
+		}
+
+		double total = 0;
+		for (int i = 0; i < n; i++)
+			total += distance(i, (i + 1) % n);
+		length = n < 2 ? 0 : total;
+
+		// Grid over segment i -> i + 1, registered in all cells of its bounding box
+		double x0 = Double.MAX_VALUE, y0 = Double.MAX_VALUE, x1 = -Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
+		for (int i = 0; i < n; i++) {
+			x0 = Math.min(x0, xs[i]);
+			y0 = Math.min(y0, ys[i]);
+			x1 = Math.max(x1, xs[i]);
+			y1 = Math.max(y1, ys[i]);
+		}
+		if (n == 0)
+			x0 = y0 = x1 = y1 = 0;
+		minX = x0;
+		minY = y0;
+		double width = Math.max(x1 - x0, 1e-9);
+		double height = Math.max(y1 - y0, 1e-9);
+		double cell = Math.sqrt(width * height / Math.max(1, n));
+		cols = Math.max(1, Math.min(MAX_CELLS_PER_AXIS, (int) Math.ceil(width / cell)));
+		rows = Math.max(1, Math.min(MAX_CELLS_PER_AXIS, (int) Math.ceil(height / cell)));
+		cellWidth = width / cols;
+		cellHeight = height / rows;
+
+		cellStart = new int[cols * rows + 1];
+		for (int i = 0; i < n; i++)
+			forEachCell(i, cellIndex -> cellStart[cellIndex + 1]++);
+		for (int k = 0; k < cols * rows; k++)
+			cellStart[k + 1] += cellStart[k];
+		cellSegments = new int[cellStart[cols * rows]];
+		int[] fill = cellStart.clone();
+		for (int i = 0; i < n; i++) {
+			int id = i;
+			forEachCell(i, cellIndex -> cellSegments[fill[cellIndex]++] = id);
+		}
+	}
+
+	/** Same as Point2D.distance, which is not hypot. */
+	private double distance(int from, int to) {
+		double dx = xs[to] - xs[from];
+		double dy = ys[to] - ys[from];
+		return Math.sqrt(dx * dx + dy * dy);
+	}
+
+	private void forEachCell(int segment, java.util.function.IntConsumer action) {
+		int next = (segment + 1) % n;
+		int cx0 = col(Math.min(xs[segment], xs[next]));
+		int cx1 = col(Math.max(xs[segment], xs[next]));
+		int cy0 = row(Math.min(ys[segment], ys[next]));
+		int cy1 = row(Math.max(ys[segment], ys[next]));
+		for (int cy = cy0; cy <= cy1; cy++)
+			for (int cx = cx0; cx <= cx1; cx++)
+				action.accept(cy * cols + cx);
+	}
+
+	private int col(double x) {
+		return Math.max(0, Math.min(cols - 1, (int) Math.floor((x - minX) / cellWidth)));
+	}
+
+	private int row(double y) {
+		return Math.max(0, Math.min(rows - 1, (int) Math.floor((y - minY) / cellHeight)));
+	}
+
+	/**
+	 * @return true if the table still describes the border and its numbering
+	 */
+	boolean matches(MultiLine2D border) {
+		return border == this.border && border.getModCount() == modCount && border.numberingStartIndex == startIndex
+				&& border.numberingDirection == direction;
+	}
+
+	int getVertexCount() {
+		return n;
+	}
+
+	double getLength() {
+		return length;
+	}
+
+	/**
+	 * Index of the segment i -> i + 1 closest to the point, the lowest index if
+	 * several are equally close.
+	 */
+	int nearestSegment(double px, double py) {
+		if (n == 0)
+			return -1;
+		if (!(px >= minX && px <= minX + cols * cellWidth && py >= minY && py <= minY + rows * cellHeight))
+			return nearestSegmentLinear(px, py);
+
+		int cx = col(px);
+		int cy = row(py);
+		double best = Double.MAX_VALUE;
+		int bestSegment = -1;
+		for (int ring = 0;; ring++) {
+			int x0 = cx - ring, x1 = cx + ring, y0 = cy - ring, y1 = cy + ring;
+			for (int y = Math.max(0, y0); y <= Math.min(rows - 1, y1); y++) {
+				for (int x = Math.max(0, x0); x <= Math.min(cols - 1, x1); x++) {
+					// Only the outline of the square is new
+					if (y != y0 && y != y1 && x != x0 && x != x1)
+						continue;
+					int cell = y * cols + x;
+					for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+						int i = cellSegments[k];
+						int next = (i + 1) % n;
+						double d = Line2D.ptSegDist(xs[i], ys[i], xs[next], ys[next], px, py);
+						if (d < best || (d == best && i < bestSegment)) {
+							best = d;
+							bestSegment = i;
+						}
+					}
+				}
+			}
+			if (x0 <= 0 && y0 <= 0 && x1 >= cols - 1 && y1 >= rows - 1)
+				return bestSegment;
+			// Segments in no visited cell are at least this far away
+			double bound = Double.MAX_VALUE;
+			if (x0 > 0)
+				bound = Math.min(bound, px - (minX + x0 * cellWidth));
+			if (x1 < cols - 1)
+				bound = Math.min(bound, minX + (x1 + 1) * cellWidth - px);
+			if (y0 > 0)
+				bound = Math.min(bound, py - (minY + y0 * cellHeight));
+			if (y1 < rows - 1)
+				bound = Math.min(bound, minY + (y1 + 1) * cellHeight - py);
+			if (bestSegment >= 0 && bound > best * (1 + 1e-9) + 1e-9)
+				return bestSegment;
+		}
+	}
+
+	private int nearestSegmentLinear(double px, double py) {
+		double best = Double.MAX_VALUE;
+		int bestSegment = -1;
+		for (int i = 0; i < n; i++) {
+			int next = (i + 1) % n;
+			double d = Line2D.ptSegDist(xs[i], ys[i], xs[next], ys[next], px, py);
+			if (d < best) {
+				best = d;
+				bestSegment = i;
+			}
+		}
+		return bestSegment;
+	}
+
+	/**
+	 * Walked distance from the start vertex to the start of the nearest segment,
+	 * plus the distance from there to the point.
+	 */
+	double getDistOnPerimeter(double px, double py) {
+		int segment = nearestSegment(px, py);
+		if (segment < 0)
+			return 0;
+		double dx = px - xs[segment];
+		double dy = py - ys[segment];
+		return walked[segment] + Math.sqrt(dx * dx + dy * dy);
+	}
+
+	/**
+	 * The point at the given distance from the start vertex in walking order.
+	 */
+	Point2D getPointAtDistOnPerimeter(double dist) {
+		dist = dist % length;
+		if (dist < 0)
+			dist += length;
+
+		// First segment that ends at or after dist
+		int k = Arrays.binarySearch(segmentEnds, dist);
+		if (k < 0) {
+			k = -k - 1;
+		} else {
+			while (k > 0 && segmentEnds[k - 1] == dist)
+				k--;
+		}
+		if (k >= n)
+			return new Point2D.Double(xs[startIndex], ys[startIndex]);
+
+		int curr = ((startIndex + k * direction) % n + n) % n;
+		int next = (curr + direction + n) % n;
+		double segLen = distance(curr, next);
+		double currentDist = walked[curr];
+		double t = (dist - currentDist) / segLen;
+		return new Point2D.Double(xs[curr] + t * (xs[next] - xs[curr]), ys[curr] + t * (ys[next] - ys[curr]));
+	}
+}
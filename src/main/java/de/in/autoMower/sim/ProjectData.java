@@ -59,7 +59,7 @@ public class ProjectData implements Serializable {
         }
 
         public MultiLineDTO(MultiLine2D ml) {
-            this.points = ml.points.stream().map(PointDTO::new).collect(Collectors.toList());
+            this.points = ml.getPoints().stream().map(PointDTO::new).collect(Collectors.toList());
             this.colorRGB = ml.color.getRGB();
             this.closed = ml.closed;
         }
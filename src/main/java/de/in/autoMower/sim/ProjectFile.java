@@ -0,0 +1,322 @@
+package de.in.autoMower.sim;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The binary project format, next to the JSON one. Opening a JSON project with
+ * a large photo means parsing a huge string, base64 decoding and PNG decoding
+ * it; here the geometry is stored in packed sections and the photo as raw
+ * pixels, and the file is read through a memory mapping, so the pixels are
+ * copied straight into the image.
+ * <p>
+ * Layout, little endian: magic, version, then sections of tag, length and
+ * payload, each padded to 8 bytes. Readers skip sections they do not know.
+ * <ul>
+ * <li>ground: calibration, charging station, border, obstacles, zone
+ * points</li>
+ * <li>mower: model version and settings, see {@link ProjectData.MowerDTO}</li>
+ * <li>image: width, height, alpha flag, then one int ARGB per pixel, row by
+ * row</li>
+ * </ul>
+ */
+final class ProjectFile {
+
+	static final String EXTENSION = "amp";
+
+	/** "AMPF" in the file. */
+	private static final int MAGIC = 0x46504D41;
+	private static final int VERSION = 1;
+
+	private static final int GROUND = 1;
+	private static final int MOWER = 2;
+	private static final int IMAGE = 3;
+
+	/** Rows of pixels converted per copy. */
+	private static final int BAND_ROWS = 64;
+
+	private final ProjectData data;
+	private final BufferedImage image;
+
+	/**
+	 * @param data  the project without {@link ProjectData#backgroundImageBase64}
+	 * @param image the background image, or null
+	 */
+	ProjectFile(ProjectData data, BufferedImage image) {
+		this.data = data;
+		this.image = image;
+	}
+
+	ProjectData getData() {
+		return data;
+	}
+
+	BufferedImage getImage() {
+		return image;
+	}
+
+	/**
+	 * Whether the file starts like a binary project.
+	 */
+	static boolean isProjectFile(File file) {
+		try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+			return Integer.reverseBytes(in.readInt()) == MAGIC;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	static ProjectFile read(File file) throws IOException {
+		return read(file, true);
+	}
+
+	/**
+	 * @param withImage false to skip the background image, e.g. for headless
+	 *                  runs
+	 */
+	static ProjectFile read(File file, boolean withImage) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException("Project file too large: " + file);
+			MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, size);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			if (size < 8 || buffer.getInt() != MAGIC)
+				throw new IOException("Not a project file: " + file);
+			int version = buffer.getInt();
+			if (version > VERSION)
+				throw new IOException("Unsupported project file version " + version + ": " + file);
+
+			ProjectData data = new ProjectData();
+			BufferedImage image = null;
+			while (buffer.remaining() >= 8) {
+				int tag = buffer.getInt();
+				int length = buffer.getInt();
+				if (length < 0 || length > buffer.remaining())
+					throw new IOException("Truncated project file: " + file);
+				ByteBuffer section = buffer.slice(buffer.position(), length).order(ByteOrder.LITTLE_ENDIAN);
+				switch (tag) {
+				case GROUND:
+					readGround(section, data);
+					break;
+				case MOWER:
+					data.mower = readMower(section);
+					break;
+				case IMAGE:
+					if (withImage)
+						image = readImage(section);
+					break;
+				default:
+					// Written by a newer version
+				}
+				buffer.position(Math.min(buffer.limit(), buffer.position() + padded(length)));
+			}
+			return new ProjectFile(data, image);
+		}
+	}
+
+	void write(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).flip();
+			writeFully(channel, header);
+
+			writeSection(channel, GROUND, groundSection());
+			if (data.mower != null)
+				writeSection(channel, MOWER, mowerSection(data.mower));
+			if (image != null)
+				writeImage(channel, image);
+		}
+	}
+
+	// --- Ground ---
+
+	private ByteBuffer groundSection() {
+		int size = 8 + 17 + multiLineSize(data.border) + 4;
+		if (data.obstacles != null)
+			for (ProjectData.MultiLineDTO obstacle : data.obstacles)
+				size += multiLineSize(obstacle);
+		size += 4 + (data.zonePoints == null ? 0 : data.zonePoints.size() * 20);
+
+		ByteBuffer out = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+		out.putDouble(data.calibration);
+		putPoint(out, data.chargingStation);
+		putMultiLine(out, data.border);
+		out.putInt(data.obstacles == null ? 0 : data.obstacles.size());
+		if (data.obstacles != null)
+			for (ProjectData.MultiLineDTO obstacle : data.obstacles)
+				putMultiLine(out, obstacle);
+		out.putInt(data.zonePoints == null ? 0 : data.zonePoints.size());
+		if (data.zonePoints != null) {
+			for (ProjectData.ZonePointDTO zone : data.zonePoints) {
+				out.putDouble(zone.x).putDouble(zone.y);
+				out.putInt(zone.percentage);
+			}
+		}
+		return out.flip();
+	}
+
+	private static void readGround(ByteBuffer in, ProjectData data) {
+		data.calibration = in.getDouble();
+		data.chargingStation = getPoint(in);
+		data.border = getMultiLine(in);
+		int obstacles = in.getInt();
+		data.obstacles = new ArrayList<>(obstacles);
+		for (int i = 0; i < obstacles; i++)
+			data.obstacles.add(getMultiLine(in));
+		int zones = in.getInt();
+		data.zonePoints = new ArrayList<>(zones);
+		for (int i = 0; i < zones; i++) {
+			ProjectData.ZonePointDTO zone = new ProjectData.ZonePointDTO();
+			zone.x = in.getDouble();
+			zone.y = in.getDouble();
+			zone.percentage = in.getInt();
+			data.zonePoints.add(zone);
+		}
+	}
+
+	private static int multiLineSize(ProjectData.MultiLineDTO line) {
+		return 4 + 1 + 4 + (line == null || line.points == null ? 0 : line.points.size() * 16);
+	}
+
+	private static void putMultiLine(ByteBuffer out, ProjectData.MultiLineDTO line) {
+		List<ProjectData.PointDTO> points = line == null || line.points == null ? List.of() : line.points;
+		out.putInt(line == null ? 0 : line.colorRGB);
+		out.put((byte) (line != null && line.closed ? 1 : 0));
+		out.putInt(points.size());
+		for (ProjectData.PointDTO p : points)
+			out.putDouble(p.x).putDouble(p.y);
+	}
+
+	private static ProjectData.MultiLineDTO getMultiLine(ByteBuffer in) {
+		ProjectData.MultiLineDTO line = new ProjectData.MultiLineDTO();
+		line.colorRGB = in.getInt();
+		line.closed = in.get() != 0;
+		int count = in.getInt();
+		line.points = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			ProjectData.PointDTO p = new ProjectData.PointDTO();
+			p.x = in.getDouble();
+			p.y = in.getDouble();
+			line.points.add(p);
+		}
+		return line;
+	}
+
+	private static void putPoint(ByteBuffer out, ProjectData.PointDTO p) {
+		out.put((byte) (p == null ? 0 : 1));
+		out.putDouble(p == null ? 0 : p.x).putDouble(p == null ? 0 : p.y);
+	}
+
+	private static ProjectData.PointDTO getPoint(ByteBuffer in) {
+		boolean present = in.get() != 0;
+		ProjectData.PointDTO p = new ProjectData.PointDTO();
+		p.x = in.getDouble();
+		p.y = in.getDouble();
+		return present ? p : null;
+	}
+
+	// --- Mower ---
+
+	private static ByteBuffer mowerSection(ProjectData.MowerDTO mower) {
+		ByteBuffer out = ByteBuffer.allocate(4 + 5 * 8 + 17).order(ByteOrder.LITTLE_ENDIAN);
+		out.putInt(mower.version);
+		out.putDouble(mower.speedInCmPerSec).putDouble(mower.mowingWidthInCm);
+		out.putDouble(mower.batteryCapacityWh).putDouble(mower.energyConsumptionWhPerCm)
+				.putDouble(mower.chargeRateWhPerSec);
+		putPoint(out, mower.currentPosition);
+		return out.flip();
+	}
+
+	private static ProjectData.MowerDTO readMower(ByteBuffer in) {
+		ProjectData.MowerDTO mower = new ProjectData.MowerDTO();
+		mower.version = in.getInt();
+		mower.speedInCmPerSec = in.getDouble();
+		mower.mowingWidthInCm = in.getDouble();
+		mower.batteryCapacityWh = in.getDouble();
+		mower.energyConsumptionWhPerCm = in.getDouble();
+		mower.chargeRateWhPerSec = in.getDouble();
+		mower.currentPosition = getPoint(in);
+		return mower;
+	}
+
+	// --- Image ---
+
+	private static void writeImage(FileChannel channel, BufferedImage image) throws IOException {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		long length = 16 + 4L * width * height;
+		if (length > Integer.MAX_VALUE)
+			throw new IOException("Image too large for a project file: " + width + "x" + height);
+
+		ByteBuffer header = ByteBuffer.allocate(8 + 16).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(IMAGE).putInt((int) length);
+		header.putInt(width).putInt(height).putInt(image.getColorModel().hasAlpha() ? 1 : 0).putInt(0);
+		writeFully(channel, header.flip());
+
+		int[] band = new int[width * Math.min(BAND_ROWS, height)];
+		ByteBuffer out = ByteBuffer.allocateDirect(4 * band.length).order(ByteOrder.LITTLE_ENDIAN);
+		for (int y = 0; y < height; y += BAND_ROWS) {
+			int rows = Math.min(BAND_ROWS, height - y);
+			image.getRGB(0, y, width, rows, band, 0, width);
+			out.clear();
+			out.asIntBuffer().put(band, 0, rows * width);
+			out.limit(4 * rows * width);
+			writeFully(channel, out);
+		}
+		writeFully(channel, ByteBuffer.allocate(padded((int) length) - (int) length));
+	}
+
+	private static BufferedImage readImage(ByteBuffer in) {
+		int width = in.getInt();
+		int height = in.getInt();
+		boolean alpha = in.getInt() != 0;
+		in.getInt();
+		BufferedImage image = new BufferedImage(width, height,
+				alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+		// Through the raster, taking the data buffer would make the image unmanaged
+		WritableRaster raster = image.getRaster();
+		IntBuffer pixels = in.asIntBuffer();
+		int[] band = new int[width * Math.min(BAND_ROWS, height)];
+		for (int y = 0; y < height; y += BAND_ROWS) {
+			int rows = Math.min(BAND_ROWS, height - y);
+			pixels.get(band, 0, rows * width);
+			raster.setDataElements(0, y, width, rows, band);
+		}
+		return image;
+	}
+
+	// --- Helpers ---
+
+	private static void writeSection(FileChannel channel, int tag, ByteBuffer payload) throws IOException {
+		int length = payload.remaining();
+		ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(tag).putInt(length).flip();
+		writeFully(channel, header);
+		writeFully(channel, payload);
+		writeFully(channel, ByteBuffer.allocate(padded(length) - length));
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+	}
+
+	private static int padded(int length) {
+		return (length + 7) & ~7;
+	}
+}
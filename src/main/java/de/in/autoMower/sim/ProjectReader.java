@@ -0,0 +1,132 @@
+package de.in.autoMower.sim;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads a JSON project with a streaming parser. The geometry, zones and mower
+ * settings are bound as they come; the background image is base64 decoded
+ * straight from the parser into PNG bytes, without building the string, or
+ * skipped. Decoding the PNG, the slow part, is left to the caller, so it can
+ * happen on a worker after the ground is already usable.
+ */
+final class ProjectReader {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final ProjectData data;
+	private final byte[] imageBytes;
+
+	private ProjectReader(ProjectData data, byte[] imageBytes) {
+		this.data = data;
+		this.imageBytes = imageBytes;
+	}
+
+	/**
+	 * @param withImage false to skip the background image, e.g. for headless
+	 *                  runs that never look at the pixels
+	 */
+	static ProjectReader read(File file, boolean withImage) throws IOException {
+		ProjectData data = new ProjectData();
+		byte[] imageBytes = null;
+		try (JsonParser parser = MAPPER.getFactory().createParser(file)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT)
+				throw new IOException("Not a project: " + file);
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.getCurrentName();
+				JsonToken token = parser.nextToken();
+				switch (name) {
+				case "border":
+					data.border = MAPPER.readValue(parser, ProjectData.MultiLineDTO.class);
+					break;
+				case "obstacles":
+					data.obstacles = MAPPER.readValue(parser, new TypeReference<List<ProjectData.MultiLineDTO>>() {
+					});
+					break;
+				case "calibration":
+					data.calibration = parser.getValueAsDouble();
+					break;
+				case "mower":
+					data.mower = MAPPER.readValue(parser, ProjectData.MowerDTO.class);
+					break;
+				case "chargingStation":
+					data.chargingStation = MAPPER.readValue(parser, ProjectData.PointDTO.class);
+					break;
+				case "zonePoints":
+					data.zonePoints = MAPPER.readValue(parser, new TypeReference<List<ProjectData.ZonePointDTO>>() {
+					});
+					break;
+				case "backgroundImageBase64":
+					if (withImage && token == JsonToken.VALUE_STRING) {
+						ByteArrayOutputStream out = new ByteArrayOutputStream();
+						parser.readBinaryValue(out);
+						imageBytes = out.toByteArray();
+					}
+					// Otherwise the parser skips the string without reading it into memory
+					break;
+				default:
+					parser.skipChildren();
+				}
+			}
+		}
+		return new ProjectReader(data, imageBytes);
+	}
+
+	/**
+	 * The project without {@link ProjectData#backgroundImageBase64}.
+	 */
+	ProjectData getData() {
+		return data;
+	}
+
+	boolean hasImage() {
+		return imageBytes != null;
+	}
+
+	/**
+	 * The background image as read, without decoding it.
+	 */
+	byte[] getImageBytes() {
+		return imageBytes;
+	}
+
+	/**
+	 * The size of the background image from its header, without decoding it.
+	 */
+	Dimension getImageSize() throws IOException {
+		try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(imageBytes))) {
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+			if (!readers.hasNext())
+				throw new IOException("Unknown image format");
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(in, true, true);
+				return new Dimension(reader.getWidth(0), reader.getHeight(0));
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+
+	BufferedImage decodeImage() throws IOException {
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(imageBytes));
+		if (image == null)
+			throw new IOException("Unknown image format");
+		return image;
+	}
+}
@@ -0,0 +1,75 @@
+package de.in.autoMower.sim;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * The random numbers of one mower run: a {@link SplittableRandom} started from
+ * a seed that is known and recorded, so the same seed on the same ground gives
+ * the same run, bit for bit, in headless mode.
+ * <p>
+ * All numbers are taken from {@link #nextLong()}, the other methods are the
+ * defaults of {@link RandomGenerator} built on it. That makes the position in
+ * the stream a simple count of draws, which a {@link Checkpoint} stores
+ * together with the seed.
+ */
+final class SeededRandom implements RandomGenerator {
+
+	private final long seed;
+	private final SplittableRandom random;
+	private long draws;
+
+	SeededRandom(long seed) {
+		this.seed = seed;
+		this.random = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Continues the stream of {@code seed} after {@code draws} numbers.
+	 */
+	static SeededRandom resume(long seed, long draws) {
+		SeededRandom random = new SeededRandom(seed);
+		while (random.draws < draws)
+			random.nextLong();
+		return random;
+	}
+
+	/**
+	 * A seed for a run nobody asked to repeat, different each time.
+	 */
+	static long newSeed() {
+		return new SplittableRandom().nextLong();
+	}
+
+	/**
+	 * Seeds for {@code count} runs that belong together, e.g. the runs of a batch
+	 * or the mowers of a fleet. Taken one after another from a generator started
+	 * from {@code baseSeed}, so each run gets an independent stream and the same
+	 * base seed gives the same runs, no matter in which order they are
+	 * simulated.
+	 */
+	static long[] seeds(long baseSeed, int count) {
+		SplittableRandom root = new SplittableRandom(baseSeed);
+		long[] seeds = new long[count];
+		for (int i = 0; i < count; i++)
+			seeds[i] = root.split().nextLong();
+		return seeds;
+	}
+
+	long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Numbers taken so far.
+	 */
+	long getDraws() {
+		return draws;
+	}
+
+	@Override
+	public long nextLong() {
+		draws++;
+		return random.nextLong();
+	}
+}
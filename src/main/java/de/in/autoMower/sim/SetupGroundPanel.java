@@ -261,6 +261,11 @@ public class SetupGroundPanel extends SimulationPanel {
 		addMouseMotionListener(mouseAdapter);
 	}
 
+	@Override
+	protected boolean isEditingModel() {
+		return true;
+	}
+
 	@Override
 	protected void onModelChanged() {
 		updateHamburgerVisibility();
@@ -268,7 +273,7 @@ public class SetupGroundPanel extends SimulationPanel {
 
 	private void updateHamburgerVisibility() {
 		if (hamburgerBtn != null && model != null) {
-			hamburgerBtn.setVisible(model.getImage() != null);
+			hamburgerBtn.setVisible(model.getImageSize() != null);
 		}
 	}
 }
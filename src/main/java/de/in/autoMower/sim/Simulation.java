@@ -1,5 +1,9 @@
 package de.in.autoMower.sim;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
 public class Simulation implements Runnable {
 
 	GroundModel groundModel;
@@ -10,24 +14,101 @@ public class Simulation implements Runnable {
 		this.line = line;
 	}
 
+	/**
+	 * A simulation of all mowers of the fleet, the first one is the mower.
+	 */
+	public Simulation(GroundModel groundModel, MowerFleet fleet) {
+		this(groundModel, fleet.getMowers().get(0), null);
+		this.fleet = fleet;
+	}
+
 	AbstractAutoMowerModel mower;
 	MultiLine2D line;
+	MowerFleet fleet;
+	File traceLogFile;
+	File checkpointFile;
+	double checkpointSeconds;
+	/** Continues a restored mower instead of preparing a new run. */
+	private boolean restored;
+
+	/**
+	 * Records the run of the mower in a {@link TraceLog}, not for fleets.
+	 *
+	 * @param file the log, or null to not record
+	 */
+	public void setTraceLog(File file) {
+		this.traceLogFile = file;
+	}
+
+	/**
+	 * Writes a {@link Checkpoint} of the run of the mower every
+	 * {@code intervalSeconds} of simulated time, not for fleets.
+	 *
+	 * @param file the checkpoint, or null to not write any
+	 */
+	public void setCheckpoints(File file, double intervalSeconds) {
+		this.checkpointFile = file;
+		this.checkpointSeconds = intervalSeconds;
+	}
+
+	/**
+	 * A simulation that continues a mower restored from a {@link Checkpoint}. It
+	 * is not recorded in a trace log, which starts with the run.
+	 */
+	static Simulation restored(GroundModel groundModel, AbstractAutoMowerModel mower) {
+		Simulation simulation = new Simulation(groundModel, mower, null);
+		simulation.restored = true;
+		return simulation;
+	}
 
 	public void run() {
-		mower.start(line, groundModel);
+		if (fleet != null)
+			fleet.start();
+		else {
+			mower.setCheckpoints(checkpointFile, checkpointSeconds);
+			if (restored) {
+				// Checkpoints of a stopped mower continue in the state it had
+				mower.resume();
+				return;
+			}
+			if (traceLogFile != null) {
+				try {
+					mower.setTraceLog(TraceLog.Writer.open(traceLogFile, mower.getMowingWidthInCm(), mower.getSeed()));
+				} catch (IOException e) {
+					mower.showErrorMessage("Can not record trace log: " + e.getMessage());
+				}
+			}
+			mower.start(line, groundModel);
+		}
+
+	}
+
+	/**
+	 * The fleet of a fleet simulation, or null.
+	 */
+	public MowerFleet getFleet() {
+		return fleet;
+	}
 
+	public List<AbstractAutoMowerModel> getMowers() {
+		return fleet != null ? fleet.getMowers() : List.of(mower);
 	}
 
 	public void stop() {
-		mower.stop();
+		for (AbstractAutoMowerModel m : getMowers())
+			m.stop();
 	}
 
 	public void resume() {
-		mower.resume();
+		for (AbstractAutoMowerModel m : getMowers())
+			m.resume();
 	}
 
 	public void cancel() {
-		mower.cancel();
+		if (fleet != null)
+			fleet.cancel();
+		else
+			mower.cancel();
 
 	}
 
@@ -14,13 +14,23 @@
 //@formatter:on
 package de.in.autoMower.sim;
 
+import java.awt.AlphaComposite;
 import java.awt.FlowLayout;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
 
+import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JSlider;
+import javax.swing.JSpinner;
+import javax.swing.JToggleButton;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.Timer;
 
 /**
  * @author aqadb - Till Woitendorf
@@ -28,13 +38,34 @@ import javax.swing.JPanel;
 public class SimulationPanel extends JPanel {
 
 	protected GroundModel model;
-	protected MultiLine2D line;
 
 	private double userScale = 1.0;
 
 	private double userTranslateX = 0;
 	private double userTranslateY = 0;
 
+	/** Trace colors of the mowers of a fleet, the first one is the only one otherwise. */
+	private static final java.awt.Color[] TRACE_COLORS = { java.awt.Color.RED, java.awt.Color.MAGENTA,
+			java.awt.Color.BLUE, java.awt.Color.ORANGE };
+
+	// Offscreen layers, see updateLayers
+	private BufferedImage sceneLayer;
+	private BufferedImage groundLayer;
+	private AffineTransform layerTransform;
+	private BufferedImage layerImage;
+	private int layerPyramidVersion;
+	private TraceBuffer[] layerTraces = new TraceBuffer[0];
+	private java.awt.BasicStroke layerStroke;
+	private int[] tracesDrawn = new int[0];
+	private TraceOccupancy[] traceOccupancies = new TraceOccupancy[0];
+	private final CoverageOverlay coverageOverlay = new CoverageOverlay();
+	private volatile boolean groundLayerValid;
+	private long layerGeometryVersion;
+
+	/** Replaces the mowers of the application while a trace log is replayed. */
+	private TraceReplay replay;
+	private Timer replayTimer;
+
 	public SimulationPanel(GroundModel model) {
 		super(new FlowLayout(FlowLayout.RIGHT));
 		setModel(model);
@@ -45,8 +76,8 @@ public class SimulationPanel extends JPanel {
 				// 1. Calculate current transform parameters
 				double width = 1d * getWidth();
 				double height = 1d * getHeight();
-				double iWidth = (1d * model.getImage().getWidth());
-				double iHeight = (1d * model.getImage().getHeight());
+				double iWidth = (1d * model.getImageSize().width);
+				double iHeight = (1d * model.getImageSize().height);
 				double baseZoom = 1d / Math.max(iWidth / width, iHeight / height);
 
 				// Base centering offset
@@ -106,53 +137,80 @@ public class SimulationPanel extends JPanel {
 	protected void paintComponent(Graphics g) {
 		super.paintComponent(g);
 		try {
-			if (model.getImage() != null && g instanceof Graphics2D g2d) {
+			if (model.getImageSize() != null && g instanceof Graphics2D g2d) {
 				AffineTransform transform = createAffineTransform();
-				g2d.drawImage(model.getImage(), transform, null);
 
-				AbstractAutoMowerModel mower = App.getApp().getMower();
+				List<AbstractAutoMowerModel> mowers = App.getApp().getMowers();
+				AbstractAutoMowerModel mower = mowers.get(0);
 				double cmPropix = model.getCalibration();
 				if (cmPropix <= 0)
 					cmPropix = 1.0;
 
-				double mowingWidthPixels = mower.getMowingWidthInCm() / cmPropix;
+				double mowingWidthCm = replay != null ? replay.getMowingWidthInCm() : mower.getMowingWidthInCm();
+				double mowingWidthPixels = mowingWidthCm / cmPropix;
 				mowingWidthPixels *= transform.getScaleX();
-
-				java.awt.Stroke oldStroke = g2d.getStroke();
-				g2d.setStroke(new java.awt.BasicStroke((float) mowingWidthPixels, java.awt.BasicStroke.CAP_ROUND,
-						java.awt.BasicStroke.JOIN_ROUND));
-
-				if (line != null) {
-					line.setDrawPoints(false);
-					line.draw(g2d, transform);
+				java.awt.BasicStroke stroke = new java.awt.BasicStroke((float) mowingWidthPixels,
+						java.awt.BasicStroke.CAP_ROUND, java.awt.BasicStroke.JOIN_ROUND);
+
+				// One consistent state per mower for the whole frame
+				MowerSnapshot[] snapshots = new MowerSnapshot[replay != null ? 1 : mowers.size()];
+				for (int i = 0; i < snapshots.length; i++)
+					snapshots[i] = replay != null ? replay.getSnapshot() : mowers.get(i).getSnapshot();
+				MowerSnapshot snapshot = snapshots[0];
+
+				TraceBuffer[] traces = new TraceBuffer[isEditingModel() ? 0 : snapshots.length];
+				for (int i = 0; i < traces.length; i++)
+					traces[i] = replay != null ? replay.getTrace() : mowers.get(i).getTrace();
+				updateLayers(transform, traces, stroke);
+				g2d.drawImage(sceneLayer, 0, 0, null);
+
+				// A trace log has no coverage
+				if (!isEditingModel() && replay == null && App.getApp().isShowCoverage()) {
+					BufferedImage overlay = coverageOverlay.update(mower);
+					if (overlay != null) {
+						AffineTransform at = new AffineTransform(transform);
+						at.translate(coverageOverlay.getMinX() - 0.5, coverageOverlay.getMinY() - 0.5);
+						g2d.drawImage(overlay, at, null);
+					}
 				}
 
 				// Draw current active segment in GREEN
-				if (mower != null && mower.getSegmentStart() != null && mower.getCurrentPosition() != null) {
-					g2d.setColor(java.awt.Color.GREEN);
-					Point2D p1 = transform.transform(mower.getSegmentStart(), new Point2D.Double());
-					Point2D p2 = transform.transform(mower.getCurrentPosition(), new Point2D.Double());
-					g2d.drawLine((int) p1.getX(), (int) p1.getY(), (int) p2.getX(), (int) p2.getY());
+				java.awt.Stroke oldStroke = g2d.getStroke();
+				g2d.setStroke(stroke);
+				g2d.setColor(java.awt.Color.GREEN);
+				for (MowerSnapshot s : snapshots) {
+					if (s.segmentStart() != null && s.position() != null) {
+						Point2D p1 = transform.transform(s.segmentStart(), new Point2D.Double());
+						Point2D p2 = transform.transform(s.position(), new Point2D.Double());
+						g2d.drawLine((int) p1.getX(), (int) p1.getY(), (int) p2.getX(), (int) p2.getY());
+					}
 				}
-
 				g2d.setStroke(oldStroke);
-				model.draw(g2d, transform);
+
+				if (isEditingModel()) {
+					model.draw(g2d, transform);
+				} else {
+					g2d.drawImage(groundLayer, 0, 0, null);
+				}
+				g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
 				// Draw Battery Level and Status
-				mower.drawStats(g2d, new Point2D.Double(10, 10));
+				mower.drawStats(g2d, new Point2D.Double(10, 10), snapshot);
+				if (snapshots.length > 1)
+					drawFleet(g2d, snapshots, transform);
 				drawScaleBar(g);
 
-				if (mower.isCharging()) {
+				if (snapshot.isCharging()) {
 					g.setColor(java.awt.Color.YELLOW);
 					g.setFont(g.getFont().deriveFont(java.awt.Font.BOLD, 24f));
 					g.drawString("CHARGING...", getWidth() / 2 - 50, getHeight() / 2);
 				}
 
 				// Draw transition target if applicable
-				if (mower.currentState.name().equals("TRANSITIONING_TO_ZONE")
-						&& mower.getTransitionTargetPoint() != null) {
+				if (snapshot.state() == AbstractAutoMowerModel.State.TRANSITIONING_TO_ZONE
+						&& snapshot.transitionTarget() != null) {
 					g2d.setColor(java.awt.Color.CYAN);
-					Point2D tp = transform.transform(mower.getTransitionTargetPoint(), new Point2D.Double());
+					Point2D tp = transform.transform(snapshot.transitionTarget(), new Point2D.Double());
 					g2d.fillOval((int) tp.getX() - 5, (int) tp.getY() - 5, 10, 10);
 					g2d.drawString("TARGET ZONE", (int) tp.getX() + 7, (int) tp.getY() - 7);
 				}
@@ -163,6 +221,211 @@ public class SimulationPanel extends JPanel {
 		}
 	}
 
+	/**
+	 * Own docks of the other mowers, and the share of the area each mower mowed
+	 * first next to the combined coverage, in the colors of their traces. Below,
+	 * the same over time, see {@link MowerFleet#getHistory()}.
+	 */
+	private void drawFleet(Graphics2D g, MowerSnapshot[] snapshots, AffineTransform transform) {
+		int x = getWidth() - 200;
+		int y = 20;
+		g.setColor(java.awt.Color.WHITE);
+		g.drawString(String.format("Combined coverage: %.1f%%", snapshots[0].coverage() * 100), x, y);
+		for (int i = 0; i < snapshots.length; i++) {
+			MowerSnapshot s = snapshots[i];
+			g.setColor(TRACE_COLORS[i % TRACE_COLORS.length]);
+			y += 15;
+			g.drawString(String.format("Mower %d: %.1f%% %s", i + 1, s.ownCoverage() * 100, s.state()), x, y);
+			if (s.dock() != null) {
+				Point2D p = transform.transform(s.dock(), new Point2D.Double());
+				g.drawOval((int) p.getX() - 7, (int) p.getY() - 7, 14, 14);
+			}
+		}
+
+		Simulation simulation = App.getApp().getSimulation();
+		if (simulation != null && simulation.getFleet() != null)
+			drawCoverageChart(g, simulation.getFleet().getHistory(), x, y + 10, 180, 80);
+	}
+
+	/**
+	 * The combined coverage in white and the share of every mower in the color of
+	 * its trace, from 0 to 100% over the time sampled so far.
+	 */
+	private void drawCoverageChart(Graphics2D g, MowerFleet.Result history, int x, int y, int width, int height) {
+		g.setColor(new java.awt.Color(0, 0, 0, 128));
+		g.fillRect(x, y, width, height);
+		g.setColor(java.awt.Color.GRAY);
+		g.drawRect(x, y, width, height);
+		double[] times = history.getTimes();
+		if (times.length < 2 || times[times.length - 1] <= times[0])
+			return;
+
+		g.drawString(String.format("%.0f min", times[times.length - 1] / 60), x + 2, y + height - 3);
+		for (int i = 0; i < history.getMowerCount(); i++) {
+			g.setColor(TRACE_COLORS[i % TRACE_COLORS.length]);
+			drawCurve(g, times, history.getOwn(i), x, y, width, height);
+		}
+		g.setColor(java.awt.Color.WHITE);
+		drawCurve(g, times, history.getCombined(), x, y, width, height);
+	}
+
+	private static void drawCurve(Graphics2D g, double[] times, double[] values, int x, int y, int width, int height) {
+		double start = times[0];
+		double duration = times[times.length - 1] - start;
+		int[] xs = new int[times.length];
+		int[] ys = new int[times.length];
+		for (int s = 0; s < times.length; s++) {
+			xs[s] = x + (int) Math.round((times[s] - start) / duration * width);
+			ys[s] = y + height - (int) Math.round(values[s] * height);
+		}
+		g.drawPolyline(xs, ys, times.length);
+	}
+
+	/**
+	 * Brings the layers up to date. The scene layer holds the background image
+	 * and the trace; while the view and the trace stay the same, only the
+	 * segments added since the last frame are drawn into it, skipping those that
+	 * are already covered while zoomed out. The image is drawn from its
+	 * {@link ImagePyramid}, the scene is redrawn when tiles that were missing
+	 * come in. The ground layer is redrawn when the view or the ground model
+	 * changes.
+	 *
+	 * @param traces one per mower
+	 */
+	private void updateLayers(AffineTransform transform, TraceBuffer[] traces, java.awt.BasicStroke stroke) {
+		int width = Math.max(1, getWidth());
+		int height = Math.max(1, getHeight());
+		boolean viewChanged = sceneLayer == null || sceneLayer.getWidth() != width
+				|| sceneLayer.getHeight() != height || !transform.equals(layerTransform)
+				|| model.getImage() != layerImage;
+		if (viewChanged) {
+			sceneLayer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			groundLayer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			layerTransform = transform;
+			layerImage = model.getImage();
+			groundLayerValid = false;
+		}
+
+		int[] sizes = new int[traces.length];
+		boolean shrunk = false;
+		for (int i = 0; i < traces.length; i++) {
+			sizes[i] = traces[i].size();
+			shrunk |= i < tracesDrawn.length && sizes[i] < tracesDrawn[i];
+		}
+		// Tiles of the image that were missing in the last redraw came in
+		ImagePyramid pyramid = model.getImagePyramid();
+		boolean tilesBuilt = pyramid != null && pyramid.getVersion() != layerPyramidVersion;
+		if (pyramid != null) {
+			pyramid.setOnTilesBuilt(this::repaint);
+			layerPyramidVersion = pyramid.getVersion();
+		}
+
+		Graphics2D g = sceneLayer.createGraphics();
+		try {
+			if (viewChanged || tilesBuilt || !java.util.Arrays.equals(traces, layerTraces) || !stroke.equals(layerStroke)
+					|| shrunk) {
+				g.setColor(getBackground());
+				g.fillRect(0, 0, width, height);
+				if (pyramid != null)
+					pyramid.draw(g, transform, width, height);
+				layerTraces = traces;
+				layerStroke = stroke;
+				tracesDrawn = new int[traces.length];
+				traceOccupancies = new TraceOccupancy[traces.length];
+				// Zoomed out many segments fall on the same pixels, zoomed in every one is drawn
+				if (transform.getScaleX() < 1)
+					for (int i = 0; i < traces.length; i++)
+						traceOccupancies[i] = new TraceOccupancy(width, height,
+								(int) Math.ceil(stroke.getLineWidth() / 2) + 1);
+			}
+			g.setStroke(stroke);
+			for (int i = 0; i < traces.length; i++) {
+				g.setColor(TRACE_COLORS[i % TRACE_COLORS.length]);
+				traces[i].draw(g, transform, Math.max(0, tracesDrawn[i] - 1), sizes[i], traceOccupancies[i]);
+				tracesDrawn[i] = sizes[i];
+			}
+		} finally {
+			g.dispose();
+		}
+
+		long geometryVersion = model.getGeometryVersion();
+		if (!isEditingModel() && (!groundLayerValid || geometryVersion != layerGeometryVersion)) {
+			// Cleared before the model is drawn, a change during drawing leaves it invalid
+			groundLayerValid = true;
+			layerGeometryVersion = geometryVersion;
+			g = groundLayer.createGraphics();
+			try {
+				g.setComposite(AlphaComposite.Clear);
+				g.fillRect(0, 0, width, height);
+				g.setComposite(AlphaComposite.SrcOver);
+				model.draw(g, transform);
+			} finally {
+				g.dispose();
+			}
+		}
+	}
+
+	/**
+	 * Shows a trace log instead of the mowers of the application, with controls
+	 * to play it at a speed and to jump in it.
+	 */
+	void setReplay(TraceReplay replay) {
+		this.replay = replay;
+
+		JToggleButton play = new JToggleButton("Play");
+		// Any factor can be typed in, the arrows step by ten
+		JSpinner speed = new JSpinner(new SpinnerNumberModel(replay.getSpeed(), 0.1, 100000d, 10d));
+		JSlider time = new JSlider(0, (int) Math.ceil(replay.getDuration()), 0);
+		JLabel label = new JLabel();
+
+		play.addActionListener(e -> replay.setPlaying(play.isSelected()));
+		speed.addChangeListener(e -> replay.setSpeed(((Number) speed.getValue()).doubleValue()));
+		time.addChangeListener(e -> {
+			// Moved by the user, not by the timer below
+			if (time.getValueIsAdjusting() || time.getValue() != (int) replay.getSeconds()) {
+				replay.seek(time.getValue());
+				repaint();
+			}
+		});
+		long[] last = { System.nanoTime() };
+		replayTimer = new Timer((int) SimulationScheduler.UI_UPDATE_MILLIS, e -> {
+			long now = System.nanoTime();
+			boolean playing = replay.isPlaying();
+			replay.advance((now - last[0]) / 1e9);
+			last[0] = now;
+			play.setSelected(replay.isPlaying());
+			int seconds = (int) replay.getSeconds();
+			if (!time.getValueIsAdjusting())
+				time.setValue(seconds);
+			label.setText(String.format("%02d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60));
+			if (playing)
+				repaint();
+		});
+		replayTimer.start();
+
+		add(play);
+		add(speed);
+		add(new JLabel("x"));
+		add(time);
+		add(label);
+		revalidate();
+	}
+
+	@Override
+	public void removeNotify() {
+		super.removeNotify();
+		if (replayTimer != null)
+			replayTimer.stop();
+	}
+
+	/**
+	 * Panels that edit the ground model draw it directly instead of from the
+	 * cached layer, as not every edit fires a change event. They show no trace.
+	 */
+	protected boolean isEditingModel() {
+		return false;
+	}
+
 	private void drawScaleBar(Graphics g) {
 		AbstractAutoMowerModel mower = App.getApp().getMower();
 		if ((mower == null) || (model.getCalibration() <= 0))
@@ -193,8 +456,8 @@ public class SimulationPanel extends JPanel {
 	protected AffineTransform createAffineTransform() {
 		double width = 1d * getWidth();
 		double height = 1d * getHeight();
-		double iWidth = (1d * model.getImage().getWidth());
-		double iHeight = (1d * model.getImage().getHeight());
+		double iWidth = (1d * model.getImageSize().width);
+		double iHeight = (1d * model.getImageSize().height);
 		double baseZoom = 1d / Math.max(iWidth / width, iHeight / height);
 
 		double zoom = baseZoom * userScale;
@@ -216,7 +479,9 @@ public class SimulationPanel extends JPanel {
 
 	public void setModel(GroundModel model) {
 		this.model = model;
+		groundLayerValid = false;
 		model.setChangeListener(e -> {
+			groundLayerValid = false;
 			onModelChanged();
 			repaint();
 		});
@@ -227,12 +492,4 @@ public class SimulationPanel extends JPanel {
 	protected void onModelChanged() {
 		// Hook for subclasses
 	}
-
-	public MultiLine2D getLine() {
-		return line;
-	}
-
-	public void setLine(MultiLine2D line) {
-		this.line = line;
-	}
 }
@@ -0,0 +1,155 @@
+package de.in.autoMower.sim;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Owns the threads that execute mowers, instead of a new thread per start or
+ * resume.
+ * <p>
+ * Paced runs for the view are ticks on a small fixed pool: every
+ * {@link #TICK_MILLIS} a run advances its mower by the elapsed wall clock time,
+ * see {@link AbstractAutoMowerModel#tick(double)}, and gives the thread
+ * back. A run has at most one tick scheduled and its ticks never overlap, so
+ * pausing and resuming cannot leave two loops on the same mower. Headless work
+ * like sweeps is submitted to a shared work stealing pool, so thousands of runs
+ * are queued on a fixed number of threads.
+ */
+final class SimulationScheduler {
+
+	static final long TICK_MILLIS = 10;
+	static final long UI_UPDATE_MILLIS = 50;
+
+	private static final SimulationScheduler DEFAULT = new SimulationScheduler(
+			Runtime.getRuntime().availableProcessors());
+
+	private final ScheduledThreadPoolExecutor ticker;
+	private final ForkJoinPool workers;
+
+	SimulationScheduler(int threads) {
+		AtomicInteger count = new AtomicInteger();
+		ticker = new ScheduledThreadPoolExecutor(threads, r -> {
+			Thread thread = new Thread(r, "mower-tick-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		ticker.setRemoveOnCancelPolicy(true);
+		// Workers of a fork join pool are daemon threads
+		workers = new ForkJoinPool(threads);
+	}
+
+	/**
+	 * The scheduler of the application.
+	 */
+	static SimulationScheduler getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Starts ticking a prepared mower.
+	 */
+	Run start(AbstractAutoMowerModel mower) {
+		Run run = new Run(mower);
+		run.resume();
+		return run;
+	}
+
+	/**
+	 * Runs a task on the ticker every {@code millis} until the returned future is
+	 * cancelled, for example to sample paced runs.
+	 */
+	ScheduledFuture<?> every(long millis, Runnable task) {
+		return ticker.scheduleWithFixedDelay(task, millis, millis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Runs a task off the event thread, for example preparing a run.
+	 */
+	void execute(Runnable task) {
+		workers.execute(task);
+	}
+
+	/**
+	 * Runs headless work, the result is joined by the caller.
+	 */
+	<T> ForkJoinTask<T> submit(Callable<T> task) {
+		return workers.submit(task);
+	}
+
+	ForkJoinTask<?> submit(Runnable task) {
+		return workers.submit(task);
+	}
+
+	void shutdown() {
+		ticker.shutdownNow();
+		workers.shutdownNow();
+	}
+
+	/**
+	 * The paced run of one mower. Pausing waits for a tick in progress, so once
+	 * {@link #pause()} returns the mower is not touched by the scheduler until
+	 * {@link #resume()}.
+	 */
+	final class Run {
+
+		private final AbstractAutoMowerModel mower;
+		private ScheduledFuture<?> future;
+		private boolean active;
+		private boolean cancelled;
+		private long lastTick;
+		private long lastUIUpdate;
+
+		private Run(AbstractAutoMowerModel mower) {
+			this.mower = mower;
+		}
+
+		synchronized void resume() {
+			if (cancelled || active)
+				return;
+			active = true;
+			lastTick = System.currentTimeMillis();
+			future = ticker.scheduleWithFixedDelay(this::tick, 0, TICK_MILLIS, TimeUnit.MILLISECONDS);
+		}
+
+		synchronized void pause() {
+			if (!active)
+				return;
+			active = false;
+			future.cancel(false);
+			future = null;
+		}
+
+		/**
+		 * Pauses for good, a cancelled run cannot be resumed.
+		 */
+		synchronized void cancel() {
+			pause();
+			cancelled = true;
+		}
+
+		synchronized boolean isActive() {
+			return active;
+		}
+
+		private synchronized void tick() {
+			// Paused while this tick was waiting for the lock
+			if (!active)
+				return;
+			long now = System.currentTimeMillis();
+			double dtReal = (now - lastTick) / 1000d;
+			lastTick = now;
+			boolean running = mower.tick(dtReal);
+			if (!running || now - lastUIUpdate > UI_UPDATE_MILLIS) {
+				mower.updateUI();
+				lastUIUpdate = now;
+			}
+			if (!running)
+				pause();
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package de.in.autoMower.sim;
+
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The trace of a mower run. Points are stored as x/y pairs in chunks of fixed
+ * size that are never moved or copied once allocated.
+ * <p>
+ * There is a single writer, the simulation. A point is published by writing
+ * {@link #size}, so readers take the size once and can then read every point
+ * below it without locking. Points never change after they were published.
+ */
+final class TraceBuffer {
+
+	static final int CHUNK_SHIFT = 12;
+	static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	/**
+	 * Receives the segments between consecutive points.
+	 */
+	interface SegmentConsumer {
+		void accept(double x1, double y1, double x2, double y2);
+	}
+
+	/**
+	 * Only replaced by the writer before a size write that publishes a point of
+	 * a new chunk. A reader that read the size sees this directory or a later
+	 * one, which holds the same chunks.
+	 */
+	private double[][] chunks = new double[16][];
+	private volatile int size;
+
+	/**
+	 * Appends a point. Must only be called by the single writer.
+	 */
+	void add(double x, double y) {
+		int index = size;
+		int chunk = index >>> CHUNK_SHIFT;
+		if ((index & CHUNK_MASK) == 0) {
+			if (chunk == chunks.length)
+				chunks = Arrays.copyOf(chunks, chunk * 2);
+			chunks[chunk] = new double[2 * CHUNK_SIZE];
+		}
+		double[] xy = chunks[chunk];
+		int offset = 2 * (index & CHUNK_MASK);
+		xy[offset] = x;
+		xy[offset + 1] = y;
+		size = index + 1;
+	}
+
+	void add(Point2D p) {
+		add(p.getX(), p.getY());
+	}
+
+	/**
+	 * Number of published points. Everything below can be read.
+	 */
+	int size() {
+		return size;
+	}
+
+	double getX(int index) {
+		return chunks[index >>> CHUNK_SHIFT][2 * (index & CHUNK_MASK)];
+	}
+
+	double getY(int index) {
+		return chunks[index >>> CHUNK_SHIFT][2 * (index & CHUNK_MASK) + 1];
+	}
+
+	Point2D getPoint(int index) {
+		return new Point2D.Double(getX(index), getY(index));
+	}
+
+	/**
+	 * Passes the segments ending at the points from + 1 to to - 1, so drawing the
+	 * ranges [a, b) and [b - 1, c) draws each segment of [a, c) once.
+	 *
+	 * @param to at most a size read before
+	 */
+	void forEachSegment(int from, int to, SegmentConsumer action) {
+		if (to - from < 2)
+			return;
+		double[][] directory = chunks;
+		double px = getX(directory, from);
+		double py = getY(directory, from);
+		for (int i = from + 1; i < to; i++) {
+			double[] xy = directory[i >>> CHUNK_SHIFT];
+			int offset = 2 * (i & CHUNK_MASK);
+			double x = xy[offset];
+			double y = xy[offset + 1];
+			action.accept(px, py, x, y);
+			px = x;
+			py = y;
+		}
+	}
+
+	/**
+	 * Writes the published points, for a {@link Checkpoint}.
+	 */
+	void writeTo(DataOutput out) throws IOException {
+		int count = size;
+		out.writeInt(count);
+		for (int i = 0; i < count; i++) {
+			out.writeDouble(getX(i));
+			out.writeDouble(getY(i));
+		}
+	}
+
+	/**
+	 * A trace with the points written by {@link #writeTo}.
+	 */
+	static TraceBuffer readFrom(DataInput in) throws IOException {
+		TraceBuffer trace = new TraceBuffer();
+		int count = in.readInt();
+		for (int i = 0; i < count; i++)
+			trace.add(in.readDouble(), in.readDouble());
+		return trace;
+	}
+
+	private static double getX(double[][] directory, int index) {
+		return directory[index >>> CHUNK_SHIFT][2 * (index & CHUNK_MASK)];
+	}
+
+	private static double getY(double[][] directory, int index) {
+		return directory[index >>> CHUNK_SHIFT][2 * (index & CHUNK_MASK) + 1];
+	}
+
+	/**
+	 * Draws the segments of the points [from, to) with the current color and
+	 * stroke, see {@link #forEachSegment}. Transforms a chunk at a time.
+	 */
+	void draw(Graphics2D g, AffineTransform at, int from, int to) {
+		draw(g, at, from, to, null);
+	}
+
+	/**
+	 * Same as {@link #draw(Graphics2D, AffineTransform, int, int)}, but skips
+	 * segments that are already covered by earlier ones.
+	 *
+	 * @param occupancy pixels drawn so far, null to draw every segment
+	 * @return the number of segments drawn
+	 */
+	int draw(Graphics2D g, AffineTransform at, int from, int to, TraceOccupancy occupancy) {
+		if (to - from < 2)
+			return 0;
+		double[][] directory = chunks;
+		double[] screen = new double[2 * CHUNK_SIZE];
+		int i = from;
+		int px = 0, py = 0;
+		boolean first = true;
+		int drawn = 0;
+		while (i < to) {
+			double[] xy = directory[i >>> CHUNK_SHIFT];
+			int start = i & CHUNK_MASK;
+			int count = Math.min(CHUNK_SIZE - start, to - i);
+			at.transform(xy, 2 * start, screen, 0, count);
+			for (int k = 0; k < count; k++) {
+				int x = (int) screen[2 * k];
+				int y = (int) screen[2 * k + 1];
+				if (!first && (occupancy == null || occupancy.mark(px, py, x, y))) {
+					g.drawLine(px, py, x, y);
+					drawn++;
+				}
+				first = false;
+				px = x;
+				py = y;
+			}
+			i += count;
+		}
+		return drawn;
+	}
+}
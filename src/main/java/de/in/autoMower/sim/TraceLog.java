@@ -0,0 +1,544 @@
+package de.in.autoMower.sim;
+
+import java.awt.geom.Point2D;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A mower run as a stream of events, for archiving long runs and replaying
+ * them without simulating again, see {@link TraceReplay}.
+ * <p>
+ * Layout, little endian: magic, version, position scale, mowing width, seed of
+ * the run, then records of a tag byte and varints. Time is stored in simulated
+ * milliseconds, positions in 1 / {@link #POSITION_SCALE} pixels, both as
+ * differences to the record before, zigzag encoded where they can be
+ * negative:
+ * <ul>
+ * <li>point: dt, dx, dy, a point of the trace</li>
+ * <li>collision: dt, dx, dy</li>
+ * <li>state: dt, state, battery in per mille, dx, dy</li>
+ * <li>keyframe: the absolute time, position, state, battery, collision and
+ * point count, written once per {@link #KEYFRAME_INTERVAL_MS} of simulated
+ * time. Decoding can start at any keyframe.</li>
+ * </ul>
+ * A closed log ends with an index of the keyframes and a trailer pointing to
+ * it; the keyframes of a log that was not closed are found by scanning.
+ */
+final class TraceLog {
+
+	static final String EXTENSION = "amt";
+
+	/** "AMPT" in the file. */
+	private static final int MAGIC = 0x54504D41;
+	/** "AMPI" in the file, ends a closed log. */
+	private static final int INDEX_MAGIC = 0x49504D41;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 28;
+	private static final int TRAILER_SIZE = 12;
+
+	static final int POSITION_SCALE = 100;
+	static final long KEYFRAME_INTERVAL_MS = 60_000;
+
+	static final int POINT = 0;
+	static final int COLLISION = 1;
+	static final int STATE = 2;
+	static final int KEYFRAME = 3;
+
+	/** Upper bound of the size of one record. */
+	private static final int MAX_RECORD_SIZE = 64;
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private TraceLog() {
+	}
+
+	/**
+	 * Writes a log. Fed by the simulation only, see
+	 * {@link AbstractAutoMowerModel#setTraceLog}. A write error is reported once
+	 * and ends logging, not the run.
+	 */
+	static final class Writer implements Closeable {
+
+		private final File file;
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		/** Time and offset of every keyframe. */
+		private long[] keyframes = new long[64];
+		private int keyframeCount;
+		private long flushed;
+		/** Closed or failed, nothing is written any more. */
+		private boolean done;
+		private Consumer<IOException> failureHandler;
+
+		// What a reader knows after the last record
+		private long time;
+		private long x, y;
+		private int state = -1;
+		private int battery;
+		private int collisions;
+		private int points;
+		private long nextKeyframe;
+
+		private Writer(File file, FileChannel channel) {
+			this.file = file;
+			this.channel = channel;
+		}
+
+		static Writer open(File file, double mowingWidthInCm, long seed) throws IOException {
+			FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			Writer writer = new Writer(file, channel);
+			writer.buffer.putInt(MAGIC).putInt(VERSION).putInt(POSITION_SCALE).putDouble(mowingWidthInCm)
+					.putLong(seed);
+			return writer;
+		}
+
+		File getFile() {
+			return file;
+		}
+
+		/**
+		 * Told once when writing fails, from the thread that logged. Without a
+		 * handler the failure is printed.
+		 */
+		void setFailureHandler(Consumer<IOException> failureHandler) {
+			this.failureHandler = failureHandler;
+		}
+
+		void point(double seconds, Point2D p) {
+			if (begin(seconds, POINT)) {
+				putPosition(p);
+				points++;
+			}
+		}
+
+		void collision(double seconds, Point2D p) {
+			if (begin(seconds, COLLISION)) {
+				putPosition(p);
+				collisions++;
+			}
+		}
+
+		/**
+		 * Logs the state if it changed since the last call.
+		 *
+		 * @param battery charge between 0 and 1
+		 */
+		void state(double seconds, AbstractAutoMowerModel.State newState, double battery, Point2D p) {
+			if (newState.ordinal() == state || !begin(seconds, STATE))
+				return;
+			state = newState.ordinal();
+			this.battery = (int) Math.round(Math.max(0, Math.min(1, battery)) * 1000);
+			buffer.put((byte) state);
+			putVarint(this.battery);
+			putPosition(p);
+		}
+
+		/**
+		 * Writes the tag and time of a record, after a keyframe if it is due.
+		 *
+		 * @return false if the log is closed or failed before
+		 */
+		private boolean begin(double seconds, int tag) {
+			if (done)
+				return false;
+			try {
+				if (buffer.remaining() < 2 * MAX_RECORD_SIZE)
+					flushBuffer();
+			} catch (IOException e) {
+				fail(e);
+				return false;
+			}
+			long ms = Math.max(time, Math.round(seconds * 1000));
+			if (ms >= nextKeyframe)
+				putKeyframe(ms);
+			buffer.put((byte) tag);
+			putVarint(ms - time);
+			time = ms;
+			return true;
+		}
+
+		private void putKeyframe(long ms) {
+			if (keyframeCount == keyframes.length / 2)
+				keyframes = Arrays.copyOf(keyframes, keyframes.length * 2);
+			keyframes[2 * keyframeCount] = time;
+			keyframes[2 * keyframeCount + 1] = flushed + buffer.position();
+			keyframeCount++;
+			buffer.put((byte) KEYFRAME);
+			putVarint(time);
+			putVarint(zigzag(x));
+			putVarint(zigzag(y));
+			buffer.put((byte) (state + 1));
+			putVarint(battery);
+			putVarint(collisions);
+			putVarint(points);
+			nextKeyframe = ms - ms % KEYFRAME_INTERVAL_MS + KEYFRAME_INTERVAL_MS;
+		}
+
+		private void putPosition(Point2D p) {
+			long px = Math.round(p.getX() * POSITION_SCALE);
+			long py = Math.round(p.getY() * POSITION_SCALE);
+			putVarint(zigzag(px - x));
+			putVarint(zigzag(py - y));
+			x = px;
+			y = py;
+		}
+
+		private void putVarint(long value) {
+			while ((value & ~0x7FL) != 0) {
+				buffer.put((byte) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			buffer.put((byte) value);
+		}
+
+		/**
+		 * Writes the buffered records, e.g. when the run is paused, so an
+		 * interrupted log loses as little as possible.
+		 */
+		void flush() {
+			if (done)
+				return;
+			try {
+				flushBuffer();
+				channel.force(false);
+			} catch (IOException e) {
+				fail(e);
+			}
+		}
+
+		private void flushBuffer() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining())
+				flushed += channel.write(buffer);
+			buffer.clear();
+		}
+
+		private void fail(IOException e) {
+			done = true;
+			if (failureHandler != null)
+				failureHandler.accept(e);
+			else
+				System.err.println("Trace log " + file + " failed: " + e.getMessage());
+		}
+
+		/**
+		 * Writes the keyframe index and closes the file.
+		 */
+		@Override
+		public void close() throws IOException {
+			try {
+				if (done)
+					return;
+				flushBuffer();
+				long indexOffset = flushed;
+				putVarint(keyframeCount);
+				long lastTime = 0, lastOffset = 0;
+				for (int i = 0; i < keyframeCount; i++) {
+					if (buffer.remaining() < MAX_RECORD_SIZE)
+						flushBuffer();
+					putVarint(keyframes[2 * i] - lastTime);
+					putVarint(keyframes[2 * i + 1] - lastOffset);
+					lastTime = keyframes[2 * i];
+					lastOffset = keyframes[2 * i + 1];
+				}
+				if (buffer.remaining() < TRAILER_SIZE)
+					flushBuffer();
+				buffer.putLong(indexOffset).putInt(INDEX_MAGIC);
+				flushBuffer();
+				done = true;
+			} finally {
+				channel.close();
+			}
+		}
+	}
+
+	/**
+	 * Reads a log through a memory mapping.
+	 */
+	static final class Reader {
+
+		private final ByteBuffer data;
+		private final double mowingWidthInCm;
+		private final long seed;
+		/** End of the records. */
+		private final int end;
+		private final long[] keyframeTimes;
+		private final int[] keyframeOffsets;
+		private final double duration;
+
+		private Reader(File file) throws IOException {
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				long size = channel.size();
+				if (size > Integer.MAX_VALUE)
+					throw new IOException("Trace log too large: " + file);
+				MappedByteBuffer mapped = channel.map(MapMode.READ_ONLY, 0, size);
+				data = mapped.order(ByteOrder.LITTLE_ENDIAN);
+			}
+			if (data.limit() < HEADER_SIZE || data.getInt(0) != MAGIC)
+				throw new IOException("Not a trace log: " + file);
+			int version = data.getInt(4);
+			if (version != VERSION || data.getInt(8) != POSITION_SCALE)
+				throw new IOException("Unsupported trace log version " + version + ": " + file);
+			mowingWidthInCm = data.getDouble(12);
+			seed = data.getLong(20);
+
+			try {
+				int size = data.limit();
+				long indexOffset = size >= HEADER_SIZE + TRAILER_SIZE && data.getInt(size - 4) == INDEX_MAGIC
+						? data.getLong(size - TRAILER_SIZE)
+						: -1;
+				if (indexOffset >= HEADER_SIZE && indexOffset <= size - TRAILER_SIZE) {
+					end = (int) indexOffset;
+					ByteBuffer index = data.duplicate().order(ByteOrder.LITTLE_ENDIAN).position(end);
+					long count = getVarint(index);
+					// Two bytes at least per keyframe
+					if (count < 0 || count > (size - end) / 2)
+						throw new IllegalStateException("Broken keyframe index");
+					keyframeTimes = new long[(int) count];
+					keyframeOffsets = new int[(int) count];
+					long time = 0, offset = 0;
+					for (int i = 0; i < count; i++) {
+						time += getVarint(index);
+						offset += getVarint(index);
+						if (offset < HEADER_SIZE || offset >= end || data.get((int) offset) != KEYFRAME)
+							throw new IllegalStateException("Broken keyframe index");
+						keyframeTimes[i] = time;
+						keyframeOffsets[i] = (int) offset;
+					}
+				} else {
+					// Not closed, e.g. the application was killed
+					end = size;
+					long[] times = new long[64];
+					int[] offsets = new int[64];
+					int count = 0;
+					Cursor cursor = new Cursor(this, HEADER_SIZE);
+					while (true) {
+						int offset = cursor.offset;
+						int tag = cursor.next(Double.MAX_VALUE);
+						if (tag < 0)
+							break;
+						if (tag == KEYFRAME) {
+							if (count == times.length) {
+								times = Arrays.copyOf(times, 2 * count);
+								offsets = Arrays.copyOf(offsets, 2 * count);
+							}
+							times[count] = cursor.time;
+							offsets[count++] = offset;
+						}
+					}
+					keyframeTimes = Arrays.copyOf(times, count);
+					keyframeOffsets = Arrays.copyOf(offsets, count);
+				}
+
+				Cursor last = keyframeOffsets.length == 0 ? cursor()
+						: new Cursor(this, keyframeOffsets[keyframeOffsets.length - 1]);
+				while (last.next(Double.MAX_VALUE) >= 0)
+					;
+				duration = last.getSeconds();
+			} catch (IllegalStateException | BufferUnderflowException e) {
+				// Records that no writer produces
+				throw new IOException("Corrupt trace log " + file + ": " + e.getMessage(), e);
+			}
+		}
+
+		static Reader open(File file) throws IOException {
+			return new Reader(file);
+		}
+
+		double getMowingWidthInCm() {
+			return mowingWidthInCm;
+		}
+
+		/**
+		 * Seed of the recorded run.
+		 */
+		long getSeed() {
+			return seed;
+		}
+
+		/**
+		 * Simulated seconds up to the last record.
+		 */
+		double getDuration() {
+			return duration;
+		}
+
+		int getKeyframeCount() {
+			return keyframeTimes.length;
+		}
+
+		/**
+		 * A cursor before the first record.
+		 */
+		Cursor cursor() {
+			return new Cursor(this, HEADER_SIZE);
+		}
+
+		/**
+		 * A cursor at the last keyframe at or before the given time, with the
+		 * state up to it.
+		 */
+		Cursor cursorAt(double seconds) {
+			int i = Arrays.binarySearch(keyframeTimes, Math.round(seconds * 1000));
+			if (i < 0)
+				i = -i - 2;
+			if (i < 0)
+				return cursor();
+			Cursor cursor = new Cursor(this, keyframeOffsets[i]);
+			cursor.next(Double.MAX_VALUE);
+			return cursor;
+		}
+	}
+
+	/**
+	 * Decodes the records of a log one after the other and keeps the state they
+	 * add up to.
+	 */
+	static final class Cursor {
+
+		private final ByteBuffer data;
+		private final int end;
+		private int offset;
+
+		private long time;
+		private long x, y;
+		private int state = -1;
+		private int battery;
+		private int collisions;
+		private int points;
+
+		private Cursor(Reader reader, int offset) {
+			this.data = reader.data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+			this.end = reader.end;
+			this.offset = offset;
+		}
+
+		/**
+		 * Decodes the next record if it is not later than the given time.
+		 *
+		 * @return the tag of the record, or -1 at the end of the log, before a
+		 *         later record or a record that was cut off
+		 */
+		int next(double untilSeconds) {
+			if (offset >= end)
+				return -1;
+			data.limit(end).position(offset);
+			try {
+				int tag = data.get();
+				if (tag == KEYFRAME) {
+					long keyTime = getVarint(data);
+					if (keyTime > untilSeconds * 1000)
+						return -1;
+					time = keyTime;
+					x = unzigzag(getVarint(data));
+					y = unzigzag(getVarint(data));
+					state = checkState(data.get() - 1, true);
+					battery = (int) getVarint(data);
+					collisions = (int) getVarint(data);
+					points = (int) getVarint(data);
+					offset = data.position();
+					return tag;
+				}
+				long recordTime = time + getVarint(data);
+				if (recordTime > untilSeconds * 1000)
+					return -1;
+				int newState = state, newBattery = battery;
+				if (tag == STATE) {
+					newState = checkState(data.get(), false);
+					newBattery = (int) getVarint(data);
+				} else if (tag != POINT && tag != COLLISION) {
+					throw new IllegalStateException("Unknown record " + tag + " at " + offset);
+				}
+				long newX = x + unzigzag(getVarint(data));
+				long newY = y + unzigzag(getVarint(data));
+				// Complete, apply it
+				time = recordTime;
+				x = newX;
+				y = newY;
+				state = newState;
+				battery = newBattery;
+				if (tag == POINT)
+					points++;
+				else if (tag == COLLISION)
+					collisions++;
+				offset = data.position();
+				return tag;
+			} catch (BufferUnderflowException e) {
+				return -1;
+			}
+		}
+
+		private int checkState(int ordinal, boolean noneAllowed) {
+			if (ordinal < (noneAllowed ? -1 : 0) || ordinal >= AbstractAutoMowerModel.State.values().length)
+				throw new IllegalStateException("Unknown state " + ordinal + " at " + offset);
+			return ordinal;
+		}
+
+		double getSeconds() {
+			return time / 1000d;
+		}
+
+		double getX() {
+			return x / (double) POSITION_SCALE;
+		}
+
+		double getY() {
+			return y / (double) POSITION_SCALE;
+		}
+
+		/**
+		 * The state of the last state record, or null before the first one.
+		 */
+		AbstractAutoMowerModel.State getState() {
+			return state < 0 ? null : AbstractAutoMowerModel.State.values()[state];
+		}
+
+		/**
+		 * Battery charge between 0 and 1 as of the last state record.
+		 */
+		double getBattery() {
+			return battery / 1000d;
+		}
+
+		int getCollisions() {
+			return collisions;
+		}
+
+		/**
+		 * Number of trace points up to here.
+		 */
+		int getPoints() {
+			return points;
+		}
+	}
+
+	private static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static long getVarint(ByteBuffer in) {
+		long value = 0;
+		for (int shift = 0;; shift += 7) {
+			byte b = in.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0)
+				return value;
+			if (shift > 63)
+				throw new IllegalStateException("Broken varint");
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package de.in.autoMower.sim;
+
+/**
+ * The screen pixels that lie on the centre line of a drawn trace segment, for
+ * level of detail drawing of the trace.
+ * <p>
+ * A segment drawn with a stroke of width w covers a disc of radius w / 2 around
+ * every pixel on its centre line. If every pixel on the centre line of a new
+ * segment is already marked, the segment is covered by the earlier ones up to
+ * the size of a pixel and does not need to be drawn. Every drawn segment marks
+ * at least one new pixel, so the number of drawn segments is bounded by the
+ * number of pixels, not by the length of the trace.
+ * <p>
+ * Pixels further outside the screen than the margin are treated as marked, so
+ * segments that cannot reach the screen are skipped as well.
+ */
+final class TraceOccupancy {
+
+	private final int margin;
+	private final int width;
+	private final int height;
+	private final long[] bits;
+
+	/**
+	 * @param margin half the stroke width in pixels, rounded up
+	 */
+	TraceOccupancy(int screenWidth, int screenHeight, int margin) {
+		this.margin = margin;
+		this.width = screenWidth + 2 * margin;
+		this.height = screenHeight + 2 * margin;
+		this.bits = new long[(int) (((long) width * height + 63) >>> 6)];
+	}
+
+	/**
+	 * Marks the pixels of the line between two screen pixels, the same pixels a
+	 * one pixel wide line would cover.
+	 *
+	 * @return true if at least one of them was not marked before
+	 */
+	boolean mark(int x0, int y0, int x1, int y1) {
+		// Shift into the grid, 64 bit to stay clear of overflows far off screen
+		long ax = (long) x0 + margin, ay = (long) y0 + margin;
+		long bx = (long) x1 + margin, by = (long) y1 + margin;
+		if (Math.max(ax, bx) < 0 || Math.max(ay, by) < 0 || Math.min(ax, bx) >= width || Math.min(ay, by) >= height)
+			return false;
+		// Not worth walking, just draw it
+		if (Math.abs(bx - ax) + Math.abs(by - ay) > 4L * (width + height))
+			return true;
+
+		// Walked in a fixed direction, so both directions mark the same pixels
+		if (ax > bx || (ax == bx && ay > by)) {
+			long t = ax;
+			ax = bx;
+			bx = t;
+			t = ay;
+			ay = by;
+			by = t;
+		}
+		long dx = Math.abs(bx - ax), dy = -Math.abs(by - ay);
+		int sx = ax < bx ? 1 : -1, sy = ay < by ? 1 : -1;
+		long err = dx + dy;
+		boolean marked = false;
+		while (true) {
+			if (ax >= 0 && ay >= 0 && ax < width && ay < height) {
+				int index = (int) ay * width + (int) ax;
+				long bit = 1L << index;
+				if ((bits[index >>> 6] & bit) == 0) {
+					bits[index >>> 6] |= bit;
+					marked = true;
+				}
+			}
+			if (ax == bx && ay == by)
+				return marked;
+			long e2 = 2 * err;
+			if (e2 >= dy) {
+				err += dy;
+				ax += sx;
+			}
+			if (e2 <= dx) {
+				err += dx;
+				ay += sy;
+			}
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package de.in.autoMower.sim;
+
+import java.awt.geom.Point2D;
+import java.util.Map;
+
+/**
+ * Plays a {@link TraceLog} back: the trace and the state of the mower at a
+ * point in simulated time, which moves with the wall clock at any speed or
+ * jumps. Used on the event thread only.
+ * <p>
+ * Moving forward decodes the records up to the new time into the trace.
+ * Jumping back starts over at the keyframe before the new time, taking the
+ * points up to it from the trace decoded so far.
+ */
+final class TraceReplay {
+
+	private final TraceLog.Reader log;
+	private TraceLog.Cursor cursor;
+	private TraceBuffer trace = new TraceBuffer();
+	private double seconds;
+	/** Simulated seconds per wall clock second. */
+	private double speed = 60;
+	private boolean playing;
+
+	TraceReplay(TraceLog.Reader log) {
+		this.log = log;
+		this.cursor = log.cursor();
+		seek(0);
+	}
+
+	double getDuration() {
+		return log.getDuration();
+	}
+
+	double getMowingWidthInCm() {
+		return log.getMowingWidthInCm();
+	}
+
+	double getSeconds() {
+		return seconds;
+	}
+
+	double getSpeed() {
+		return speed;
+	}
+
+	void setSpeed(double speed) {
+		this.speed = speed;
+	}
+
+	boolean isPlaying() {
+		return playing;
+	}
+
+	/**
+	 * Starts or pauses, starting at the end goes back to the beginning.
+	 */
+	void setPlaying(boolean playing) {
+		if (playing && seconds >= getDuration())
+			seek(0);
+		this.playing = playing;
+	}
+
+	/**
+	 * The trace up to the current time. Replaced by a new one when jumping back.
+	 */
+	TraceBuffer getTrace() {
+		return trace;
+	}
+
+	/**
+	 * Moves on by {@code dtReal} wall clock seconds at the current speed, and
+	 * stops at the end.
+	 */
+	void advance(double dtReal) {
+		if (!playing)
+			return;
+		seek(seconds + dtReal * speed);
+		if (seconds >= getDuration())
+			playing = false;
+	}
+
+	/**
+	 * Jumps to a point in simulated time.
+	 */
+	void seek(double target) {
+		target = Math.max(0, Math.min(getDuration(), target));
+		if (target < cursor.getSeconds()) {
+			TraceLog.Cursor start = log.cursorAt(target);
+			TraceBuffer rebuilt = new TraceBuffer();
+			for (int i = 0; i < start.getPoints(); i++)
+				rebuilt.add(trace.getX(i), trace.getY(i));
+			trace = rebuilt;
+			cursor = start;
+		}
+		int tag;
+		while ((tag = cursor.next(target)) >= 0)
+			if (tag == TraceLog.POINT)
+				trace.add(cursor.getX(), cursor.getY());
+		seconds = target;
+	}
+
+	/**
+	 * The state at the current time, for the view. The log has no coverage and
+	 * no zone statistics.
+	 */
+	MowerSnapshot getSnapshot() {
+		Point2D position = new Point2D.Double(cursor.getX(), cursor.getY());
+		int size = trace.size();
+		Point2D segmentStart = size > 0 ? trace.getPoint(size - 1) : null;
+		AbstractAutoMowerModel.State state = cursor.getState();
+		return new MowerSnapshot(position, segmentStart, null, null,
+				state == null ? AbstractAutoMowerModel.State.STOPPED : state, cursor.getBattery(), seconds, 0, 0,
+				new double[0], Map.of(), cursor.getCollisions(), 0, 0, log.getSeed());
+	}
+}
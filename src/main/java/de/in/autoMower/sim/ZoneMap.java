@@ -0,0 +1,128 @@
+package de.in.autoMower.sim;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The zone of every mowable pixel of a {@link CoverageMask}. A pixel belongs to
+ * the zone whose perimeter interval contains
+ * {@link GroundModel#getDistOnPerimeter(java.awt.geom.Point2D)} of the pixel,
+ * the same rule the zone based mower models apply to their position.
+ * <p>
+ * Looking up a zone is an array read. A map is immutable and built per mask,
+ * perimeter table and zone point layout; {@link GroundModel} drops it when the
+ * zone points or the numbering change.
+ */
+final class ZoneMap {
+
+	private final CoverageMask mask;
+	private final PerimeterTable perimeter;
+	/** Perimeter distance of each zone point, in zone order. */
+	private final double[] boundaries;
+	private final boolean sorted;
+	private final short[] zones;
+	private final long[] mowableCounts;
+
+	private ZoneMap(CoverageMask mask, PerimeterTable perimeter, double[] zoneXY) {
+		this.mask = mask;
+		this.perimeter = perimeter;
+		boundaries = new double[zoneXY.length / 2];
+		for (int i = 0; i < boundaries.length; i++)
+			boundaries[i] = perimeter.getDistOnPerimeter(zoneXY[2 * i], zoneXY[2 * i + 1]);
+		boolean ascending = true;
+		for (int i = 1; i < boundaries.length; i++)
+			ascending &= boundaries[i - 1] <= boundaries[i];
+		sorted = ascending;
+
+		int width = mask.getWidth();
+		zones = new short[width * mask.getHeight()];
+		IntStream.range(0, mask.getHeight()).parallel().forEach(y -> {
+			double py = mask.getMinY() + y;
+			for (int x = 0; x < width; x++) {
+				if (mask.isMowable(x, y))
+					zones[y * width + x] = (short) zoneOf(perimeter.getDistOnPerimeter(mask.getMinX() + x, py));
+			}
+		});
+
+		mowableCounts = new long[boundaries.length];
+		for (int y = 0; y < mask.getHeight(); y++)
+			for (int x = 0; x < width; x++)
+				if (mask.isMowable(x, y))
+					mowableCounts[zones[y * width + x]]++;
+	}
+
+	/**
+	 * @param zoneXY coordinates of the zone points as x/y pairs, in zone order
+	 */
+	static ZoneMap build(CoverageMask mask, PerimeterTable perimeter, double[] zoneXY) {
+		return new ZoneMap(mask, perimeter, zoneXY);
+	}
+
+	private int zoneOf(double distOnPerimeter) {
+		if (!sorted)
+			return zoneOf(distOnPerimeter, boundaries);
+		// First boundary at or after the distance, or zone 0 after the last one
+		int i = Arrays.binarySearch(boundaries, distOnPerimeter);
+		if (i < 0)
+			i = -i - 1;
+		else
+			while (i > 0 && boundaries[i - 1] == distOnPerimeter)
+				i--;
+		return i < boundaries.length ? i : 0;
+	}
+
+	/**
+	 * Zone i covers (boundary i-1, boundary i], zone 0 also covers everything
+	 * after the last boundary.
+	 */
+	static int zoneOf(double distOnPerimeter, double[] boundaries) {
+		for (int i = 0; i < boundaries.length; i++) {
+			if (i == 0) {
+				if (distOnPerimeter <= boundaries[0])
+					return 0;
+			} else if (distOnPerimeter > boundaries[i - 1] && distOnPerimeter <= boundaries[i]) {
+				return i;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * The geometry version of the mask the map was built for.
+	 */
+	long getGeometryVersion() {
+		return mask.getGeometryVersion();
+	}
+
+	/**
+	 * The zone at the nearest mowable pixel, or computed from the perimeter
+	 * distance if there is none.
+	 */
+	int getZoneAt(double x, double y) {
+		long ix = Math.round(x) - mask.getMinX();
+		long iy = Math.round(y) - mask.getMinY();
+		if (ix >= 0 && iy >= 0 && ix < mask.getWidth() && iy < mask.getHeight() && mask.isMowable((int) ix, (int) iy))
+			return zones[(int) iy * mask.getWidth() + (int) ix];
+		return zoneOf(perimeter.getDistOnPerimeter(x, y));
+	}
+
+	int getZoneCount() {
+		return boundaries.length;
+	}
+
+	/**
+	 * Zones of all cells of the mask, row by row. Only valid for mowable cells.
+	 * Must not be modified.
+	 */
+	short[] getZones() {
+		return zones;
+	}
+
+	int getZone(int x, int y) {
+		return zones[y * mask.getWidth() + x];
+	}
+
+	long getMowableCount(int zone) {
+		return mowableCounts[zone];
+	}
+}
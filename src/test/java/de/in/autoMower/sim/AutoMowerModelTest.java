@@ -6,7 +6,6 @@ import java.awt.Color;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.util.List;
-import java.util.Random;
 
 import org.junit.jupiter.api.Test;
 
@@ -30,7 +29,7 @@ class AutoMowerModelTest {
         mower.border = border;
         mower.line = new MultiLine2D(Color.RED);
 
-        mower.random = new Random(42); // Seeded for reproducibility
+        mower.setSeed(42); // Seeded for reproducibility
         mower.currentState = AutoMowerModel.State.MOWING;
 
         // Setup collision state: hitting the right wall (x=100) at y=50
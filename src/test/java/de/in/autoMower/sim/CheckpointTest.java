@@ -0,0 +1,159 @@
+package de.in.autoMower.sim;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CheckpointTest {
+
+    private static GroundModel tbs10(int... percentages) throws Exception {
+        GroundModel gm = TestGrounds.tbs10();
+        // Zones starting at points evenly spread over the border
+        List<Point2D> points = gm.getBorder().getPoints();
+        for (int i = 0; i < percentages.length; i++)
+            gm.addZonePoint(points.get(i * points.size() / percentages.length), percentages[i]);
+        return gm;
+    }
+
+    private static void assertSameRun(AbstractAutoMowerModel expected, AbstractAutoMowerModel actual) {
+        assertEquals(expected.simulatedRuntimeSeconds, actual.simulatedRuntimeSeconds);
+        assertEquals(expected.currentState, actual.currentState);
+        assertEquals(expected.getCurrentPosition(), actual.getCurrentPosition());
+        assertEquals(expected.currentBatteryWh, actual.currentBatteryWh);
+        assertEquals(expected.getCollisionCount(), actual.getCollisionCount());
+        assertEquals(expected.getTransitionDistanceMeters(), actual.getTransitionDistanceMeters());
+        assertEquals(expected.getSnapshot().zoneStats(), actual.getSnapshot().zoneStats());
+        assertEquals(expected.getTrace().size(), actual.getTrace().size());
+        for (int i = 0; i < expected.getTrace().size(); i++)
+            assertEquals(expected.getTrace().getPoint(i), actual.getTrace().getPoint(i));
+        assertArrayEquals(expected.getCoverage().getCells(), actual.getCoverage().getCells());
+        assertEquals(expected.getOwnCoveragePercentage(), actual.getOwnCoveragePercentage());
+        for (int zone = 0; zone < expected.getCoverage().getZoneCount(); zone++)
+            assertEquals(expected.getZoneCoveragePercentage(zone), actual.getZoneCoveragePercentage(zone));
+    }
+
+    @Test
+    void testRestoredRunContinuesLikeTheOriginal(@TempDir File tempDir) throws Exception {
+        for (AbstractAutoMowerModel mower : List.of(new AutoMowerModelV3(), new AutoMowerModelV4())) {
+            GroundModel gm = tbs10(40, 60);
+            mower.setHeadless(true);
+            mower.setSeed(42);
+            assertTrue(mower.prepare(null, gm));
+            mower.runUntil(3600);
+
+            File file = new File(tempDir, mower.getModelVersion() + "." + Checkpoint.EXTENSION);
+            Checkpoint.of(mower).write(file);
+            Checkpoint checkpoint = Checkpoint.read(file);
+            assertEquals(mower.getModelVersion(), checkpoint.getModelVersion());
+            assertEquals(3600, checkpoint.getRuntimeSeconds());
+            assertEquals(42, checkpoint.getSeed());
+
+            AbstractAutoMowerModel restored = checkpoint.restore(tbs10(40, 60));
+            assertEquals(mower.getClass(), restored.getClass());
+            assertEquals(42, restored.getSeed());
+            assertSameRun(mower, restored);
+
+            mower.runUntil(7200);
+            restored.runUntil(7200);
+            assertSameRun(mower, restored);
+        }
+    }
+
+    @Test
+    void testPeriodicCheckpoints(@TempDir File tempDir) throws Exception {
+        AutoMowerModelV2 plain = new AutoMowerModelV2();
+        AutoMowerModelV2 mower = new AutoMowerModelV2();
+        File file = new File(tempDir, "run." + Checkpoint.EXTENSION);
+        for (AbstractAutoMowerModel m : List.of(plain, mower)) {
+            m.setHeadless(true);
+            m.setSeed(11);
+            assertTrue(m.prepare(null, tbs10(50, 50)));
+        }
+        mower.setCheckpoints(file, 1800);
+
+        mower.runUntil(3000);
+        Checkpoint first = Checkpoint.read(file);
+        assertTrue(first.getRuntimeSeconds() >= 1800 && first.getRuntimeSeconds() < 3000);
+        mower.runUntil(4000);
+        Checkpoint second = Checkpoint.read(file);
+        assertTrue(second.getRuntimeSeconds() >= 3600 && second.getRuntimeSeconds() < 4000);
+
+        // Writing checkpoints does not change the run
+        plain.runUntil(4000);
+        assertSameRun(plain, mower);
+
+        AbstractAutoMowerModel restored = second.restore(tbs10(50, 50));
+        restored.runUntil(7200);
+        plain.runUntil(7200);
+        assertSameRun(plain, restored);
+    }
+
+    @Test
+    void testForkWithAnotherZoneSplit() throws Exception {
+        AutoMowerModelV2 mower = new AutoMowerModelV2();
+        mower.setHeadless(true);
+        mower.setSeed(7);
+        assertTrue(mower.prepare(null, tbs10(50, 50)));
+        mower.runUntil(3600);
+        Checkpoint checkpoint = Checkpoint.of(mower);
+
+        AbstractAutoMowerModel same = checkpoint.restore(tbs10(50, 50));
+        AbstractAutoMowerModel other = checkpoint.restore(tbs10(80, 20));
+        // Nothing simulated again: mowed the same cells, counted in other zones
+        assertArrayEquals(mower.getCoverage().getCells(), other.getCoverage().getCells());
+        assertEquals(mower.getCoveragePercentage(), other.getCoveragePercentage());
+        assertEquals(mower.getTrace().size(), other.getTrace().size());
+
+        same.runUntil(3 * 3600);
+        other.runUntil(3 * 3600);
+        assertNotEquals(same.getSnapshot().zoneStats(), other.getSnapshot().zoneStats());
+        assertTrue(other.getCoveragePercentage() > mower.getCoveragePercentage());
+
+        // The original is not affected by its forks
+        mower.runUntil(3 * 3600);
+        assertSameRun(mower, same);
+    }
+
+    @Test
+    void testOtherBorderIsRejected() throws Exception {
+        AutoMowerModel mower = new AutoMowerModel();
+        mower.setHeadless(true);
+        assertTrue(mower.prepare(null, tbs10()));
+        mower.runUntil(600);
+        Checkpoint checkpoint = Checkpoint.of(mower);
+
+        GroundModel square = new GroundModel();
+        MultiLine2D border = new MultiLine2D(Color.BLACK);
+        border.addPoint(new Point2D.Double(0, 0));
+        border.addPoint(new Point2D.Double(100, 0));
+        border.addPoint(new Point2D.Double(100, 100));
+        border.addPoint(new Point2D.Double(0, 100));
+        border.closePath();
+        square.setBorder(border);
+        assertThrows(IOException.class, () -> checkpoint.restore(square));
+        assertTrue(checkpoint.getSize() > 0);
+
+        // The same bounds and so the same coverage grid, one vertex moved
+        GroundModel moved = tbs10();
+        MultiLine2D other = new MultiLine2D(Color.BLACK);
+        List<Point2D> points = moved.getBorder().getPoints();
+        for (int i = 0; i < points.size(); i++) {
+            Point2D p = points.get(i);
+            other.addPoint(i == points.size() / 2 ? new Point2D.Double(p.getX() + 0.5, p.getY()) : p);
+        }
+        other.closePath();
+        moved.setBorder(other);
+        assertThrows(IOException.class, () -> checkpoint.restore(moved));
+    }
+}
@@ -0,0 +1,107 @@
+package de.in.autoMower.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class CompiledPolygonTest {
+
+    /** What MultiLine2D.contains computed before it was compiled. */
+    private static boolean pathContains(MultiLine2D line, Point2D p) {
+        List<Point2D> points = line.getPoints();
+        Path2D path = new Path2D.Double();
+        path.moveTo(points.get(0).getX(), points.get(0).getY());
+        for (int i = 1; i < points.size(); i++) {
+            path.lineTo(points.get(i).getX(), points.get(i).getY());
+        }
+        path.closePath();
+        return path.contains(p);
+    }
+
+    private static void assertSameAsPath2D(MultiLine2D line, long seed) {
+        java.awt.Rectangle b = line.getBounds();
+        Random random = new Random(seed);
+        List<Point2D> queries = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            queries.add(new Point2D.Double(b.x - 10 + random.nextDouble() * (b.width + 20),
+                    b.y - 10 + random.nextDouble() * (b.height + 20)));
+        }
+        // Vertices, edge midpoints and integer pixel centres hit all the boundary cases
+        for (int i = 0; i < line.getNumberOfPoints(); i++) {
+            Point2D p1 = line.getLine(i).getP1();
+            Point2D p2 = line.getLine(i).getP2();
+            queries.add(p1);
+            queries.add(new Point2D.Double((p1.getX() + p2.getX()) / 2, (p1.getY() + p2.getY()) / 2));
+            queries.add(new Point2D.Double(p1.getX(), p2.getY()));
+        }
+        for (int x = b.x - 1; x <= b.x + b.width + 1; x += 3)
+            for (int y = b.y - 1; y <= b.y + b.height + 1; y += 3)
+                queries.add(new Point2D.Double(x, y));
+
+        for (Point2D q : queries) {
+            assertEquals(pathContains(line, q), line.contains(q), q.toString());
+        }
+    }
+
+    @Test
+    void testMatchesPath2DOnTbs10() throws Exception {
+        ProjectData data = new ObjectMapper().readValue(new File("src/test/resources/tbs10.json"), ProjectData.class);
+        assertSameAsPath2D(data.border.toMultiLine(), 1);
+        for (ProjectData.MultiLineDTO obstacle : data.obstacles) {
+            MultiLine2D line = obstacle.toMultiLine();
+            if (line.getNumberOfPoints() >= 3)
+                assertSameAsPath2D(line, 2);
+        }
+    }
+
+    @Test
+    void testMatchesPath2DOnSelfIntersectingAndDegenerateShapes() {
+        MultiLine2D star = new MultiLine2D(Color.ORANGE);
+        for (int i = 0; i < 5; i++) {
+            double a = Math.PI / 2 + i * 4 * Math.PI / 5;
+            star.addPoint(new Point2D.Double(50 + 40 * Math.cos(a), 50 + 40 * Math.sin(a)));
+        }
+        star.closePath();
+        assertSameAsPath2D(star, 3);
+
+        MultiLine2D comb = new MultiLine2D(Color.ORANGE);
+        comb.addPoint(new Point2D.Double(0, 0));
+        comb.addPoint(new Point2D.Double(0, 0)); // duplicate vertex
+        for (int i = 0; i < 20; i++) {
+            comb.addPoint(new Point2D.Double(i * 10, 50));
+            comb.addPoint(new Point2D.Double(i * 10 + 5, 10));
+        }
+        comb.addPoint(new Point2D.Double(200, 0));
+        comb.closePath();
+        assertSameAsPath2D(comb, 4);
+    }
+
+    @Test
+    void testRecompilesAfterChange() {
+        MultiLine2D line = new MultiLine2D(Color.ORANGE);
+        line.addPoint(new Point2D.Double(0, 0));
+        line.addPoint(new Point2D.Double(10, 0));
+        line.addPoint(new Point2D.Double(10, 10));
+        assertFalse(line.contains(new Point2D.Double(8, 2)), "Open lines contain nothing");
+
+        line.closePath();
+        assertTrue(line.contains(new Point2D.Double(8, 2)));
+        assertFalse(line.contains(new Point2D.Double(2, 8)));
+
+        line.addPoint(new Point2D.Double(0, 10));
+        assertTrue(line.contains(new Point2D.Double(2, 8)));
+        assertFalse(line.contains(new Point2D.Double(Double.NaN, 5)));
+    }
+}
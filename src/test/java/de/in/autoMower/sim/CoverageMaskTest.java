@@ -0,0 +1,90 @@
+package de.in.autoMower.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+
+import org.junit.jupiter.api.Test;
+
+class CoverageMaskTest {
+
+    /** What initCoverage computed before the mask. */
+    private static void assertSameAsIsInside(GroundModel gm) {
+        CoverageMask mask = gm.getCoverageMask();
+        java.awt.Rectangle b = gm.getBorder().getBounds();
+        assertEquals(b.x, mask.getMinX());
+        assertEquals(b.y, mask.getMinY());
+        long count = 0;
+        for (int y = 0; y < mask.getHeight(); y++)
+            for (int x = 0; x < mask.getWidth(); x++) {
+                Point2D p = new Point2D.Double(b.x + x, b.y + y);
+                boolean inside = gm.isInside(p);
+                assertEquals(inside, mask.isMowable(x, y), p.toString());
+                if (inside)
+                    count++;
+            }
+        assertEquals(count, mask.getMowableCount());
+    }
+
+    private static MultiLine2D polygon(Color color, boolean closed, double... xy) {
+        MultiLine2D line = new MultiLine2D(color);
+        for (int i = 0; i < xy.length; i += 2)
+            line.addPoint(new Point2D.Double(xy[i], xy[i + 1]));
+        if (closed)
+            line.closePath();
+        return line;
+    }
+
+    @Test
+    void testMatchesIsInsideOnTbs10() throws Exception {
+        assertSameAsIsInside(TestGrounds.tbs10());
+    }
+
+    @Test
+    void testMatchesIsInsideOnIntegerAndDegenerateShapes() {
+        GroundModel gm = new GroundModel();
+        // Integer vertices put many pixels exactly 1 px away from an edge
+        gm.setBorder(polygon(Color.ORANGE, true, -7, 3, 60, 3, 80, 40, 60, 90, 30, 60, 10, 90));
+        gm.addObstacle(polygon(Color.CYAN, true, 20, 20, 40, 20, 40, 40, 20, 40));
+        gm.addObstacle(polygon(Color.CYAN, true, 50.5, 30.25, 70.75, 45.5, 55.125, 60.5));
+        // Sticks out of the border, open, and a single point
+        gm.addObstacle(polygon(Color.CYAN, true, 70, 60, 100, 60, 100, 70, 70, 70));
+        gm.addObstacle(polygon(Color.CYAN, false, 5, 10, 25, 50, 40, 80));
+        gm.addObstacle(polygon(Color.CYAN, true, 45, 75));
+        // Self intersecting star, filled non-zero
+        MultiLine2D star = new MultiLine2D(Color.CYAN);
+        for (int i = 0; i < 5; i++) {
+            double a = Math.PI / 2 + i * 4 * Math.PI / 5;
+            star.addPoint(new Point2D.Double(35 + 12 * Math.cos(a), 70 + 12 * Math.sin(a)));
+        }
+        star.closePath();
+        gm.addObstacle(star);
+        assertSameAsIsInside(gm);
+
+        // An open border only counts its tolerance band
+        GroundModel open = new GroundModel();
+        open.setBorder(polygon(Color.ORANGE, false, 0, 0, 50, 0, 50, 50));
+        assertSameAsIsInside(open);
+    }
+
+    @Test
+    void testCachedPerGeometryVersion() {
+        GroundModel gm = new GroundModel();
+        MultiLine2D border = polygon(Color.ORANGE, true, 0, 0, 100, 0, 100, 100, 0, 100);
+        gm.setBorder(border);
+        CoverageMask mask = gm.getCoverageMask();
+        assertSame(mask, gm.getCoverageMask());
+
+        border.getPoints().set(2, new Point2D.Double(100, 150));
+        CoverageMask changed = gm.getCoverageMask();
+        assertNotSame(mask, changed);
+        assertSameAsIsInside(gm);
+
+        gm.addObstacle(polygon(Color.CYAN, true, 10, 10, 30, 10, 30, 30));
+        assertNotSame(changed, gm.getCoverageMask());
+        assertSameAsIsInside(gm);
+    }
+}
@@ -0,0 +1,101 @@
+package de.in.autoMower.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CoverageOverlayTest {
+
+    private static GroundModel ground() {
+        GroundModel gm = new GroundModel();
+        MultiLine2D border = new MultiLine2D(Color.ORANGE);
+        border.addPoint(new Point2D.Double(0, 0));
+        border.addPoint(new Point2D.Double(300, 0));
+        border.addPoint(new Point2D.Double(300, 200));
+        border.addPoint(new Point2D.Double(0, 200));
+        border.closePath();
+        gm.setBorder(border);
+        MultiLine2D obstacle = new MultiLine2D(Color.CYAN);
+        obstacle.addPoint(new Point2D.Double(100, 50));
+        obstacle.addPoint(new Point2D.Double(150, 50));
+        obstacle.addPoint(new Point2D.Double(150, 120));
+        obstacle.closePath();
+        gm.addObstacle(obstacle);
+        gm.setCalibration(1.0);
+        gm.setChargingStation(new Point2D.Double(20, 20));
+        return gm;
+    }
+
+    private static void assertShowsGrid(AbstractAutoMowerModel mower, BufferedImage image) {
+        byte[] grid = mower.getCoverage().getCells();
+        int width = mower.getCoverage().getWidth();
+        for (int y = 0; y < mower.getCoverage().getHeight(); y++)
+            for (int x = 0; x < width; x++) {
+                int expected = switch (grid[y * width + x]) {
+                case 0 -> CoverageOverlay.OUTSIDE;
+                case 1 -> CoverageOverlay.UNMOWED;
+                default -> CoverageOverlay.MOWED;
+                };
+                assertEquals(expected, image.getRGB(x, y), x + "," + y);
+            }
+    }
+
+    @Test
+    void testFollowsTheGrid() {
+        AutoMowerModelV2 mower = new AutoMowerModelV2();
+        mower.setHeadless(true);
+        CoverageOverlay overlay = new CoverageOverlay();
+        assertNull(overlay.update(mower));
+
+        assertTrue(mower.prepare(null, ground()));
+        BufferedImage image = overlay.update(mower);
+        assertShowsGrid(mower, image);
+        assertEquals(0, overlay.getMinX());
+
+        for (int i = 1; i <= 5; i++) {
+            mower.runUntil(i * 60);
+            assertSame(image, overlay.update(mower));
+            assertShowsGrid(mower, image);
+        }
+        assertTrue(mower.getCoveragePercentage() > 0);
+
+        // A new run starts with a new grid
+        assertTrue(mower.prepare(null, ground()));
+        BufferedImage next = overlay.update(mower);
+        assertNotSame(image, next);
+        assertShowsGrid(mower, next);
+    }
+
+    @Test
+    void testDrainsChangedRows() {
+        AutoMowerModelV2 mower = new AutoMowerModelV2();
+        mower.setHeadless(true);
+        assertTrue(mower.prepare(null, ground()));
+        mower.getCoverage().drainDirtyRows(y -> {
+        });
+
+        mower.setMowingWidthInCm(10);
+        mower.updateCoverage(new Point2D.Double(30, 70), new Point2D.Double(60, 72));
+        List<Integer> rows = new ArrayList<>();
+        mower.getCoverage().drainDirtyRows(rows::add);
+        List<Integer> expected = new ArrayList<>();
+        for (int y = 65; y <= 77; y++)
+            expected.add(y);
+        assertEquals(expected, rows);
+
+        rows.clear();
+        mower.updateCoverage(new Point2D.Double(30, 70), new Point2D.Double(60, 72));
+        mower.getCoverage().drainDirtyRows(rows::add);
+        assertEquals(List.of(), rows, "Nothing new was mowed");
+    }
+}
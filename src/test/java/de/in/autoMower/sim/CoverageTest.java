@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.awt.Color;
+import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 
 import org.junit.jupiter.api.Test;
@@ -74,6 +75,68 @@ class CoverageTest {
 
     }
 
+    private static TestMower squareMower(double mowingWidthInCm) {
+        GroundModel gm = new GroundModel();
+        MultiLine2D border = new MultiLine2D(Color.ORANGE);
+        border.addPoint(new Point2D.Double(0, 0));
+        border.addPoint(new Point2D.Double(100, 0));
+        border.addPoint(new Point2D.Double(100, 100));
+        border.addPoint(new Point2D.Double(0, 100));
+        border.closePath();
+        gm.setBorder(border);
+        gm.setCalibration(1.0);
+
+        TestMower mower = new TestMower();
+        mower.setGroundModel(gm);
+        mower.setMowingWidthInCm(mowingWidthInCm);
+        mower.initCoverage();
+        return mower;
+    }
+
+    @Test
+    void testSweptSegmentMatchesDistanceToSegment() {
+        Point2D[][] moves = { { new Point2D.Double(10.3, 20.7), new Point2D.Double(83.1, 61.9) },
+                { new Point2D.Double(50, 5), new Point2D.Double(50, 95) },
+                { new Point2D.Double(5, 40.5), new Point2D.Double(95, 40.5) },
+                { new Point2D.Double(-20, -20), new Point2D.Double(30, 10) } };
+        for (Point2D[] move : moves) {
+            TestMower mower = squareMower(15);
+            mower.callUpdateCoverage(move[0], move[1]);
+
+            Line2D segment = new Line2D.Double(move[0], move[1]);
+            int expected = 0;
+            int total = 0;
+            for (int x = 0; x <= 100; x++)
+                for (int y = 0; y <= 100; y++)
+                    if (mower.groundModel.isInside(new Point2D.Double(x, y))) {
+                        total++;
+                        if (segment.ptSegDist(x, y) <= 7.5)
+                            expected++;
+                    }
+            assertEquals((double) expected / total, mower.getCoveragePercentage(), 1e-12, segment.getP1() + " "
+                    + segment.getP2());
+        }
+    }
+
+    @Test
+    void testCoverageDoesNotDependOnStepSize() {
+        Point2D from = new Point2D.Double(12.25, 17.5);
+        Point2D to = new Point2D.Double(88.5, 71.75);
+
+        TestMower once = squareMower(14);
+        once.callUpdateCoverage(from, to);
+
+        TestMower inSteps = squareMower(14);
+        Point2D prev = from;
+        for (int i = 1; i <= 37; i++) {
+            Point2D next = GeomUtil.getColinearPointWithRatio(from, to, i / 37.0);
+            inSteps.callUpdateCoverage(prev, next);
+            prev = next;
+        }
+        assertEquals(once.getCoveragePercentage(), inSteps.getCoveragePercentage(), 0.0005);
+        assertTrue(once.getCoveragePercentage() > 0.13, "A 93 px long, 14 px wide stripe");
+    }
+
     static class TestMower extends AutoMowerModel {
         private static final long serialVersionUID = 1L;
 
@@ -100,5 +163,9 @@ class CoverageTest {
         public void callUpdateCoverage(Point2D pos) {
             this.updateCoverage(pos);
         }
+
+        public void callUpdateCoverage(Point2D from, Point2D to) {
+            this.updateCoverage(from, to);
+        }
     }
 }
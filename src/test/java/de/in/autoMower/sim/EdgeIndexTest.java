@@ -0,0 +1,174 @@
+package de.in.autoMower.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class EdgeIndexTest {
+
+    /** The linear scan GroundModel used before the index. */
+    private static List<Line2D> bruteForceLines(GroundModel gm, Point2D p1, Point2D p2) {
+        Line2D given = new Line2D.Double(p1, p2);
+        List<Line2D> result = new LinkedList<>();
+        double distanceToP1 = Double.MAX_VALUE;
+        List<MultiLine2D> lines = new LinkedList<>(gm.obstacles);
+        lines.add(gm.border);
+        for (MultiLine2D line : lines)
+            for (int i = 0; i < line.getNumberOfPoints(); i++) {
+                Line2D l = line.getLine(i);
+                Point2D intersectPoint = GeomUtil.getIntersectPoint(l, given);
+                if (intersectPoint != null && l.ptSegDist(intersectPoint) < 0.05
+                        && given.ptSegDist(intersectPoint) < 0.05) {
+                    double distance = p1.distance(intersectPoint);
+                    if (distance > 0.05)
+                        if (distance < distanceToP1) {
+                            distanceToP1 = distance;
+                            result = List.of(l);
+                        } else if (distance == distanceToP1) {
+                            result = new LinkedList<>(result);
+                            result.add(l);
+                        }
+                }
+            }
+        return result;
+    }
+
+    private static Point2D bruteForcePoint(GroundModel gm, Point2D p1, Point2D p2) {
+        Line2D given = new Line2D.Double(p1, p2);
+        Point2D found = null;
+        double distanceToP1 = Double.MAX_VALUE;
+        List<MultiLine2D> lines = new LinkedList<>(gm.obstacles);
+        lines.add(gm.border);
+        for (MultiLine2D line : lines)
+            for (int i = 0; i < line.getNumberOfPoints(); i++) {
+                Line2D l = line.getLine(i);
+                Point2D intersectPoint = GeomUtil.getIntersectPoint(l, given);
+                if (intersectPoint != null && l.ptSegDist(intersectPoint) < 0.05
+                        && given.ptSegDist(intersectPoint) < 0.05) {
+                    double distance = p1.distance(intersectPoint);
+                    if (distance < distanceToP1) {
+                        distanceToP1 = distance;
+                        found = intersectPoint;
+                    }
+                }
+            }
+        return found;
+    }
+
+    private static List<Point2D> allVertices(GroundModel gm) {
+        List<Point2D> result = new ArrayList<>(gm.border.getPoints());
+        for (MultiLine2D o : gm.obstacles)
+            result.addAll(o.getPoints());
+        return result;
+    }
+
+    private static void assertSameLines(List<Line2D> expected, List<Line2D> actual, String query) {
+        assertEquals(expected.size(), actual.size(), query);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getP1(), actual.get(i).getP1(), query);
+            assertEquals(expected.get(i).getP2(), actual.get(i).getP2(), query);
+        }
+    }
+
+    private static void assertMatchesBruteForce(GroundModel gm, Point2D p1, Point2D p2) {
+        String query = p1 + " -> " + p2;
+        assertSameLines(bruteForceLines(gm, p1, p2), gm.getCollisionLines(p1, p2), query);
+        assertEquals(bruteForcePoint(gm, p1, p2), gm.getCollisionPoint(p1, p2), query);
+    }
+
+    @Test
+    void testMatchesLinearScanOnTbs10() throws Exception {
+        GroundModel gm = TestGrounds.tbs10();
+        java.awt.Rectangle b = gm.border.getBounds();
+        Random random = new Random(5);
+        List<Point2D> vertices = allVertices(gm);
+
+        for (int i = 0; i < 3000; i++) {
+            Point2D p1 = new Point2D.Double(b.x - 20 + random.nextDouble() * (b.width + 40),
+                    b.y - 20 + random.nextDouble() * (b.height + 40));
+            double ang = random.nextDouble() * 2 * Math.PI;
+            double len = i % 3 == 0 ? 10000 : random.nextDouble() * 200;
+            Point2D p2 = new Point2D.Double(p1.getX() + Math.cos(ang) * len, p1.getY() + Math.sin(ang) * len);
+            assertMatchesBruteForce(gm, p1, p2);
+        }
+
+        // Rays starting on vertices and in the middle of edges, as the mower does after a bounce
+        for (Point2D v : vertices) {
+            for (int k = 0; k < 8; k++) {
+                double ang = random.nextDouble() * 2 * Math.PI;
+                assertMatchesBruteForce(gm, v,
+                        new Point2D.Double(v.getX() + Math.cos(ang) * 10000, v.getY() + Math.sin(ang) * 10000));
+            }
+        }
+        for (int i = 0; i < gm.border.getNumberOfPoints(); i++) {
+            Line2D edge = gm.border.getLine(i);
+            Point2D mid = GeomUtil.getColinearPointWithRatio(edge.getP1(), edge.getP2(), 0.5);
+            assertMatchesBruteForce(gm, mid, edge.getP2());
+            assertMatchesBruteForce(gm, mid, new Point2D.Double(mid.getX() + 300, mid.getY() + 1));
+        }
+    }
+
+    @Test
+    void testSharedVertexReportsBothEdgesInScanOrder() {
+        GroundModel gm = new GroundModel();
+        MultiLine2D border = new MultiLine2D(Color.ORANGE);
+        border.addPoint(new Point2D.Double(0, 0));
+        border.addPoint(new Point2D.Double(100, 0));
+        border.addPoint(new Point2D.Double(100, 100));
+        border.addPoint(new Point2D.Double(0, 100));
+        border.closePath();
+        gm.border = border;
+
+        // Diagonal straight into the corner (100, 100)
+        List<Line2D> lines = gm.getCollisionLines(new Point2D.Double(50, 50), new Point2D.Double(150, 150));
+        assertSameLines(bruteForceLines(gm, new Point2D.Double(50, 50), new Point2D.Double(150, 150)), lines, "corner");
+        assertEquals(2, lines.size());
+    }
+
+    @Test
+    void testIndexFollowsGeometryChanges() {
+        GroundModel gm = new GroundModel();
+        MultiLine2D border = new MultiLine2D(Color.ORANGE);
+        border.addPoint(new Point2D.Double(0, 0));
+        border.addPoint(new Point2D.Double(100, 0));
+        border.addPoint(new Point2D.Double(100, 100));
+        border.addPoint(new Point2D.Double(0, 100));
+        border.closePath();
+        gm.setBorder(border);
+
+        Point2D from = new Point2D.Double(10, 50);
+        Point2D to = new Point2D.Double(200, 50);
+        assertEquals(100, gm.getCollisionPoint(from, to).getX(), 1e-9);
+        long version = gm.getGeometryVersion();
+        assertEquals(version, gm.getGeometryVersion());
+
+        MultiLine2D obstacle = new MultiLine2D(Color.CYAN);
+        obstacle.addPoint(new Point2D.Double(40, 40));
+        obstacle.addPoint(new Point2D.Double(60, 40));
+        obstacle.addPoint(new Point2D.Double(60, 60));
+        gm.addObstacle(obstacle);
+        assertEquals(50, gm.getCollisionPoint(from, to).getX(), 1e-9);
+        assertNotEquals(version, gm.getGeometryVersion());
+
+        // Modifying a polygon in place is picked up as well
+        version = gm.getGeometryVersion();
+        obstacle.addPoint(new Point2D.Double(30, 60));
+        assertNotEquals(version, gm.getGeometryVersion());
+        assertMatchesBruteForce(gm, from, to);
+
+        // Fields assigned directly, as the project loader does
+        gm.obstacles = new LinkedList<>();
+        assertEquals(100, gm.getCollisionPoint(from, to).getX(), 1e-9);
+        assertTrue(gm.getCollisionLines(new Point2D.Double(10, 10), new Point2D.Double(20, 20)).isEmpty());
+    }
+}
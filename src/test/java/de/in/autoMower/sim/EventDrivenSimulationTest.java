@@ -0,0 +1,97 @@
+package de.in.autoMower.sim;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class EventDrivenSimulationTest {
+
+    private GroundModel createGround() {
+        GroundModel gm = new GroundModel();
+        MultiLine2D border = new MultiLine2D(Color.ORANGE);
+        border.addPoint(new Point2D.Double(0, 0));
+        border.addPoint(new Point2D.Double(300, 0));
+        border.addPoint(new Point2D.Double(300, 200));
+        border.addPoint(new Point2D.Double(0, 200));
+        border.closePath();
+        gm.setBorder(border);
+        gm.setCalibration(2.0);
+        gm.setChargingStation(new Point2D.Double(0, 0));
+
+        MultiLine2D obstacle = new MultiLine2D(Color.CYAN);
+        obstacle.addPoint(new Point2D.Double(120, 80));
+        obstacle.addPoint(new Point2D.Double(160, 80));
+        obstacle.addPoint(new Point2D.Double(160, 120));
+        obstacle.addPoint(new Point2D.Double(120, 120));
+        obstacle.closePath();
+        gm.addObstacle(obstacle);
+
+        List<ZonePoint> zones = new ArrayList<>();
+        zones.add(new ZonePoint(new Point2D.Double(300, 0), 50));
+        zones.add(new ZonePoint(new Point2D.Double(0, 200), 50));
+        gm.setZonePoints(zones);
+        return gm;
+    }
+
+    private AutoMowerModelV4 createMower(GroundModel gm, long seed) {
+        AutoMowerModelV4 mower = new AutoMowerModelV4();
+        mower.setHeadless(true);
+        mower.setSeed(seed);
+        assertTrue(mower.prepare(new MultiLine2D(Color.RED), gm));
+        return mower;
+    }
+
+    @Test
+    void testEventDrivenMatchesTickBasedLoop() {
+        GroundModel gm = createGround();
+        for (long seed : new long[] { 1, 7, 42, 43 }) {
+            AutoMowerModelV4 tickMower = createMower(gm, seed);
+            AutoMowerModelV4 eventMower = createMower(gm, seed);
+
+            // Long enough for low battery, the way back to the dock and charging
+            tickMower.runUntil(3 * 3600);
+            eventMower.runEventsUntil(3 * 3600);
+
+            assertEquals(3 * 3600, eventMower.simulatedRuntimeSeconds, 1e-6);
+            TraceBuffer tickTrace = tickMower.getTrace();
+            TraceBuffer eventTrace = eventMower.getTrace();
+            assertTrue(tickTrace.size() > 100, "Tick run should have produced segments: " + tickTrace.size());
+            assertEquals(tickTrace.size(), eventTrace.size(), "Seed " + seed);
+            for (int i = 0; i < tickTrace.size(); i++)
+                assertEquals(tickTrace.getPoint(i), eventTrace.getPoint(i), "Seed " + seed + ", point " + i);
+
+            assertEquals(tickMower.currentState, eventMower.currentState);
+            assertEquals(tickMower.currentBatteryWh, eventMower.currentBatteryWh);
+            assertEquals(tickMower.getCollisionCount(), eventMower.getCollisionCount());
+            assertArrayEquals(tickMower.getCoverage().getCells(), eventMower.getCoverage().getCells());
+            assertEquals(tickMower.getCoveragePercentage(), eventMower.getCoveragePercentage());
+            assertEquals(tickMower.getZoneDistanceStats(), eventMower.getZoneDistanceStats());
+            assertEquals(tickMower.getTransitionDistanceMeters(), eventMower.getTransitionDistanceMeters());
+        }
+    }
+
+    @Test
+    void testEventDrivenBatteryCycle() {
+        GroundModel gm = createGround();
+        AutoMowerModel mower = new AutoMowerModel();
+        mower.setHeadless(true);
+        assertTrue(mower.prepare(new MultiLine2D(Color.RED), gm));
+        mower.batteryCapacityWh = 1.0;
+        mower.currentBatteryWh = 1.0;
+
+        boolean sawCharging = false;
+        while (mower.simulatedRuntimeSeconds < 3600 && !sawCharging) {
+            mower.advanceToNextEvent(3600 - mower.simulatedRuntimeSeconds);
+            sawCharging |= mower.isCharging();
+        }
+        assertTrue(sawCharging, "Mower should reach the dock or teleport there");
+        assertTrue(mower.runEventsUntil(3600));
+    }
+}
@@ -0,0 +1,64 @@
+package de.in.autoMower.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+
+import org.junit.jupiter.api.Test;
+
+class HeadlessSimulationTest {
+
+    private GroundModel createBox() {
+        GroundModel gm = new GroundModel();
+        MultiLine2D border = new MultiLine2D(Color.ORANGE);
+        border.addPoint(new Point2D.Double(0, 0));
+        border.addPoint(new Point2D.Double(200, 0));
+        border.addPoint(new Point2D.Double(200, 200));
+        border.addPoint(new Point2D.Double(0, 200));
+        border.closePath();
+        gm.setBorder(border);
+        gm.setCalibration(2.0);
+        gm.setChargingStation(new Point2D.Double(0, 0));
+        return gm;
+    }
+
+    @Test
+    void testRunUntilAdvancesSimulatedTimeWithoutSleeping() {
+        GroundModel gm = createBox();
+        AutoMowerModel mower = new AutoMowerModel();
+        mower.setHeadless(true);
+        MultiLine2D trace = new MultiLine2D(Color.RED);
+
+        assertTrue(mower.prepare(trace, gm), "Mower should be placed on the ground");
+
+        long start = System.currentTimeMillis();
+        // 2 simulated hours, including several battery cycles
+        boolean running = mower.runUntil(2 * 3600);
+        long duration = System.currentTimeMillis() - start;
+
+        assertTrue(running, "Mower should still be running");
+        assertEquals(2 * 3600, mower.simulatedRuntimeSeconds, 1e-6);
+        assertTrue(duration < 2 * 3600 * 1000 / 50, "Headless run should be much faster than timeScale 50");
+        assertTrue(trace.getNumberOfPoints() > 50, "Trace should grow: " + trace.getNumberOfPoints());
+        assertTrue(mower.getCoveragePercentage() > 0.5, "Coverage: " + mower.getCoveragePercentage());
+    }
+
+    @Test
+    void testStepChargesAndResumes() {
+        GroundModel gm = createBox();
+        AutoMowerModel mower = new AutoMowerModel();
+        mower.setHeadless(true);
+        assertTrue(mower.prepare(new MultiLine2D(Color.RED), gm));
+
+        mower.currentBatteryWh = 0.0001;
+        mower.step(AbstractAutoMowerModel.DEFAULT_STEP_SECONDS);
+        assertTrue(mower.isCharging(), "Empty battery should teleport to dock and charge");
+        assertTrue(mower.getCurrentPosition().distance(gm.getChargingStation()) < 0.001);
+
+        mower.runUntil(mower.simulatedRuntimeSeconds + 5);
+        assertEquals(AbstractAutoMowerModel.State.MOWING, mower.currentState);
+        assertEquals(mower.batteryCapacityWh, mower.currentBatteryWh, 0.1);
+    }
+}
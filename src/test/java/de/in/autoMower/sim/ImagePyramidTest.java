@@ -0,0 +1,120 @@
+package de.in.autoMower.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ImagePyramidTest {
+
+    private static BufferedImage randomImage(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(3);
+        for (int y = 0; y < height; y++)
+            for (int x = 0; x < width; x++)
+                image.setRGB(x, y, random.nextInt());
+        return image;
+    }
+
+    @Test
+    void testLevels() {
+        ImagePyramid pyramid = new ImagePyramid(randomImage(1500, 700));
+        // 1500, 750, 375, 188
+        assertEquals(4, pyramid.getLevelCount());
+        assertEquals(188, pyramid.levelWidth(3));
+        assertEquals(88, pyramid.levelHeight(3));
+        assertEquals(0, pyramid.levelFor(3));
+        assertEquals(0, pyramid.levelFor(1));
+        assertEquals(0, pyramid.levelFor(0.8));
+        assertEquals(1, pyramid.levelFor(0.5));
+        assertEquals(1, pyramid.levelFor(0.3));
+        assertEquals(2, pyramid.levelFor(0.25));
+        assertEquals(3, pyramid.levelFor(0.01));
+        assertTrue(pyramid.isBuilt(3, 0, 0));
+        assertFalse(pyramid.isBuilt(1, 0, 0));
+    }
+
+    @Test
+    void testTileIsBoxAverage() {
+        BufferedImage image = randomImage(1399, 1059);
+        ImagePyramid pyramid = new ImagePyramid(image);
+        assertEquals(4, pyramid.getLevelCount());
+        // Level 2 is 350 x 265, odd sizes at the edges of the levels below
+        for (int ty = 0; ty < 2; ty++)
+            for (int tx = 0; tx < 2; tx++)
+                pyramid.build(2, tx, ty);
+        assertTrue(pyramid.isBuilt(1, 2, 2));
+
+        BufferedImage screen = new BufferedImage(350, 265, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = screen.createGraphics();
+        pyramid.draw(g, AffineTransform.getScaleInstance(0.25, 0.25), screen.getWidth(), screen.getHeight());
+        g.dispose();
+        for (int y = 0; y < screen.getHeight(); y++)
+            for (int x = 0; x < screen.getWidth(); x++)
+                assertEquals(boxAverage(image, x, y, 4), screen.getRGB(x, y) & 0xFFFFFF, "at " + x + "," + y);
+    }
+
+    /** Averaged twice, with rounding, like the pyramid does. */
+    private static int boxAverage(BufferedImage image, int x, int y, int size) {
+        if (size == 1)
+            return image.getRGB(Math.min(x, image.getWidth() - 1), Math.min(y, image.getHeight() - 1)) & 0xFFFFFF;
+        int half = size / 2;
+        int[] colors = { boxAverage(image, 2 * x, 2 * y, half), boxAverage(image, 2 * x + 1, 2 * y, half),
+                boxAverage(image, 2 * x, 2 * y + 1, half), boxAverage(image, 2 * x + 1, 2 * y + 1, half) };
+        int width = (image.getWidth() + half - 1) / half;
+        int height = (image.getHeight() + half - 1) / half;
+        // Past the edge of the level below the last column or row is repeated
+        if (2 * x + 1 >= width) {
+            colors[1] = colors[0];
+            colors[3] = colors[2];
+        }
+        if (2 * y + 1 >= height) {
+            colors[2] = colors[0];
+            colors[3] = colors[1];
+        }
+        int result = 0;
+        for (int shift = 0; shift < 24; shift += 8) {
+            int sum = 0;
+            for (int c : colors)
+                sum += (c >> shift) & 0xFF;
+            result |= ((sum + 2) >> 2) << shift;
+        }
+        return result;
+    }
+
+    @Test
+    void testOnlyVisibleTilesAreRequested() throws Exception {
+        ImagePyramid pyramid = new ImagePyramid(randomImage(2048, 2048));
+        Object built = new Object();
+        pyramid.setOnTilesBuilt(() -> {
+            synchronized (built) {
+                built.notifyAll();
+            }
+        });
+
+        // Level 1 at half size, the screen shows the top left 512 x 512 of the image
+        BufferedImage screen = new BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = screen.createGraphics();
+        int version = pyramid.getVersion();
+        synchronized (built) {
+            pyramid.draw(g, AffineTransform.getScaleInstance(0.5, 0.5), 256, 256);
+            // Drawn from the coarsest level meanwhile
+            assertNotEquals(0, screen.getRGB(100, 100));
+            built.wait(10000);
+        }
+        g.dispose();
+
+        assertNotEquals(version, pyramid.getVersion());
+        assertTrue(pyramid.isBuilt(1, 0, 0));
+        assertFalse(pyramid.isBuilt(1, 1, 0));
+        assertFalse(pyramid.isBuilt(1, 0, 1));
+        assertFalse(pyramid.isBuilt(2, 0, 0));
+    }
+}
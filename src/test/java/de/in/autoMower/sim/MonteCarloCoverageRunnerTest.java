@@ -0,0 +1,73 @@
+package de.in.autoMower.sim;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class MonteCarloCoverageRunnerTest {
+
+    private GroundModel createBox() {
+        GroundModel gm = new GroundModel();
+        MultiLine2D border = new MultiLine2D(Color.ORANGE);
+        border.addPoint(new Point2D.Double(0, 0));
+        border.addPoint(new Point2D.Double(200, 0));
+        border.addPoint(new Point2D.Double(200, 200));
+        border.addPoint(new Point2D.Double(0, 200));
+        border.closePath();
+        gm.setBorder(border);
+        gm.setCalibration(2.0);
+        gm.setChargingStation(new Point2D.Double(0, 0));
+        return gm;
+    }
+
+    @Test
+    void testCoverageCurvesAndTimeToCoverage() {
+        GroundModel gm = createBox();
+        MonteCarloCoverageRunner runner = new MonteCarloCoverageRunner(gm, new AutoMowerModel());
+        AtomicInteger progress = new AtomicInteger();
+
+        MonteCarloCoverageRunner.Result result = runner.run(6, 3600, 60, 1L,
+                done -> progress.accumulateAndGet(done, Math::max));
+
+        assertEquals(6, result.getRuns());
+        assertEquals(6, progress.get());
+        assertEquals(61, result.getTimes().length);
+        assertEquals(3600, result.getTimes()[60], 1e-9);
+
+        double[] mean = result.getMean();
+        double[] lower = result.getLowerBand();
+        double[] upper = result.getUpperBand();
+        for (int s = 1; s < mean.length; s++) {
+            assertTrue(mean[s] >= mean[s - 1], "Coverage must not decrease");
+            assertTrue(lower[s] <= mean[s] && mean[s] <= upper[s]);
+        }
+        assertTrue(mean[mean.length - 1] > 0.9, "Coverage: " + mean[mean.length - 1]);
+
+        double t95 = result.getMedianTimeToCoverage(0.95);
+        double t99 = result.getMedianTimeToCoverage(0.99);
+        assertFalse(Double.isNaN(t95));
+        assertTrue(Double.isNaN(t99) || t99 >= t95);
+        assertTrue(result.getRunsReaching(0.95) >= result.getRunsReaching(0.99));
+    }
+
+    @Test
+    void testRunsAreReproducibleForTheSameSeed() {
+        GroundModel gm = createBox();
+        AutoMowerModelV4 template = new AutoMowerModelV4();
+
+        MonteCarloCoverageRunner.Result a = new MonteCarloCoverageRunner(gm, template).run(3, 600, 100, 7L, null);
+        MonteCarloCoverageRunner.Result b = new MonteCarloCoverageRunner(gm, template).run(3, 600, 100, 7L, null);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(a.getSeed(i), b.getSeed(i));
+            assertArrayEquals(a.getCurve(i), b.getCurve(i), 1e-12);
+        }
+    }
+}
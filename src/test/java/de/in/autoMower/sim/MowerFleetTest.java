@@ -0,0 +1,110 @@
+package de.in.autoMower.sim;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class MowerFleetTest {
+
+    private static MowerFleet fleet(GroundModel gm, int count) {
+        AutoMowerModelV2 first = new AutoMowerModelV2();
+        first.setHeadless(true);
+        MowerFleet fleet = MowerFleet.create(gm, first, count);
+        for (int i = 0; i < count; i++)
+            fleet.getMowers().get(i).setSeed(100 + i);
+        return fleet;
+    }
+
+    @Test
+    void testDocksSpreadAlongTheBorder() throws Exception {
+        GroundModel gm = TestGrounds.tbs10();
+        MowerFleet fleet = fleet(gm, 3);
+        List<Point2D> docks = MowerFleet.spreadDocks(gm, 3);
+        for (int i = 1; i < 3; i++) {
+            assertEquals(docks.get(i), fleet.getMowers().get(i).getDock());
+            assertTrue(gm.getBorder().ptSegDist(docks.get(i)) < 1e-6);
+        }
+        double length = gm.getPerimeterLength();
+        double d1 = gm.getDistOnPerimeter(docks.get(1)) - gm.getDistOnPerimeter(docks.get(0));
+        assertEquals(length / 3, (d1 + length) % length, 1e-6);
+
+        assertTrue(fleet.prepare());
+        assertEquals(gm.getChargingStation(), fleet.getMowers().get(0).getDock());
+        for (AbstractAutoMowerModel mower : fleet.getMowers()) {
+            assertEquals(mower.getDock(), mower.getTrace().getPoint(0));
+            assertSame(fleet.getMowers().get(0).getCoverage(), mower.getCoverage());
+        }
+    }
+
+    @Test
+    void testSharedGridIsTheUnionOfAllMowers() throws Exception {
+        GroundModel gm = TestGrounds.tbs10();
+        MowerFleet fleet = fleet(gm, 3);
+        assertTrue(fleet.prepare());
+        MowerFleet.Result result = fleet.run(1800, 300);
+        assertArrayEquals(result.getTimes(), fleet.getHistory().getTimes());
+
+        double[] sum = new double[result.getTimes().length];
+        for (int i = 0; i < result.getMowerCount(); i++)
+            for (int s = 0; s < sum.length; s++)
+                sum[s] += result.getOwn(i)[s];
+        assertArrayEquals(result.getCombined(), sum, 1e-12);
+        for (int s = 1; s < sum.length; s++)
+            assertTrue(result.getCombined()[s] >= result.getCombined()[s - 1]);
+
+        // The same mowers alone, each with a grid of its own
+        MowerFleet alone = fleet(gm, 3);
+        List<byte[]> grids = new ArrayList<>();
+        for (AbstractAutoMowerModel mower : alone.getMowers()) {
+            assertTrue(mower.prepare(null, gm));
+            mower.runEventsUntil(1800);
+            grids.add(mower.getCoverage().getCells());
+        }
+
+        CoverageGrid shared = fleet.getMowers().get(0).getCoverage();
+        byte[] cells = shared.getCells();
+        long mowed = 0;
+        for (int i = 0; i < cells.length; i++) {
+            byte expected = 0;
+            for (byte[] grid : grids)
+                expected = (byte) Math.max(expected, grid[i]);
+            assertEquals(expected, cells[i], "cell " + i);
+            if (cells[i] == 2)
+                mowed++;
+        }
+        assertEquals(mowed, shared.getMowedCount());
+        assertEquals((double) mowed / shared.getMowableCount(), result.getCombined()[sum.length - 1], 1e-12);
+        assertTrue(result.getCombined()[sum.length - 1] > alone.getMowers().get(0).getCoveragePercentage());
+    }
+
+    @Test
+    void testPacedFleetRecordsItsCoverage() throws Exception {
+        GroundModel gm = TestGrounds.tbs10();
+        MowerFleet fleet = fleet(gm, 2);
+        for (AbstractAutoMowerModel mower : fleet.getMowers())
+            mower.setTimeScale(1000);
+        fleet.start();
+        try {
+            Thread.sleep(1500);
+        } finally {
+            fleet.cancel();
+        }
+
+        MowerFleet.Result history = fleet.getHistory();
+        double[] times = history.getTimes();
+        assertTrue(times.length >= 2, "samples " + times.length);
+        assertEquals(2, history.getMowerCount());
+        for (int s = 1; s < times.length; s++) {
+            assertTrue(times[s] >= times[s - 1] + MowerFleet.PACED_SAMPLE_SECONDS);
+            assertTrue(history.getCombined()[s] >= history.getCombined()[s - 1]);
+        }
+        assertTrue(history.getCombined()[times.length - 1] > 0);
+    }
+}
@@ -0,0 +1,74 @@
+package de.in.autoMower.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+
+import org.junit.jupiter.api.Test;
+
+class MowerSnapshotTest {
+
+    private static GroundModel square() {
+        GroundModel gm = new GroundModel();
+        MultiLine2D border = new MultiLine2D(Color.ORANGE);
+        border.addPoint(new Point2D.Double(0, 0));
+        border.addPoint(new Point2D.Double(300, 0));
+        border.addPoint(new Point2D.Double(300, 300));
+        border.addPoint(new Point2D.Double(0, 300));
+        border.closePath();
+        gm.setBorder(border);
+        gm.setCalibration(1.0);
+        gm.setChargingStation(new Point2D.Double(150, 150));
+        return gm;
+    }
+
+    @Test
+    void testSnapshotIsTakenAtTheEndOfARun() {
+        AutoMowerModelV2 mower = new AutoMowerModelV2();
+        mower.setHeadless(true);
+        mower.prepare(null, square());
+        mower.runUntil(600);
+
+        MowerSnapshot snapshot = mower.getSnapshot();
+        assertEquals(mower.getCurrentPosition(), snapshot.position());
+        assertNotSame(mower.getCurrentPosition(), snapshot.position());
+        assertEquals(mower.simulatedRuntimeSeconds, snapshot.runtimeSeconds());
+        assertEquals(mower.getCoveragePercentage(), snapshot.coverage());
+        assertEquals(mower.getCollisionCount(), snapshot.collisions());
+        assertEquals(mower.getZoneCollisionStats(), snapshot.zoneStats());
+
+        // Stepping without publishing leaves the snapshot alone
+        Point2D seen = new Point2D.Double(snapshot.position().getX(), snapshot.position().getY());
+        mower.step(1);
+        assertSame(snapshot, mower.getSnapshot());
+        assertEquals(seen, snapshot.position());
+    }
+
+    @Test
+    void testSnapshotsOfAPacedRunAreConsistent() throws Exception {
+        AutoMowerModelV2 mower = new AutoMowerModelV2();
+        mower.setHeadless(true);
+        mower.setTimeScale(50);
+        GroundModel gm = square();
+        mower.prepare(null, gm);
+        mower.startPaced();
+        try {
+            double runtime = 0;
+            long deadline = System.currentTimeMillis() + 500;
+            while (System.currentTimeMillis() < deadline) {
+                MowerSnapshot snapshot = mower.getSnapshot();
+                assertTrue(snapshot.runtimeSeconds() >= runtime);
+                runtime = snapshot.runtimeSeconds();
+                assertTrue(snapshot.batteryPercent() >= 0 && snapshot.batteryPercent() <= 1);
+                assertTrue(gm.getBorder().ptSegDist(snapshot.position()) < 1e-6 || gm.isInside(snapshot.position()));
+            }
+            assertTrue(runtime > 0);
+        } finally {
+            mower.cancel();
+        }
+    }
+}
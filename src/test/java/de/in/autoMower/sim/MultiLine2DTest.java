@@ -0,0 +1,88 @@
+package de.in.autoMower.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.awt.geom.Point2D;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class MultiLine2DTest {
+
+    private static MultiLine2D square() {
+        MultiLine2D line = new MultiLine2D();
+        line.addPoint(new Point2D.Double(0, 0));
+        line.addPoint(new Point2D.Double(10, 0));
+        line.addPoint(new Point2D.Double(10, 10));
+        line.addPoint(new Point2D.Double(0, 10));
+        line.closePath();
+        return line;
+    }
+
+    @Test
+    void testSnapshotsDoNotChange() {
+        MultiLine2D line = square();
+        MultiLine2D.Coordinates before = line.getCoordinates();
+        int mod = line.getModCount();
+
+        line.addPoint(new Point2D.Double(-5, 5));
+        line.getPoints().set(0, new Point2D.Double(1, 1));
+        line.getPoints().remove(2);
+
+        assertEquals(4, before.size());
+        assertEquals(new Point2D.Double(0, 0), before.getPoint(0));
+        assertEquals(new Point2D.Double(10, 10), before.getPoint(2));
+        assertEquals(List.of(new Point2D.Double(1, 1), new Point2D.Double(10, 0), new Point2D.Double(0, 10),
+                new Point2D.Double(-5, 5)), line.getCoordinates().toList());
+        assertNotEquals(mod, line.getModCount());
+    }
+
+    @Test
+    void testPointsViewIsLive() {
+        MultiLine2D line = square();
+        List<Point2D> points = line.getPoints();
+        points.add(2, new Point2D.Double(20, 5));
+        assertEquals(5, line.getNumberOfPoints());
+        assertEquals(new Point2D.Double(20, 5), line.getPoint(2));
+        assertEquals(new Point2D.Double(20, 5), line.getLine(1).getP2());
+        assertEquals(new Point2D.Double(0, 0), line.getLine(4).getP2());
+
+        // Elements are copies
+        points.get(0).setLocation(50, 50);
+        assertEquals(new Point2D.Double(0, 0), line.getPoint(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> points.get(5));
+
+        // Iterating while appending sees the state at the start
+        int seen = 0;
+        for (Point2D p : points) {
+            line.addPoint(p);
+            seen++;
+        }
+        assertEquals(5, seen);
+        assertEquals(10, line.getNumberOfPoints());
+    }
+
+    @Test
+    void testSerialization() throws Exception {
+        MultiLine2D line = square();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(line);
+        }
+        MultiLine2D copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (MultiLine2D) in.readObject();
+        }
+        assertEquals(line.getCoordinates().toList(), copy.getPoints());
+        assertEquals(100, copy.getArea(), 1e-9);
+        assertEquals(true, copy.contains(new Point2D.Double(5, 5)));
+        copy.addPoint(new Point2D.Double(-5, 5));
+        assertEquals(5, copy.getNumberOfPoints());
+    }
+}
@@ -0,0 +1,155 @@
+package de.in.autoMower.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.awt.Color;
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class PerimeterTableTest {
+
+    /** The walks GroundModel did before the table. */
+    private static double linearDistOnPerimeter(MultiLine2D border, Point2D p) {
+        List<Point2D> pts = border.getPoints();
+        int n = pts.size();
+        double minDist = Double.MAX_VALUE;
+        int segmentStart = -1;
+        for (int i = 0; i < n; i++) {
+            int next = (i + 1) % n;
+            Line2D seg = new Line2D.Double(pts.get(i), pts.get(next));
+            double d = seg.ptSegDist(p);
+            if (d < minDist) {
+                minDist = d;
+                segmentStart = i;
+            }
+        }
+        double totalDist = 0;
+        int curr = border.numberingStartIndex;
+        while (curr != segmentStart) {
+            int next = (curr + border.numberingDirection + n) % n;
+            totalDist += pts.get(curr).distance(pts.get(next));
+            curr = next;
+        }
+        totalDist += pts.get(segmentStart).distance(p);
+        return totalDist;
+    }
+
+    private static double linearPerimeterLength(MultiLine2D border) {
+        double total = 0;
+        List<Point2D> pts = border.getPoints();
+        for (int i = 0; i < pts.size(); i++)
+            total += pts.get(i).distance(pts.get((i + 1) % pts.size()));
+        return total;
+    }
+
+    private static Point2D linearPointAtDist(MultiLine2D border, double dist) {
+        List<Point2D> pts = border.getPoints();
+        int n = pts.size();
+        int startIdx = border.numberingStartIndex;
+        int direction = border.numberingDirection;
+        double currentDist = 0;
+        int curr = startIdx;
+        double maxLen = linearPerimeterLength(border);
+        dist = dist % maxLen;
+        if (dist < 0)
+            dist += maxLen;
+        while (true) {
+            int next = (curr + direction + n) % n;
+            double segLen = pts.get(curr).distance(pts.get(next));
+            if (currentDist + segLen >= dist) {
+                double t = (dist - currentDist) / segLen;
+                return new Point2D.Double(pts.get(curr).getX() + t * (pts.get(next).getX() - pts.get(curr).getX()),
+                        pts.get(curr).getY() + t * (pts.get(next).getY() - pts.get(curr).getY()));
+            }
+            currentDist += segLen;
+            curr = next;
+            if (curr == startIdx)
+                break;
+        }
+        return pts.get(startIdx);
+    }
+
+    private static void assertSameAsLinearWalks(GroundModel gm, long seed) {
+        MultiLine2D border = gm.getBorder();
+        java.awt.Rectangle b = border.getBounds();
+        Random random = new Random(seed);
+        List<Point2D> queries = new ArrayList<>(border.getPoints());
+        for (int i = 0; i < border.getNumberOfPoints(); i++) {
+            Line2D edge = border.getLine(i);
+            queries.add(GeomUtil.getColinearPointWithRatio(edge.getP1(), edge.getP2(), random.nextDouble()));
+        }
+        for (int i = 0; i < 3000; i++)
+            queries.add(new Point2D.Double(b.x - 50 + random.nextDouble() * (b.width + 100),
+                    b.y - 50 + random.nextDouble() * (b.height + 100)));
+        for (Point2D q : queries)
+            assertEquals(linearDistOnPerimeter(border, q), gm.getDistOnPerimeter(q), 0.0, q.toString());
+
+        double length = linearPerimeterLength(border);
+        assertEquals(length, gm.getPerimeterLength(), 0.0);
+        List<Double> distances = new ArrayList<>(List.of(0.0, length, -length, 2.5 * length, -0.25 * length));
+        for (Point2D vertex : border.getPoints())
+            distances.add(linearDistOnPerimeter(border, vertex));
+        for (int i = 0; i < 500; i++)
+            distances.add((random.nextDouble() * 3 - 1) * length);
+        for (double d : distances)
+            assertEquals(linearPointAtDist(border, d), gm.getPointAtDistOnPerimeter(d), "dist " + d);
+    }
+
+    @Test
+    void testMatchesLinearWalksOnTbs10() throws Exception {
+        GroundModel gm = TestGrounds.tbs10();
+        assertSameAsLinearWalks(gm, 1);
+
+        // Other start vertex and the other direction
+        gm.getBorder().setNumberingStartAndDirection(7, -gm.getBorder().numberingDirection);
+        assertSameAsLinearWalks(gm, 2);
+    }
+
+    @Test
+    void testMatchesLinearWalksOnManyVertices() {
+        GroundModel gm = new GroundModel();
+        MultiLine2D star = new MultiLine2D(Color.ORANGE);
+        Random random = new Random(3);
+        for (int i = 0; i < 1000; i++) {
+            double a = 2 * Math.PI * i / 1000;
+            double r = 50 + random.nextDouble() * 100;
+            star.addPoint(new Point2D.Double(200 + r * Math.cos(a), 200 + r * Math.sin(a)));
+        }
+        star.closePath();
+        gm.setBorder(star);
+        star.setNumberingStartAndDirection(321, 1);
+        assertSameAsLinearWalks(gm, 4);
+    }
+
+    @Test
+    void testRebuiltWhenBorderOrNumberingChanges() {
+        GroundModel gm = new GroundModel();
+        MultiLine2D border = new MultiLine2D(Color.ORANGE);
+        border.addPoint(new Point2D.Double(0, 0));
+        border.addPoint(new Point2D.Double(100, 0));
+        border.addPoint(new Point2D.Double(100, 100));
+        border.addPoint(new Point2D.Double(0, 100));
+        border.closePath();
+        gm.setBorder(border);
+
+        PerimeterTable table = gm.getPerimeterTable();
+        assertSame(table, gm.getPerimeterTable());
+        assertEquals(400, gm.getPerimeterLength(), 0.0);
+
+        border.setNumberingStartAndDirection(2, -1);
+        assertNotSame(table, gm.getPerimeterTable());
+        assertEquals(new Point2D.Double(100, 70), gm.getPointAtDistOnPerimeter(30));
+
+        table = gm.getPerimeterTable();
+        border.getPoints().set(2, new Point2D.Double(100, 200));
+        assertNotSame(table, gm.getPerimeterTable());
+        assertSameAsLinearWalks(gm, 5);
+    }
+}
@@ -0,0 +1,93 @@
+package de.in.autoMower.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ProjectFileTest {
+
+    private static final File TBS10 = new File("src/test/resources/tbs10.json");
+
+    @Test
+    void testRoundTrip(@TempDir File tempDir) throws Exception {
+        ProjectData data = new ObjectMapper().readValue(TBS10, ProjectData.class);
+        ProjectData.ZonePointDTO zone = new ProjectData.ZonePointDTO();
+        zone.x = 12.5;
+        zone.y = -3;
+        zone.percentage = 40;
+        data.zonePoints = List.of(zone);
+
+        BufferedImage image = new BufferedImage(301, 130, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(7);
+        for (int y = 0; y < image.getHeight(); y++)
+            for (int x = 0; x < image.getWidth(); x++)
+                image.setRGB(x, y, random.nextInt());
+
+        File file = new File(tempDir, "tbs10." + ProjectFile.EXTENSION);
+        new ProjectFile(data, image).write(file);
+        assertTrue(ProjectFile.isProjectFile(file));
+        assertFalse(ProjectFile.isProjectFile(TBS10));
+
+        ProjectFile loaded = ProjectFile.read(file);
+        ProjectData read = loaded.getData();
+        assertEquals(data.calibration, read.calibration);
+        assertEquals(data.chargingStation.toPoint(), read.chargingStation.toPoint());
+        assertEquals(data.border.toMultiLine().getPoints(), read.border.toMultiLine().getPoints());
+        assertEquals(data.border.closed, read.border.closed);
+        assertEquals(data.border.colorRGB, read.border.colorRGB);
+        assertEquals(data.obstacles.size(), read.obstacles.size());
+        for (int i = 0; i < data.obstacles.size(); i++)
+            assertEquals(data.obstacles.get(i).toMultiLine().getPoints(),
+                    read.obstacles.get(i).toMultiLine().getPoints());
+        assertEquals(1, read.zonePoints.size());
+        assertEquals(40, read.zonePoints.get(0).percentage);
+        assertEquals(zone.toZonePoint().getPoint(), read.zonePoints.get(0).toZonePoint().getPoint());
+        assertEquals(data.mower.speedInCmPerSec, read.mower.speedInCmPerSec);
+        assertEquals(data.mower.batteryCapacityWh, read.mower.batteryCapacityWh);
+        assertEquals(data.mower.currentPosition.toPoint(), read.mower.currentPosition.toPoint());
+
+        BufferedImage readImage = loaded.getImage();
+        assertNotNull(readImage);
+        assertEquals(image.getWidth(), readImage.getWidth());
+        assertEquals(image.getHeight(), readImage.getHeight());
+        for (int y = 0; y < image.getHeight(); y++)
+            for (int x = 0; x < image.getWidth(); x++)
+                assertEquals(image.getRGB(x, y), readImage.getRGB(x, y));
+    }
+
+    @Test
+    void testWithoutImageAndBrokenFiles(@TempDir File tempDir) throws Exception {
+        ProjectData data = new ProjectData();
+        data.border = new ProjectData.MultiLineDTO(new MultiLine2D(java.awt.Color.ORANGE));
+        File file = new File(tempDir, "empty." + ProjectFile.EXTENSION);
+        new ProjectFile(data, null).write(file);
+
+        ProjectFile loaded = ProjectFile.read(file);
+        assertNull(loaded.getImage());
+        assertNull(loaded.getData().mower);
+        assertNull(loaded.getData().chargingStation);
+        assertTrue(loaded.getData().border.points.isEmpty());
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        File truncated = new File(tempDir, "truncated." + ProjectFile.EXTENSION);
+        Files.write(truncated.toPath(), Arrays.copyOf(bytes, 20));
+        assertThrows(IOException.class, () -> ProjectFile.read(truncated));
+        assertThrows(IOException.class, () -> ProjectFile.read(TBS10));
+    }
+}
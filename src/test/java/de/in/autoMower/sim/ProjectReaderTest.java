@@ -0,0 +1,116 @@
+package de.in.autoMower.sim;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ProjectReaderTest {
+
+    private static final File TBS10 = new File("src/test/resources/tbs10.json");
+
+    @Test
+    void testSameDataAsDataBinding() throws Exception {
+        ProjectData expected = new ObjectMapper().readValue(TBS10, ProjectData.class);
+        ProjectReader reader = ProjectReader.read(TBS10, true);
+        ProjectData data = reader.getData();
+
+        assertFalse(reader.hasImage());
+        assertEquals(expected.calibration, data.calibration);
+        assertEquals(expected.chargingStation.toPoint(), data.chargingStation.toPoint());
+        assertEquals(expected.border.toMultiLine().getPoints(), data.border.toMultiLine().getPoints());
+        assertEquals(expected.obstacles.size(), data.obstacles.size());
+        for (int i = 0; i < expected.obstacles.size(); i++)
+            assertEquals(expected.obstacles.get(i).toMultiLine().getPoints(),
+                    data.obstacles.get(i).toMultiLine().getPoints());
+        assertEquals(expected.mower.mowingWidthInCm, data.mower.mowingWidthInCm);
+        assertEquals(expected.mower.chargeRateWhPerSec, data.mower.chargeRateWhPerSec);
+        assertNull(data.zonePoints);
+    }
+
+    @Test
+    void testImageIsDecodedOnDemand(@TempDir File tempDir) throws Exception {
+        BufferedImage image = new BufferedImage(90, 40, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++)
+            for (int x = 0; x < image.getWidth(); x++)
+                image.setRGB(x, y, x * 0x020000 + y * 0x000300 + 0x40);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+
+        ProjectData data = new ObjectMapper().readValue(TBS10, ProjectData.class);
+        data.backgroundImageBase64 = Base64.getEncoder().encodeToString(png.toByteArray());
+        ProjectData.ZonePointDTO zone = new ProjectData.ZonePointDTO();
+        zone.percentage = 30;
+        data.zonePoints = List.of(zone);
+        File file = new File(tempDir, "project.json");
+        // Written by a later version with a field this one does not know
+        Map<String, Object> json = new ObjectMapper().convertValue(data, new TypeReference<Map<String, Object>>() {});
+        json.put("comment", Map.of("nested", List.of(1, 2)));
+        new ObjectMapper().writeValue(file, json);
+
+        ProjectReader reader = ProjectReader.read(file, true);
+        assertTrue(reader.hasImage());
+        assertNull(reader.getData().backgroundImageBase64);
+        assertEquals(30, reader.getData().zonePoints.get(0).percentage);
+        assertEquals(new Dimension(90, 40), reader.getImageSize());
+        BufferedImage decoded = reader.decodeImage();
+        for (int y = 0; y < image.getHeight(); y++)
+            for (int x = 0; x < image.getWidth(); x++)
+                assertEquals(image.getRGB(x, y), decoded.getRGB(x, y));
+
+        ProjectReader headless = ProjectReader.read(file, false);
+        assertFalse(headless.hasImage());
+        assertEquals(data.border.points.size(), headless.getData().border.points.size());
+    }
+
+    @Test
+    void testSaveWhileImageIsPending(@TempDir File tempDir) throws Exception {
+        BufferedImage image = new BufferedImage(60, 30, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++)
+            for (int x = 0; x < image.getWidth(); x++)
+                image.setRGB(x, y, x * 0x030000 + y * 0x000500 + 0x20);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        ProjectData data = new ObjectMapper().readValue(TBS10, ProjectData.class);
+        data.backgroundImageBase64 = Base64.getEncoder().encodeToString(png.toByteArray());
+        File opened = new File(tempDir, "opened.json");
+        new ObjectMapper().writeValue(opened, data);
+
+        // Opened as the application does, saved before the image is decoded
+        ProjectReader reader = ProjectReader.read(opened, true);
+        GroundModel gm = TestGrounds.tbs10();
+        gm.setPendingImage(reader, reader.getImageSize());
+        assertNull(gm.getImage());
+        assertEquals(new Dimension(60, 30), gm.getImageSize());
+        File json = new File(tempDir, "saved.json");
+        File binary = new File(tempDir, "saved." + ProjectFile.EXTENSION);
+        App.saveProject(json, false, gm, new AutoMowerModel());
+        App.saveProject(binary, true, gm, new AutoMowerModel());
+
+        assertArrayEquals(png.toByteArray(), ProjectReader.read(json, true).getImageBytes());
+        BufferedImage fromJson = ProjectReader.read(json, true).decodeImage();
+        BufferedImage fromBinary = ProjectFile.read(binary).getImage();
+        for (int y = 0; y < image.getHeight(); y++)
+            for (int x = 0; x < image.getWidth(); x++) {
+                assertEquals(image.getRGB(x, y), fromJson.getRGB(x, y));
+                assertEquals(image.getRGB(x, y), fromBinary.getRGB(x, y));
+            }
+    }
+}
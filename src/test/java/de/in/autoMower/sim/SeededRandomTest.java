@@ -0,0 +1,69 @@
+package de.in.autoMower.sim;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class SeededRandomTest {
+
+    private static double[] run(AbstractAutoMowerModel mower, GroundModel gm) {
+        assertTrue(mower.prepare(null, gm));
+        mower.runUntil(2 * 3600);
+        TraceBuffer trace = mower.getTrace();
+        double[] coordinates = new double[2 * trace.size()];
+        for (int i = 0; i < trace.size(); i++) {
+            coordinates[2 * i] = trace.getX(i);
+            coordinates[2 * i + 1] = trace.getY(i);
+        }
+        return coordinates;
+    }
+
+    @Test
+    void testSameSeedGivesTheSameTrace() throws Exception {
+        GroundModel gm = TestGrounds.tbs10();
+        AutoMowerModelV3 first = new AutoMowerModelV3();
+        first.setHeadless(true);
+        first.setSeed(1234);
+        double[] expected = run(first, gm);
+
+        AutoMowerModelV3 second = new AutoMowerModelV3();
+        second.setHeadless(true);
+        second.setSeed(1234);
+        // Bit for bit, not just close
+        assertArrayEquals(expected, run(second, TestGrounds.tbs10()), 0);
+        assertEquals(first.getCollisionCount(), second.getCollisionCount());
+
+        second.setSeed(1235);
+        assertTrue(!Arrays.equals(expected, run(second, TestGrounds.tbs10())));
+    }
+
+    @Test
+    void testResumeContinuesTheStream() {
+        SeededRandom random = new SeededRandom(99);
+        for (int i = 0; i < 1000; i++) {
+            if (i % 3 == 0)
+                random.nextBoolean();
+            else
+                random.nextDouble();
+        }
+        SeededRandom resumed = SeededRandom.resume(99, random.getDraws());
+        assertEquals(random.getDraws(), resumed.getDraws());
+        for (int i = 0; i < 100; i++)
+            assertEquals(random.nextDouble(), resumed.nextDouble());
+    }
+
+    @Test
+    void testSeedsOfABatch() {
+        long[] seeds = SeededRandom.seeds(7, 16);
+        assertArrayEquals(seeds, SeededRandom.seeds(7, 16));
+        // A larger batch starts with the same runs
+        assertArrayEquals(seeds, Arrays.copyOf(SeededRandom.seeds(7, 32), 16));
+        assertEquals(16, Arrays.stream(seeds).distinct().count());
+        assertNotEquals(seeds[0], SeededRandom.seeds(8, 1)[0]);
+    }
+}
@@ -0,0 +1,97 @@
+package de.in.autoMower.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SimulationSchedulerTest {
+
+    private static GroundModel square() {
+        GroundModel gm = new GroundModel();
+        MultiLine2D border = new MultiLine2D(Color.ORANGE);
+        border.addPoint(new Point2D.Double(0, 0));
+        border.addPoint(new Point2D.Double(300, 0));
+        border.addPoint(new Point2D.Double(300, 300));
+        border.addPoint(new Point2D.Double(0, 300));
+        border.closePath();
+        gm.setBorder(border);
+        gm.setCalibration(1.0);
+        gm.setChargingStation(new Point2D.Double(150, 150));
+        return gm;
+    }
+
+    private static AutoMowerModelV2 mower(GroundModel gm) {
+        AutoMowerModelV2 mower = new AutoMowerModelV2();
+        mower.setHeadless(true);
+        mower.setTimeScale(20);
+        assertTrue(mower.prepare(null, gm));
+        return mower;
+    }
+
+    private static void awaitRuntime(AbstractAutoMowerModel mower, double seconds) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (mower.simulatedRuntimeSeconds <= seconds && System.currentTimeMillis() < deadline)
+            Thread.sleep(5);
+        assertTrue(mower.simulatedRuntimeSeconds > seconds);
+    }
+
+    @Test
+    void testStopPausesAndResumeContinues() throws Exception {
+        AutoMowerModelV2 mower = mower(square());
+        mower.startPaced();
+        awaitRuntime(mower, 1);
+
+        mower.stop();
+        assertTrue(mower.isStopped());
+        double stoppedAt = mower.simulatedRuntimeSeconds;
+        Thread.sleep(100);
+        assertEquals(stoppedAt, mower.simulatedRuntimeSeconds);
+
+        // Resuming twice must not start a second loop on the mower
+        mower.resume();
+        mower.resume();
+        assertFalse(mower.isStopped());
+        awaitRuntime(mower, stoppedAt + 1);
+
+        mower.cancel();
+        double cancelledAt = mower.simulatedRuntimeSeconds;
+        Thread.sleep(100);
+        assertTrue(mower.isStopped());
+        assertEquals(cancelledAt, mower.simulatedRuntimeSeconds);
+    }
+
+    @Test
+    void testManyRunsOnFewThreads() throws Exception {
+        GroundModel gm = square();
+        SimulationScheduler scheduler = new SimulationScheduler(2);
+        try {
+            List<AutoMowerModelV2> mowers = new ArrayList<>();
+            List<SimulationScheduler.Run> runs = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                AutoMowerModelV2 mower = mower(gm);
+                mowers.add(mower);
+                runs.add(scheduler.start(mower));
+            }
+            for (AutoMowerModelV2 mower : mowers)
+                awaitRuntime(mower, 0);
+
+            long tickThreads = Thread.getAllStackTraces().keySet().stream()
+                    .filter(t -> t.getName().startsWith("mower-tick-")).count();
+            assertTrue(tickThreads <= 2 + Runtime.getRuntime().availableProcessors(), "threads: " + tickThreads);
+
+            for (SimulationScheduler.Run run : runs) {
+                run.cancel();
+                assertFalse(run.isActive());
+            }
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package de.in.autoMower.sim;
+
+import java.io.File;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Grounds shared by several tests.
+ */
+final class TestGrounds {
+
+    private TestGrounds() {
+    }
+
+    /** The border, obstacles, charging station and calibration of tbs10.json. */
+    static GroundModel tbs10() throws Exception {
+        ProjectData data = new ObjectMapper().readValue(new File("src/test/resources/tbs10.json"), ProjectData.class);
+        GroundModel gm = new GroundModel();
+        gm.setBorder(data.border.toMultiLine());
+        gm.obstacles = data.obstacles.stream().map(ProjectData.MultiLineDTO::toMultiLine).collect(Collectors.toList());
+        gm.setChargingStation(data.chargingStation.toPoint());
+        gm.setCalibration(data.calibration);
+        return gm;
+    }
+}
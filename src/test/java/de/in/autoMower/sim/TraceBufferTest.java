@@ -0,0 +1,112 @@
+package de.in.autoMower.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+class TraceBufferTest {
+
+    @Test
+    void testPointsAcrossChunks() {
+        TraceBuffer trace = new TraceBuffer();
+        int n = 5 * TraceBuffer.CHUNK_SIZE + 17;
+        for (int i = 0; i < n; i++)
+            trace.add(i, -i);
+        assertEquals(n, trace.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, trace.getX(i));
+            assertEquals(-i, trace.getY(i));
+        }
+        assertEquals(new Point2D.Double(n - 1, 1 - n), trace.getPoint(n - 1));
+    }
+
+    @Test
+    void testIncrementalRangesCoverEverySegmentOnce() {
+        TraceBuffer trace = new TraceBuffer();
+        List<double[]> segments = new ArrayList<>();
+        int drawn = 0;
+        for (int i = 0; i < 3 * TraceBuffer.CHUNK_SIZE; i++) {
+            trace.add(i, 2 * i);
+            if (i % 1000 == 0 || i % TraceBuffer.CHUNK_SIZE == 0) {
+                // What a renderer does every frame
+                int size = trace.size();
+                trace.forEachSegment(Math.max(0, drawn - 1), size,
+                        (x1, y1, x2, y2) -> segments.add(new double[] { x1, y1, x2, y2 }));
+                drawn = size;
+            }
+        }
+        trace.forEachSegment(Math.max(0, drawn - 1), trace.size(),
+                (x1, y1, x2, y2) -> segments.add(new double[] { x1, y1, x2, y2 }));
+
+        assertEquals(trace.size() - 1, segments.size());
+        for (int i = 0; i < segments.size(); i++) {
+            double[] s = segments.get(i);
+            assertEquals(i, s[0]);
+            assertEquals(2 * i, s[1]);
+            assertEquals(i + 1, s[2]);
+            assertEquals(2 * i + 2, s[3]);
+        }
+    }
+
+    @Test
+    void testReaderSeesOnlyCompletePoints() throws Exception {
+        TraceBuffer trace = new TraceBuffer();
+        int n = 20 * TraceBuffer.CHUNK_SIZE;
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            int checked = 0;
+            while (checked < n && failure.get() == null) {
+                int size = trace.size();
+                for (int i = checked; i < size; i++)
+                    if (trace.getX(i) != i || trace.getY(i) != i + 0.5)
+                        failure.set("point " + i);
+                checked = size;
+            }
+        });
+        reader.start();
+        for (int i = 0; i < n; i++)
+            trace.add(i, i + 0.5);
+        reader.join(10000);
+        assertEquals(null, failure.get());
+    }
+
+    @Test
+    void testRunWithoutVisualTrace() {
+        GroundModel gm = new GroundModel();
+        MultiLine2D border = new MultiLine2D(Color.ORANGE);
+        border.addPoint(new Point2D.Double(0, 0));
+        border.addPoint(new Point2D.Double(300, 0));
+        border.addPoint(new Point2D.Double(300, 300));
+        border.addPoint(new Point2D.Double(0, 300));
+        border.closePath();
+        gm.setBorder(border);
+        gm.setCalibration(1.0);
+        gm.setChargingStation(new Point2D.Double(150, 150));
+
+        AutoMowerModelV2 mower = new AutoMowerModelV2();
+        mower.setHeadless(true);
+        MultiLine2D visual = new MultiLine2D(Color.RED);
+        assertTrue(mower.prepare(visual, gm));
+        mower.runUntil(600);
+        TraceBuffer trace = mower.getTrace();
+        assertTrue(trace.size() > 10);
+        assertEquals(visual.getNumberOfPoints(), trace.size());
+        for (int i = 0; i < trace.size(); i++)
+            assertEquals(visual.getPoint(i), trace.getPoint(i));
+
+        // The trace buffer alone, as the UI runs
+        AutoMowerModelV2 other = new AutoMowerModelV2();
+        other.setHeadless(true);
+        assertTrue(other.prepare(null, gm));
+        assertEquals(1, other.getTrace().size());
+        other.runUntil(600);
+        assertTrue(other.getTrace().size() > 10);
+    }
+}
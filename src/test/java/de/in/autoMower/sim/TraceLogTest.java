@@ -0,0 +1,151 @@
+package de.in.autoMower.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TraceLogTest {
+
+    private static final double RUNTIME = 4 * 3600;
+
+    private static AutoMowerModel loggedRun(File file) throws Exception {
+        GroundModel gm = TestGrounds.tbs10();
+
+        AutoMowerModel mower = new AutoMowerModel();
+        mower.setHeadless(true);
+        mower.setSeed(42);
+        mower.setTraceLog(TraceLog.Writer.open(file, mower.getMowingWidthInCm(), mower.getSeed()));
+        assertTrue(mower.prepare(null, gm));
+        mower.runUntil(RUNTIME);
+        return mower;
+    }
+
+    @Test
+    void testLogHoldsTheRun(@TempDir File tempDir) throws Exception {
+        File file = new File(tempDir, "run." + TraceLog.EXTENSION);
+        AutoMowerModel mower = loggedRun(file);
+        mower.cancel();
+        assertNull(mower.getTraceLog());
+
+        TraceLog.Reader log = TraceLog.Reader.open(file);
+        assertEquals(mower.getMowingWidthInCm(), log.getMowingWidthInCm());
+        assertEquals(RUNTIME, log.getDuration(), 0.001);
+        // At most one per simulated minute, minutes without any record have none
+        assertTrue(log.getKeyframeCount() <= RUNTIME / 60 + 1);
+        assertTrue(log.getKeyframeCount() > RUNTIME / 120);
+
+        TraceBuffer trace = mower.getTrace();
+        TraceLog.Cursor cursor = log.cursor();
+        int points = 0;
+        int records = 0;
+        boolean charged = false;
+        int tag;
+        while ((tag = cursor.next(Double.MAX_VALUE)) >= 0) {
+            records++;
+            if (tag == TraceLog.POINT) {
+                assertEquals(trace.getX(points), cursor.getX(), 0.5 / TraceLog.POSITION_SCALE);
+                assertEquals(trace.getY(points), cursor.getY(), 0.5 / TraceLog.POSITION_SCALE);
+                points++;
+            } else if (tag == TraceLog.STATE && cursor.getState() == AbstractAutoMowerModel.State.CHARGING) {
+                charged = true;
+                assertEquals(mower.getDock().getX(), cursor.getX(), 0.5 / TraceLog.POSITION_SCALE);
+            }
+        }
+        assertEquals(trace.size(), points);
+        assertEquals(mower.getCollisionCount(), cursor.getCollisions());
+        assertEquals(AbstractAutoMowerModel.State.STOPPED, cursor.getState());
+        assertTrue(charged);
+        // A few bytes per record, the coordinates alone would take 16
+        assertTrue(file.length() < 8L * records, file.length() + " bytes for " + records + " records");
+    }
+
+    @Test
+    void testReplayJumpsBackAndForth(@TempDir File tempDir) throws Exception {
+        File file = new File(tempDir, "run." + TraceLog.EXTENSION);
+        loggedRun(file).cancel();
+        TraceLog.Reader log = TraceLog.Reader.open(file);
+
+        TraceReplay straight = new TraceReplay(log);
+        straight.seek(3600.5);
+        TraceReplay jumping = new TraceReplay(log);
+        jumping.seek(3 * 3600);
+        TraceBuffer before = jumping.getTrace();
+        jumping.seek(3600.5);
+        assertFalse(before == jumping.getTrace());
+        assertSameReplay(straight, jumping);
+
+        // Playing on, 1 s wall clock at 600 x
+        straight.setSpeed(600);
+        straight.setPlaying(true);
+        straight.advance(1);
+        jumping.seek(4200.5);
+        assertSameReplay(straight, jumping);
+
+        straight.advance(RUNTIME);
+        assertFalse(straight.isPlaying());
+        assertEquals(RUNTIME, straight.getSeconds(), 0.001);
+    }
+
+    private static void assertSameReplay(TraceReplay expected, TraceReplay actual) {
+        assertEquals(expected.getSeconds(), actual.getSeconds());
+        assertEquals(expected.getSnapshot().position(), actual.getSnapshot().position());
+        assertEquals(expected.getSnapshot().state(), actual.getSnapshot().state());
+        assertEquals(expected.getSnapshot().batteryPercent(), actual.getSnapshot().batteryPercent());
+        assertEquals(expected.getSnapshot().collisions(), actual.getSnapshot().collisions());
+        assertEquals(expected.getTrace().size(), actual.getTrace().size());
+        for (int i = 0; i < expected.getTrace().size(); i++)
+            assertEquals(expected.getTrace().getPoint(i), actual.getTrace().getPoint(i));
+    }
+
+    @Test
+    void testLogThatWasNotClosed(@TempDir File tempDir) throws Exception {
+        File file = new File(tempDir, "run." + TraceLog.EXTENSION);
+        AutoMowerModel mower = loggedRun(file);
+        // Paused: everything so far is on disk, but there is no index
+        mower.stop();
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        File cut = new File(tempDir, "cut." + TraceLog.EXTENSION);
+        // Killed in the middle of a record
+        Files.write(cut.toPath(), Arrays.copyOf(bytes, bytes.length - 2));
+        mower.cancel();
+
+        TraceLog.Reader closed = TraceLog.Reader.open(file);
+        TraceLog.Reader unclosed = TraceLog.Reader.open(cut);
+        assertEquals(closed.getKeyframeCount(), unclosed.getKeyframeCount());
+        assertTrue(unclosed.getDuration() <= closed.getDuration());
+        assertTrue(unclosed.getDuration() > RUNTIME - 60);
+
+        TraceReplay replay = new TraceReplay(unclosed);
+        replay.seek(RUNTIME);
+        assertTrue(replay.getTrace().size() >= mower.getTrace().size() - 1);
+    }
+
+    @Test
+    void testCorruptRecordsAreAnIOException(@TempDir File tempDir) throws Exception {
+        File file = new File(tempDir, "run." + TraceLog.EXTENSION);
+        AutoMowerModel mower = loggedRun(file);
+        mower.stop();
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        mower.cancel();
+
+        // An unknown tag, and a state record with a state that does not exist
+        byte[][] tails = { { 9, 0, 0, 0 }, { TraceLog.STATE, 0, 99, 0, 0, 0 } };
+        for (byte[] tail : tails) {
+            byte[] corrupt = Arrays.copyOf(bytes, bytes.length + tail.length);
+            System.arraycopy(tail, 0, corrupt, bytes.length, tail.length);
+            File cut = new File(tempDir, "corrupt." + TraceLog.EXTENSION);
+            Files.write(cut.toPath(), corrupt);
+            assertThrows(IOException.class, () -> TraceLog.Reader.open(cut));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package de.in.autoMower.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TraceOccupancyTest {
+
+    private static final int SIZE = 300;
+
+    private static BufferedImage render(TraceBuffer trace, AffineTransform at, float width, TraceOccupancy occupancy,
+            int[] drawn) {
+        BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setStroke(new BasicStroke(width, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        g.setColor(Color.RED);
+        // In pieces, as the panel draws it
+        int from = 0;
+        for (int to = 1000; from < trace.size(); to += 1000) {
+            to = Math.min(to, trace.size());
+            drawn[0] += trace.draw(g, at, Math.max(0, from - 1), to, occupancy);
+            from = to;
+        }
+        g.dispose();
+        return image;
+    }
+
+    @Test
+    void testSkippedSegmentsAreCovered() {
+        // A random walk that keeps crossing its own path, seen zoomed out
+        TraceBuffer trace = new TraceBuffer();
+        Random random = new Random(11);
+        double x = 500, y = 500;
+        for (int i = 0; i < 100000; i++) {
+            x = Math.max(0, Math.min(1000, x + random.nextGaussian() * 40));
+            y = Math.max(0, Math.min(1000, y + random.nextGaussian() * 40));
+            trace.add(x, y);
+        }
+        AffineTransform at = AffineTransform.getScaleInstance(0.3, 0.3);
+        float width = 6;
+
+        int[] all = new int[1];
+        BufferedImage full = render(trace, at, width, null, all);
+        int[] lod = new int[1];
+        BufferedImage reduced = render(trace, at, width, new TraceOccupancy(SIZE, SIZE, 4), lod);
+
+        assertEquals(trace.size() - 1, all[0]);
+        assertTrue(lod[0] < all[0] / 4, "drew " + lod[0]);
+        assertTrue(lod[0] <= SIZE * SIZE);
+        int differing = 0;
+        for (int py = 0; py < SIZE; py++)
+            for (int px = 0; px < SIZE; px++)
+                if (full.getRGB(px, py) != reduced.getRGB(px, py))
+                    differing++;
+        assertEquals(0, differing);
+    }
+
+    @Test
+    void testMarksEachPixelOnce() {
+        TraceOccupancy occupancy = new TraceOccupancy(100, 100, 2);
+        assertTrue(occupancy.mark(10, 10, 60, 35));
+        assertFalse(occupancy.mark(10, 10, 60, 35));
+        assertFalse(occupancy.mark(60, 35, 10, 10), "Same pixels walked backwards");
+        assertFalse(occupancy.mark(30, 20, 30, 20));
+        assertTrue(occupancy.mark(10, 11, 10, 11));
+
+        // Outside the margin nothing can show
+        assertFalse(occupancy.mark(-50, -50, -3, -10));
+        assertFalse(occupancy.mark(150, 0, 300, 90));
+        assertTrue(occupancy.mark(-2, 50, -2, 50));
+        // Across the screen from far outside
+        assertTrue(occupancy.mark(-1000000, 40, 1000000, 40));
+    }
+}
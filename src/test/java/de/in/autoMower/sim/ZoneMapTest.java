@@ -0,0 +1,161 @@
+package de.in.autoMower.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ZoneMapTest {
+
+    /** The zone rule of the zone based mower models. */
+    private static int zoneAt(GroundModel gm, Point2D p) {
+        List<ZonePoint> zones = gm.getZonePoints();
+        double[] boundaries = new double[zones.size()];
+        for (int i = 0; i < boundaries.length; i++)
+            boundaries[i] = gm.getDistOnPerimeter(zones.get(i).getPoint());
+        return ZoneMap.zoneOf(gm.getDistOnPerimeter(p), boundaries);
+    }
+
+    private static void assertSameAsPerimeterDistance(GroundModel gm) {
+        CoverageMask mask = gm.getCoverageMask();
+        ZoneMap map = gm.getZoneMap();
+        long[] counts = new long[map.getZoneCount()];
+        for (int y = 0; y < mask.getHeight(); y++)
+            for (int x = 0; x < mask.getWidth(); x++) {
+                if (!mask.isMowable(x, y))
+                    continue;
+                Point2D p = new Point2D.Double(mask.getMinX() + x, mask.getMinY() + y);
+                assertEquals(zoneAt(gm, p), map.getZone(x, y), p.toString());
+                counts[map.getZone(x, y)]++;
+            }
+        long total = 0;
+        for (int zone = 0; zone < counts.length; zone++) {
+            assertEquals(counts[zone], map.getMowableCount(zone));
+            total += counts[zone];
+        }
+        assertEquals(mask.getMowableCount(), total);
+    }
+
+    private static GroundModel square() {
+        GroundModel gm = new GroundModel();
+        MultiLine2D border = new MultiLine2D(Color.ORANGE);
+        border.addPoint(new Point2D.Double(0, 0));
+        border.addPoint(new Point2D.Double(100, 0));
+        border.addPoint(new Point2D.Double(100, 100));
+        border.addPoint(new Point2D.Double(0, 100));
+        border.closePath();
+        gm.setBorder(border);
+        gm.setCalibration(1.0);
+        gm.setChargingStation(new Point2D.Double(0, 0));
+        return gm;
+    }
+
+    @Test
+    void testMatchesPerimeterDistance() throws Exception {
+        GroundModel gm = square();
+        gm.addZonePoint(new Point2D.Double(50, 0), 30);
+        gm.addZonePoint(new Point2D.Double(100, 100), 30);
+        gm.addZonePoint(new Point2D.Double(0, 70), 40);
+        assertSameAsPerimeterDistance(gm);
+
+        GroundModel tbs = TestGrounds.tbs10();
+        MultiLine2D border = tbs.getBorder();
+        tbs.addZonePoint(border.getPoint(5), 40);
+        tbs.addZonePoint(border.getPoint(12), 35);
+        tbs.addZonePoint(border.getPoint(19), 25);
+        assertSameAsPerimeterDistance(tbs);
+    }
+
+    @Test
+    void testZoneAtReadsNearestPixel() {
+        GroundModel gm = square();
+        gm.addObstacle(new MultiLine2D(Color.CYAN));
+        MultiLine2D obstacle = gm.getObstacles().get(0);
+        obstacle.addPoint(new Point2D.Double(40, 40));
+        obstacle.addPoint(new Point2D.Double(60, 40));
+        obstacle.addPoint(new Point2D.Double(60, 60));
+        obstacle.addPoint(new Point2D.Double(40, 60));
+        obstacle.closePath();
+        gm.addZonePoint(new Point2D.Double(50, 0), 30);
+        gm.addZonePoint(new Point2D.Double(100, 100), 30);
+        gm.addZonePoint(new Point2D.Double(0, 70), 40);
+        CoverageMask mask = gm.getCoverageMask();
+
+        java.util.Random random = new java.util.Random(9);
+        for (int i = 0; i < 5000; i++) {
+            Point2D p = new Point2D.Double(-20 + random.nextDouble() * 140, -20 + random.nextDouble() * 140);
+            long x = Math.round(p.getX()) - mask.getMinX();
+            long y = Math.round(p.getY()) - mask.getMinY();
+            boolean onMask = x >= 0 && y >= 0 && x < mask.getWidth() && y < mask.getHeight()
+                    && mask.isMowable((int) x, (int) y);
+            Point2D expectedAt = onMask ? new Point2D.Double(Math.round(p.getX()), Math.round(p.getY())) : p;
+            assertEquals(zoneAt(gm, expectedAt), gm.getZoneAt(p), p.toString());
+        }
+        // Zone points and pixels exactly on a boundary
+        for (ZonePoint zp : gm.getZonePoints())
+            assertEquals(zoneAt(gm, zp.getPoint()), gm.getZoneAt(zp.getPoint()));
+    }
+
+    @Test
+    void testRebuiltWhenZonesChange() {
+        GroundModel gm = square();
+        assertNull(gm.getZoneMap());
+        gm.addZonePoint(new Point2D.Double(50, 0), 50);
+        gm.addZonePoint(new Point2D.Double(100, 100), 50);
+        ZoneMap map = gm.getZoneMap();
+        assertSame(map, gm.getZoneMap());
+
+        // Moved in place and handed back
+        gm.getZonePoints().get(0).setPoint(new Point2D.Double(100, 20));
+        gm.setZonePoints(new ArrayList<>(gm.getZonePoints()));
+        ZoneMap moved = gm.getZoneMap();
+        assertNotSame(map, moved);
+        assertSameAsPerimeterDistance(gm);
+
+        // The border changed
+        gm.getBorder().addPoint(new Point2D.Double(50, 120));
+        assertNotSame(moved, gm.getZoneMap());
+        assertSameAsPerimeterDistance(gm);
+    }
+
+    @Test
+    void testPerZoneCoverage() {
+        GroundModel gm = square();
+        gm.addZonePoint(new Point2D.Double(100, 0), 50);
+        gm.addZonePoint(new Point2D.Double(0, 100), 50);
+
+        AutoMowerModelV4 mower = new AutoMowerModelV4();
+        mower.groundModel = gm;
+        mower.setMowingWidthInCm(20);
+        mower.initCoverage();
+        ZoneMap map = gm.getZoneMap();
+        Point2D from = new Point2D.Double(10, 20);
+        Point2D to = new Point2D.Double(40, 80);
+        mower.updateCoverage(from, to);
+
+        Line2D stripe = new Line2D.Double(from, to);
+        long[] expected = new long[map.getZoneCount()];
+        for (int x = 0; x <= 100; x++)
+            for (int y = 0; y <= 100; y++)
+                if (gm.getCoverageMask().isMowable(x, y) && stripe.ptSegDist(x, y) <= 10)
+                    expected[map.getZone(x, y)]++;
+        for (int z = 0; z < map.getZoneCount(); z++)
+            assertEquals((double) expected[z] / map.getMowableCount(z), mower.getZoneCoveragePercentage(z), 1e-12);
+        assertTrue(expected[0] > 0 && expected[1] > 0, "The stripe crosses both zones");
+
+        double mowed = 0;
+        for (int z = 0; z < map.getZoneCount(); z++)
+            mowed += mower.getZoneCoveragePercentage(z) * map.getMowableCount(z);
+        assertEquals(mower.getCoveragePercentage() * gm.getCoverageMask().getMowableCount(), mowed, 1e-6);
+        assertEquals(0, mower.getZoneCoveragePercentage(7));
+    }
+}